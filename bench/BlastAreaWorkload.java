@@ -0,0 +1,51 @@
+import benchmark.Workload;
+import benchmark.Workloads;
+
+import java.util.Arrays;
+
+/**
+ * ボムの爆風の範囲の列挙 ({@link AbstractBomb#collectBlastCells}) を測る。
+ * マップの通れる全てのマスにボム (variant で NormalBomb か GoldBomb を選ぶ) を置いた場合の合計の時間である。
+ * 範囲の列挙はマップを書き換えないので、同じマップで繰り返し測る。
+ */
+public class BlastAreaWorkload implements Workload {
+    private MapData mapData;
+    private AbstractBomb[] bombs;
+    private final int[] out = new int[16];
+
+    @Override
+    public void setup(String param, String variant) {
+        final int[] size = Workloads.parseSize(param);
+        this.mapData = new MapData(size[0], size[1], 1);
+
+        final int cellCount = mapData.getWidth() * mapData.getHeight();
+        final AbstractBomb[] bombs = new AbstractBomb[cellCount];
+        int n = 0;
+        for (int cell = 0; cell < cellCount; ++cell) {
+            if (!mapData.isMovableAt(cell)) continue;
+
+            final int x = mapData.getCellX(cell);
+            final int y = mapData.getCellY(cell);
+            switch (variant) {
+                case "NormalBomb":
+                    bombs[n++] = new NormalBomb(x, y);
+                    break;
+                case "GoldBomb":
+                    bombs[n++] = new GoldBomb(x, y);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown variant: " + variant);
+            }
+        }
+        this.bombs = Arrays.copyOf(bombs, n);
+    }
+
+    @Override
+    public Object run() {
+        int total = 0;
+        for (final AbstractBomb bomb : bombs) {
+            total += bomb.collectBlastCells(mapData, out);
+        }
+        return total;
+    }
+}
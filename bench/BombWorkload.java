@@ -0,0 +1,91 @@
+import benchmark.Workload;
+
+import java.util.Random;
+
+/**
+ * ボムの爆発処理 ({@link BombExecutor#update}) を測る。 param はボムの個数。
+ * <ul>
+ *     <li>explodeAll: 全てのボムが同時にカウントダウンを終えた場合</li>
+ *     <li>chainReaction: 一つのボムの爆風から、残り全てのボムが誘爆していく場合</li>
+ * </ul>
+ * 爆発はマップを書き換えるので、マップとボムは呼び出しごとに作り直す。
+ */
+public class BombWorkload implements Workload {
+    private static final MazeSimulationListener NO_LISTENER = new MazeSimulationListener() {
+    };
+
+    private int bombCount;
+    private boolean isChain;
+
+    private MapData mapData;
+    private BombExecutor bombExecutor;
+
+    @Override
+    public void setup(String param, String variant) {
+        this.bombCount = Integer.parseInt(param);
+        switch (variant) {
+            case "explodeAll":
+                this.isChain = false;
+                break;
+            case "chainReaction":
+                this.isChain = true;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown variant: " + variant);
+        }
+    }
+
+    /**
+     * 201x151 のマップの通れるマスに、ボムを bombCount 個置く。
+     * 誘爆させる場合は、スタート位置から近い順に置くことで、どのボムにも爆風の届く範囲に別のボムがあるようにする。
+     */
+    @Override
+    public void prepareInvocation() {
+        this.mapData = new MapData(201, 151, 1);
+        this.bombExecutor = new BombExecutor(mapData.getWidth(), mapData.getHeight());
+
+        final int cellCount = mapData.getWidth() * mapData.getHeight();
+        final int[] cells = new int[cellCount];
+        int n = 0;
+        if (isChain) {
+            final DistanceField field = new DistanceField(mapData.getWidth(), mapData.getHeight());
+            field.rebuild(mapData.toCellIndex(mapData.getPlayerStartX(), mapData.getPlayerStartY()), mapData::isMovableAt);
+            for (int d = 0; n < bombCount; ++d) {
+                final int prevN = n;
+                for (int cell = 0; cell < cellCount && n < bombCount; ++cell) {
+                    if (field.getDistance(cell) == d) cells[n++] = cell;
+                }
+                if (n == prevN) break;
+            }
+        } else {
+            final Random random = new Random(1);
+            for (int cell = 0; cell < cellCount; ++cell) {
+                if (mapData.isMovableAt(cell)) cells[n++] = cell;
+            }
+            for (int i = n - 1; i > 0; --i) {
+                final int j = random.nextInt(i + 1);
+                final int tmp = cells[i];
+                cells[i] = cells[j];
+                cells[j] = tmp;
+            }
+            n = Math.min(n, bombCount);
+        }
+
+        for (int i = 0; i < n; ++i) {
+            final int cell = cells[i];
+            final AbstractBomb bomb = (i % 2 == 0)
+                    ? new NormalBomb(mapData.getCellX(cell), mapData.getCellY(cell))
+                    : new GoldBomb(mapData.getCellX(cell), mapData.getCellY(cell));
+            bombExecutor.register(bomb);
+            if (!isChain || i == 0) {
+                bomb.detonate();
+            }
+        }
+    }
+
+    @Override
+    public Object run() {
+        bombExecutor.update(mapData, NO_LISTENER);
+        return bombExecutor.countBomb();
+    }
+}
@@ -0,0 +1,39 @@
+import benchmark.Workload;
+import benchmark.Workloads;
+
+/**
+ * マップ全体のセルを条件で絞り込む処理を測る。
+ * <ul>
+ *     <li>listUpCellPositions: 空白マスの Pos のリストを作る ({@link MapData#listUpCellPositions})</li>
+ *     <li>nextItemCell: アイテムの索引でコインのあるマスを列挙する</li>
+ * </ul>
+ */
+public class CellQueryWorkload implements Workload {
+    private MapData mapData;
+    private String variant;
+
+    @Override
+    public void setup(String param, String variant) {
+        final int[] size = Workloads.parseSize(param);
+        this.mapData = new MapData(size[0], size[1], 1);
+        this.variant = variant;
+    }
+
+    @Override
+    public Object run() {
+        switch (variant) {
+            case "listUpCellPositions":
+                return mapData.listUpCellPositions(pos -> mapData.getCellType(pos.col, pos.row) == CellType.SPACE);
+
+            case "nextItemCell":
+                int sum = 0;
+                for (int cell = mapData.nextItemCell(ItemType.COIN, 0); cell >= 0; cell = mapData.nextItemCell(ItemType.COIN, cell + 1)) {
+                    sum += cell;
+                }
+                return sum;
+
+            default:
+                throw new IllegalArgumentException("Unknown variant: " + variant);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+import benchmark.Workload;
+import benchmark.Workloads;
+
+/**
+ * new MapData(w, h) を測る。掘る・アイテムを置く・ゴールを置くまでを含むコンストラクタ全体の時間である。
+ */
+public class MapGenerationWorkload implements Workload {
+    private int width;
+    private int height;
+    private long seed = 0;
+
+    @Override
+    public void setup(String param, String variant) {
+        final int[] size = Workloads.parseSize(param);
+        this.width = size[0];
+        this.height = size[1];
+    }
+
+    @Override
+    public Object run() {
+        return new MapData(width, height, seed++);
+    }
+}
@@ -0,0 +1,52 @@
+import benchmark.Workload;
+import benchmark.Workloads;
+
+/**
+ * スタート位置からゴールまでの最短ルート探索を測る。
+ * <ul>
+ *     <li>calcShortestPath: {@link MazePhase#calcShortestPath} の本体。呼び出しごとに探索器と Pos を生成する</li>
+ *     <li>findPath: 探索器を使い回した場合</li>
+ *     <li>rebuildDistanceField: ゴールからの距離場を作り直した場合</li>
+ * </ul>
+ */
+public class PathFindingWorkload implements Workload {
+    private MapData mapData;
+    private Pos start;
+    private Pos goal;
+    private GridPathFinder finder;
+    private DistanceField distanceField;
+    private String variant;
+
+    @Override
+    public void setup(String param, String variant) {
+        final int[] size = Workloads.parseSize(param);
+        this.mapData = new MapData(size[0], size[1], 1);
+        this.start = new Pos(mapData.getPlayerStartX(), mapData.getPlayerStartY());
+        this.goal = new Pos(mapData.getGoalX(), mapData.getGoalY());
+        this.finder = new GridPathFinder(mapData.getWidth(), mapData.getHeight());
+        this.distanceField = new DistanceField(mapData.getWidth(), mapData.getHeight());
+        this.variant = variant;
+    }
+
+    @Override
+    public Object run() {
+        switch (variant) {
+            case "calcShortestPath":
+                return GridPathFinder.calcShortestPath(start, goal, mapData.getWidth(), mapData.getHeight(),
+                        pos -> mapData.getCellType(pos.col, pos.row).isMovable());
+
+            case "findPath":
+                return finder.findPath(
+                        mapData.toCellIndex(start.col, start.row),
+                        mapData.toCellIndex(goal.col, goal.row),
+                        mapData::isMovableAt);
+
+            case "rebuildDistanceField":
+                distanceField.rebuild(mapData.toCellIndex(goal.col, goal.row), mapData::isMovableAt);
+                return distanceField.getDistance(mapData.toCellIndex(start.col, start.row));
+
+            default:
+                throw new IllegalArgumentException("Unknown variant: " + variant);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+import benchmark.Workload;
+import benchmark.Workloads;
+
+/**
+ * スタート位置から全てのカギを拾ってゴールするまでのルート探索 ({@link KeyRouteSolver}) を測る。
+ * マップにはコインを {@value #EXTRA_COINS} 枚足して、数十枚のコインがある状態にする。
+ * <ul>
+ *     <li>fastest: カギだけを訪れる最短のルート</li>
+ *     <li>maxScore: 自動操縦と同じ歩数の余裕で、コインを最も多く拾うルート</li>
+ * </ul>
+ */
+public class RouteSolverWorkload implements Workload {
+    private static final int EXTRA_COINS = 36;
+
+    private MapData mapData;
+    private int startCell;
+    private KeyRouteSolver solver;
+    private String variant;
+
+    @Override
+    public void setup(String param, String variant) {
+        final int[] size = Workloads.parseSize(param);
+        this.mapData = new MapData(size[0], size[1], 1);
+        this.mapData.placeCoins(EXTRA_COINS);
+        this.startCell = mapData.toCellIndex(mapData.getPlayerStartX(), mapData.getPlayerStartY());
+        this.solver = new KeyRouteSolver(mapData.getWidth(), mapData.getHeight());
+        this.variant = variant;
+    }
+
+    @Override
+    public Object run() {
+        switch (variant) {
+            case "fastest":
+                return solver.solveFastest(mapData, startCell);
+
+            case "maxScore":
+                return solver.solveMaxScore(mapData, startCell, Autopilot.MAX_EXTRA_STEPS);
+
+            default:
+                throw new IllegalArgumentException("Unknown variant: " + variant);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+import benchmark.Workload;
+import benchmark.Workloads;
+
+import java.util.Random;
+
+/**
+ * {@link MazeSimulation} を画面なしで、ゲーム内時間 1 秒分 ({@value MazeSimulation#TICKS_PER_SECOND} tick) 進める処理を測る。
+ * プレイヤーはランダムに向きを変えながら移動し、時々ボムを置く。ゴールしたら新しいマップでやり直す。
+ * <p>
+ * variant が "swarm300" なら、マップ通りの敵に加えて 300 体の敵を出して、敵の群れの処理の重さを測る。
+ */
+public class SimulationWorkload implements Workload {
+    private int width;
+    private int height;
+    private long seed = 0;
+    private final Random random = new Random(0);
+    private int extraEnemyCount;
+    private MazeSimulation simulation;
+
+    @Override
+    public void setup(String param, String variant) {
+        final int[] size = Workloads.parseSize(param);
+        this.width = size[0];
+        this.height = size[1];
+        this.extraEnemyCount = variant.equals("swarm300") ? 300 : 0;
+        this.simulation = this.newSimulation();
+    }
+
+    private MazeSimulation newSimulation() {
+        final MazeSimulation simulation = new MazeSimulation(new MapData(width, height, seed++));
+        simulation.getEnemySwarm().spawnAwayFromTarget(extraEnemyCount, 0, random);
+        return simulation;
+    }
+
+    /**
+     * 倒されたり捕まえたりしていなくなった分の敵を出し直して、敵の数を保つ。
+     */
+    @Override
+    public void prepareInvocation() {
+        final EnemySwarm enemySwarm = simulation.getEnemySwarm();
+        if (enemySwarm.getEnemyCount() < extraEnemyCount) {
+            enemySwarm.spawnAwayFromTarget(extraEnemyCount - enemySwarm.getEnemyCount(), 0, random);
+        }
+    }
+
+    @Override
+    public Object run() {
+        if (simulation.hasGoaled()) {
+            this.simulation = this.newSimulation();
+        }
+
+        for (int t = 0; t < MazeSimulation.TICKS_PER_SECOND; ++t) {
+            if (random.nextInt(20) == 0) {
+                simulation.setMoveDirection(random.nextInt(4));
+            }
+            if (random.nextInt(40) == 0) {
+                simulation.placeBomb();
+            }
+            simulation.tick();
+        }
+        return simulation.getTickCount();
+    }
+}
@@ -0,0 +1,35 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ボムの爆風の範囲の列挙のベンチマーク。
+ * 測る処理の本体は {@code BlastAreaWorkload} にある。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BlastAreaBenchmark {
+    @Param({"63x45"})
+    public String param;
+
+    @Param({"NormalBomb", "GoldBomb"})
+    public String variant;
+
+    private Workload workload;
+
+    @Setup
+    public void setup() {
+        this.workload = Workloads.create("BlastAreaWorkload", param, variant);
+    }
+
+    @Benchmark
+    public Object run() {
+        return workload.run();
+    }
+}
@@ -0,0 +1,40 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ボムの爆発処理 (BombExecutor.update) のベンチマーク。param はボムの個数。
+ * 測る処理の本体は {@code BombWorkload} にある。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BombBenchmark {
+    @Param({"16", "256", "2048"})
+    public String param;
+
+    @Param({"explodeAll", "chainReaction"})
+    public String variant;
+
+    private Workload workload;
+
+    @Setup
+    public void setup() {
+        this.workload = Workloads.create("BombWorkload", param, variant);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepareInvocation() {
+        this.workload.prepareInvocation();
+    }
+
+    @Benchmark
+    public Object run() {
+        return workload.run();
+    }
+}
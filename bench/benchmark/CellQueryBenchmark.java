@@ -0,0 +1,35 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * マップ全体のセルを条件で絞り込む処理のベンチマーク。
+ * 測る処理の本体は {@code CellQueryWorkload} にある。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CellQueryBenchmark {
+    @Param({"21x15", "63x45", "201x151"})
+    public String param;
+
+    @Param({"listUpCellPositions", "nextItemCell"})
+    public String variant;
+
+    private Workload workload;
+
+    @Setup
+    public void setup() {
+        this.workload = Workloads.create("CellQueryWorkload", param, variant);
+    }
+
+    @Benchmark
+    public Object run() {
+        return workload.run();
+    }
+}
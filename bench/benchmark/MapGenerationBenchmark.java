@@ -0,0 +1,35 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 迷路の生成 (new MapData(w, h)) のベンチマーク。
+ * 測る処理の本体は {@code MapGenerationWorkload} にある。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MapGenerationBenchmark {
+    @Param({"21x15", "63x45", "201x151"})
+    public String param;
+
+    @Param({"new MapData"})
+    public String variant;
+
+    private Workload workload;
+
+    @Setup
+    public void setup() {
+        this.workload = Workloads.create("MapGenerationWorkload", param, variant);
+    }
+
+    @Benchmark
+    public Object run() {
+        return workload.run();
+    }
+}
@@ -0,0 +1,35 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * スタート位置からゴールまでの最短ルート探索のベンチマーク。
+ * 測る処理の本体は {@code PathFindingWorkload} にある。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PathFindingBenchmark {
+    @Param({"21x15", "63x45", "201x151"})
+    public String param;
+
+    @Param({"calcShortestPath", "findPath", "rebuildDistanceField"})
+    public String variant;
+
+    private Workload workload;
+
+    @Setup
+    public void setup() {
+        this.workload = Workloads.create("PathFindingWorkload", param, variant);
+    }
+
+    @Benchmark
+    public Object run() {
+        return workload.run();
+    }
+}
@@ -0,0 +1,30 @@
+package benchmark;
+
+/**
+ * ベンチマークで測る処理。
+ * <p>
+ * ゲームのクラスは無名パッケージにあり、パッケージに属する JMH のベンチマーククラスからは直接参照できない。
+ * そこで、測る処理は無名パッケージのクラスにこのインターフェースを実装して書き、
+ * ベンチマーククラスは {@link Workloads#create} でそれをクラス名から生成して呼び出す。
+ */
+public interface Workload {
+    /**
+     * 測定を始める前に一度だけ呼び出される。
+     *
+     * @param param   問題の大きさなどのパラメータ (例: "63x45")
+     * @param variant 同じ準備で測る処理のうち、どれを測るか
+     */
+    void setup(String param, String variant);
+
+    /**
+     * {@link #run()} の呼び出しごとに、その直前に呼び出される (この時間は測らない)。
+     * run() が状態を書き換える場合に、ここで元に戻す。
+     */
+    default void prepareInvocation() {
+    }
+
+    /**
+     * 測る処理を一回実行する。結果は JMH に渡して、計算が最適化で消されないようにする。
+     */
+    Object run();
+}
@@ -0,0 +1,31 @@
+package benchmark;
+
+/**
+ * {@link Workload} の実装をクラス名から生成するユーティリティ。
+ */
+public final class Workloads {
+    private Workloads() {
+    }
+
+    /**
+     * 無名パッケージのクラス className を生成し、 setup(param, variant) を呼んでから返す。
+     */
+    public static Workload create(String className, String param, String variant) {
+        final Workload workload;
+        try {
+            workload = Class.forName(className).asSubclass(Workload.class).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create workload: " + className, e);
+        }
+        workload.setup(param, variant);
+        return workload;
+    }
+
+    /**
+     * "幅x高さ" の形式の文字列を {幅, 高さ} に変換する。
+     */
+    public static int[] parseSize(String size) {
+        final String[] wh = size.split("x");
+        return new int[]{Integer.parseInt(wh[0]), Integer.parseInt(wh[1])};
+    }
+}
@@ -1,38 +1,74 @@
-import javafx.scene.canvas.GraphicsContext;
-
+/**
+ * マップに置かれたボム。
+ * 置かれてから {@link #FUSE_TICKS} tick 経つと爆発する。誘爆した場合はそれより早く爆発する。
+ * 描画は {@link BombView} が行い、このクラスは JavaFX に依存しない。
+ */
 public abstract class AbstractBomb {
+    /**
+     * ボムが置かれてから爆発するまでの tick 数。
+     */
+    public static final int FUSE_TICKS = 3 * MazeSimulation.TICKS_PER_SECOND;
+
     public final int col;
     public final int row;
-    public final ImageFrameAnimation bombAnimation;
+    private int remainingFuseTicks = FUSE_TICKS;
+    private boolean hasExploded = false;
+
+    /**
+     * このボムの爆風が届くセルのセル番号を out に書き込み、その個数を返す。
+     * マップの範囲外のセルと壁 (WALL) のセルは含めない。
+     * out の長さは {@link #getMaxBlastCellCount()} 以上でなければならない。
+     *
+     * @param mapData マップ
+     * @param out     セル番号の書き込み先
+     * @return 書き込んだセル番号の個数
+     */
+    public abstract int collectBlastCells(MapData mapData, int[] out);
 
-    public abstract void playExplosionSE();
+    /**
+     * {@link #collectBlastCells} が返すセルの個数の最大値を返す。
+     */
+    public abstract int getMaxBlastCellCount();
 
-    public abstract void explode(MapData mapData, CellDrawnPositionResolver positionResolver, DrawableExecutor explosionAnimExecutor);
+    /**
+     * 爆風が届いたセル(x, y) に対する処理 (ブロックの破壊など) を行う。
+     *
+     * @param mapData マップ
+     * @param x       爆風が届いたセルの列番号
+     * @param y       爆風が届いたセルの行番号
+     */
+    public abstract void blastCell(MapData mapData, int x, int y);
 
-    public AbstractBomb(int col, int row, SpriteSheet bombSpriteSheet) {
+    public AbstractBomb(int col, int row) {
         this.col = col;
         this.row = row;
-        this.bombAnimation = new ImageFrameAnimation(bombSpriteSheet, 1000, ImageFrameAnimation.Direction.REVERSE);
     }
 
-    public void startCountDown() {
-        this.bombAnimation.start();
+    /**
+     * カウントダウンを 1 tick 進める。
+     */
+    public void tick() {
+        if (hasExploded) return;
+        if (--remainingFuseTicks <= 0) {
+            hasExploded = true;
+        }
     }
 
     public boolean hasExploded() {
-        return this.bombAnimation.isDead();
+        return this.hasExploded;
     }
 
-    public void draw(GraphicsContext gc, CellDrawnPositionResolver positionResolver) {
-        if (this.bombAnimation.getCurrentFrameIndex() <= 0) {
-            this.bombAnimation.setDead(true);
-            this.bombAnimation.stop();
-            return;
-        }
+    /**
+     * 爆発するまでの残りの tick 数を返す。
+     */
+    public int getRemainingFuseTicks() {
+        return remainingFuseTicks;
+    }
 
-        final int x = positionResolver.getCellDrawnX(this.col);
-        final int y = positionResolver.getCellDrawnY(this.row);
-        final int s = positionResolver.getCellSize();
-        bombAnimation.draw(gc, x, y, s, s);
+    /**
+     * カウントダウンを待たずに爆発したことにする。誘爆で使う。
+     */
+    public void detonate() {
+        this.hasExploded = true;
     }
 }
@@ -0,0 +1,127 @@
+import javafx.scene.image.Image;
+import javafx.scene.media.AudioClip;
+import javafx.scene.media.Media;
+import javafx.scene.media.MediaPlayer;
+import javafx.scene.text.Font;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 画像・効果音・BGM・フォントを、ファイル毎に一度だけ読み込んで使い回すための置き場。
+ * <p>
+ * 各メソッドは、初めて要求されたファイルを読み込んでキャッシュし、二回目以降はキャッシュした同じインスタンスを返す。
+ * 返したインスタンスは全ての呼び出し元で共有されるので、呼び出し元で書き換えてはいけない
+ * (ただし {@link #mediaPlayer(String)} の再生状態は、使う側が責任を持って止めること)。
+ * <p>
+ * {@link #preloadInBackground()} を呼ぶと、ゲームで使う全てのファイルを別スレッドで先読みする。
+ * タイトル画面の間に先読みしておくことで、迷路画面の構築時に読み込みが発生しないようにする。
+ * 先読み中のファイルを要求した場合は、そのファイルの読み込みが終わるまで待ってから返す。
+ */
+public final class Assets {
+    // 先読みするファイル。ゲームで使うファイルを追加したらここにも追加する。
+    private static final String[] IMAGE_PATHS = {
+            "png/title-logo.png", "png/button-play.png", "png/button-exit.png",
+            "png/button-coin-to-goal.png", "png/button-coin-rod.png", "png/button-magic-circle.png",
+            "png/button-to-title.png", "png/button-new-map.png",
+            "png/key-32x32.png", "png/key-icon-heart-gray.png",
+            "png/door-close-32x32.png", "png/door-open-32x32.png", "png/full-coins.png",
+            "png/black-bomb-spritesheet.png", "png/gold-bomb-spritesheet.png", "png/explosion-animation.png",
+            "png/SPACE.png", "png/stone-block.png", "png/ice-block.png",
+    };
+    private static final String CHARA_IMAGE_PATH_PREFIX = "png/cat/neko1";
+    private static final String[] CHARA_DIRECTIONS = {"d", "l", "r", "u"};
+    private static final int CHARA_FRAME_COUNT = 3;
+    private static final String[] CELL_IMAGE_PATHS = {"png/SPACE.png", "png/stone-block.png", "png/ice-block.png"};
+    private static final int CELL_IMAGE_SIZE = 32;
+    private static final String[] AUDIO_CLIP_PATHS = {
+            "sound/title-bgm.mp3", "sound/coin1.wav", "sound/se_maoudamashii_system46.mp3",
+            "sound/goal.wav", "sound/coin8.wav", "sound/explosion.wav",
+    };
+    private static final String[] MEDIA_PATHS = {"sound/digitalworld.mp3", "sound/bgm-fever.mp3"};
+    private static final String PIXEL_FONT_PATH = "font/PixelMplus12-Regular.ttf";
+    private static final double PIXEL_FONT_SIZE = 16;
+
+    private static final Map<String, Image> images = new ConcurrentHashMap<>();
+    private static final Map<String, AudioClip> audioClips = new ConcurrentHashMap<>();
+    private static final Map<String, Media> medias = new ConcurrentHashMap<>();
+    private static final Map<String, MediaPlayer> mediaPlayers = new ConcurrentHashMap<>();
+    private static final Map<String, Font> fonts = new ConcurrentHashMap<>();
+
+    private static Thread preloadThread = null;
+
+    private Assets() {
+    }
+
+    /**
+     * 画像 path を元の大きさで返す。
+     */
+    public static Image image(String path) {
+        return images.computeIfAbsent(path, Image::new);
+    }
+
+    /**
+     * 画像 path を width x height に (縦横比を保たず、滑らかに) 拡大縮小したものを返す。
+     */
+    public static Image image(String path, double width, double height) {
+        return images.computeIfAbsent(path + "@" + width + "x" + height,
+                key -> new Image(path, width, height, false, true));
+    }
+
+    /**
+     * 効果音 path を返す。
+     */
+    public static AudioClip audioClip(String path) {
+        return audioClips.computeIfAbsent(path, key -> new AudioClip(MapGame.getResourceAsString(key)));
+    }
+
+    /**
+     * BGM path を再生する MediaPlayer を返す。
+     * 全ての呼び出し元で同じ MediaPlayer を共有するので、使い終わったら stop() すること。
+     */
+    public static MediaPlayer mediaPlayer(String path) {
+        return mediaPlayers.computeIfAbsent(path, key -> new MediaPlayer(media(key)));
+    }
+
+    private static Media media(String path) {
+        return medias.computeIfAbsent(path, key -> new Media(MapGame.getResourceAsString(key)));
+    }
+
+    /**
+     * フォントファイル path を、大きさ size で読み込んだフォントを返す。読み込めなければ null を返す。
+     */
+    public static Font font(String path, double size) {
+        return fonts.computeIfAbsent(path + "@" + size, key -> Font.loadFont(MapGame.getResourceAsString(path), size));
+    }
+
+    /**
+     * ゲームで使う全てのファイルの先読みを、別スレッドで始める。二回目以降の呼び出しでは何もしない。
+     * MediaPlayer は JavaFX のスレッドで作るため、先読みするのは Media までとする。
+     */
+    public static synchronized void preloadInBackground() {
+        if (preloadThread != null) return;
+
+        preloadThread = new Thread(() -> {
+            for (final String path : IMAGE_PATHS) {
+                image(path);
+            }
+            for (final String dir : CHARA_DIRECTIONS) {
+                for (int i = 1; i <= CHARA_FRAME_COUNT; ++i) {
+                    image(CHARA_IMAGE_PATH_PREFIX + dir + i + ".png");
+                }
+            }
+            for (final String path : CELL_IMAGE_PATHS) {
+                image(path, CELL_IMAGE_SIZE, CELL_IMAGE_SIZE);
+            }
+            for (final String path : AUDIO_CLIP_PATHS) {
+                audioClip(path);
+            }
+            for (final String path : MEDIA_PATHS) {
+                media(path);
+            }
+            font(PIXEL_FONT_PATH, PIXEL_FONT_SIZE);
+        }, "asset-preloader");
+        preloadThread.setDaemon(true);
+        preloadThread.start();
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * {@link KeyRouteSolver} が求めたルートに沿ってプレイヤーを動かす自動操縦。JavaFX に依存しない。
+ * <p>
+ * 毎 tick {@link #nextDirection()} が返す向きを {@link MazeSimulation#setMoveDirection} に渡して使う。
+ * 操作はキー入力と同じ経路でシミュレーションに伝わるので、リプレイにもそのまま記録される。
+ * <p>
+ * ルートは、最短のルートより {@value #MAX_EXTRA_STEPS} 歩多く歩くまでの範囲でコインを最も多く拾うものを選ぶ。
+ * プレイヤーがルートから外れたとき (手動で動かした、次のマスが塞がったなど) と、ルートを歩き終えたときに求め直す。
+ * ルートが見つからなかった場合は、プレイヤーのマスかマップが変わるまで求め直さない。
+ */
+public class Autopilot {
+    /**
+     * コインを拾うために、最短のルートより多く歩いてもよい歩数。
+     */
+    public static final int MAX_EXTRA_STEPS = 30;
+
+    private final MazeSimulation simulation;
+    private final MapData mapData;
+    private final KeyRouteSolver solver;
+
+    // 歩くマスのセル番号の列と、次に向かうマスの添字
+    private int[] path = new int[0];
+    private int pathIndex = 0;
+    private int direction = PlayerMotion.TYPE_NONE;
+
+    // ルートが見つからなかったときのプレイヤーのマス (見つかっていれば -1) と、それ以降にマップが変わったかどうか
+    private int failedStartCell = -1;
+    private boolean hasMapChanged = false;
+
+    public Autopilot(MazeSimulation simulation) {
+        this.simulation = simulation;
+        this.mapData = simulation.getMapData();
+        this.solver = new KeyRouteSolver(mapData.getWidth(), mapData.getHeight());
+        this.mapData.addCellChangeListener((x, y, cellType) -> this.hasMapChanged = true);
+    }
+
+    /**
+     * プレイヤーの今のマスからルートを求め直す。
+     *
+     * @return ルートが見つかったなら true
+     */
+    public boolean replan() {
+        final PlayerMotion player = simulation.getPlayer();
+        final int startCell = mapData.toCellIndex(player.getPosCol(), player.getPosRow());
+        final KeyRouteSolver.Route route = solver.solveMaxScore(mapData, startCell, MAX_EXTRA_STEPS);
+        this.path = route.getPath();
+        this.pathIndex = 0;
+        this.failedStartCell = route.isFound() ? -1 : startCell;
+        this.hasMapChanged = false;
+        return route.isFound();
+    }
+
+    /**
+     * この tick でプレイヤーを動かす向きを返す。ゴールした後やルートが見つからない場合は {@link PlayerMotion#TYPE_NONE} を返す。
+     * プレイヤーが移動している途中は、移動を終えるまで同じ向きを返す。
+     */
+    public int nextDirection() {
+        final PlayerMotion player = simulation.getPlayer();
+        if (simulation.hasGoaled()) {
+            return direction = PlayerMotion.TYPE_NONE;
+        }
+        if (player.isMoving()) {
+            return direction;
+        }
+
+        final int col = player.getPosCol();
+        final int row = player.getPosRow();
+        final int cell = mapData.toCellIndex(col, row);
+        if (pathIndex < path.length && path[pathIndex] == cell) {
+            ++pathIndex;
+        }
+        if (pathIndex >= path.length || !this.isNextStep(col, row, path[pathIndex])) {
+            // 同じマスから同じマップで求め直しても見つからないので、毎 tick 探索し直さない
+            if (cell == failedStartCell && !hasMapChanged) {
+                return direction = PlayerMotion.TYPE_NONE;
+            }
+            this.replan();
+        }
+        if (pathIndex >= path.length) {
+            return direction = PlayerMotion.TYPE_NONE;
+        }
+
+        final int next = path[pathIndex];
+        final int dx = mapData.getCellX(next) - col;
+        final int dy = mapData.getCellY(next) - row;
+        if (dx < 0) {
+            direction = PlayerMotion.TYPE_LEFT;
+        } else if (dx > 0) {
+            direction = PlayerMotion.TYPE_RIGHT;
+        } else if (dy < 0) {
+            direction = PlayerMotion.TYPE_UP;
+        } else {
+            direction = PlayerMotion.TYPE_DOWN;
+        }
+        return direction;
+    }
+
+    /**
+     * セル番号 next のマスが、マス(col, row) の上下左右の隣にある通れるマスなら true を返す。
+     */
+    private boolean isNextStep(int col, int row, int next) {
+        final int distance = Math.abs(mapData.getCellX(next) - col) + Math.abs(mapData.getCellY(next) - row);
+        return distance == 1 && mapData.isMovableAt(next);
+    }
+}
@@ -1,61 +1,191 @@
-import javafx.scene.canvas.GraphicsContext;
-
-import java.util.LinkedList;
-import java.util.List;
-import java.util.ListIterator;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
+/**
+ * マップ上の未爆発のボムを管理し、カウントダウンと爆発 (誘爆を含む) の処理を行うクラス。
+ * JavaFX に依存しない。ボムと爆風の描画は {@link BombView} が行う。
+ */
 public class BombExecutor {
-    private final List<AbstractBomb> bombList;
-    private final DrawableExecutor explosionAnimExecutor;
-    private final CellDrawnPositionResolver positionResolver;
+    // 未爆発のボム。 bombs[0, bombCount) が有効で、順序は保証しない。
+    private AbstractBomb[] bombs;
+    private int bombCount = 0;
+
+    // セル番号 → そのマスにある未爆発のボム (無ければ null)
+    private final AbstractBomb[] bombAtCell;
+
+    // ボムのクラス → そのクラスの未爆発のボムの個数 (要素数1の配列)
+    private final Map<Class<? extends AbstractBomb>, int[]> bombCountByClass;
+
+    // 誘爆の処理で使う作業領域。
+    // frontier は今の波で爆発するボム、 nextFrontier は次の波で爆発する (誘爆する) ボム。
+    private AbstractBomb[] frontier;
+    private AbstractBomb[] nextFrontier;
+    private int[] blastCells = new int[16];
+    private int[] waveTouchedCells = new int[64];
+    private final BitSet waveTouchedCellBits = new BitSet();
 
-    public BombExecutor(CellDrawnPositionResolver positionResolver) {
-        this.bombList = new LinkedList<>();
-        this.explosionAnimExecutor = new DrawableExecutor();
-        this.positionResolver = positionResolver;
+    private final int mapWidth;
+
+    /**
+     * @param mapWidth  マップの列数。ボムの位置をセル番号に変換するのに使う
+     * @param mapHeight マップの行数
+     */
+    public BombExecutor(int mapWidth, int mapHeight) {
+        this.bombs = new AbstractBomb[16];
+        this.frontier = new AbstractBomb[16];
+        this.nextFrontier = new AbstractBomb[16];
+        this.bombAtCell = new AbstractBomb[mapWidth * mapHeight];
+        this.bombCountByClass = new IdentityHashMap<>();
+        this.mapWidth = mapWidth;
     }
 
-    // ボムを登録してカウントダウンを開始する。
-    public void registerAndStartCountDown(AbstractBomb bomb) {
-        this.bombList.add(bomb);
-        bomb.startCountDown();
+    // ボムを登録する。カウントダウンは次の update() から進む。
+    public void register(AbstractBomb bomb) {
+        if (bombCount == bombs.length) {
+            bombs = Arrays.copyOf(bombs, bombs.length * 2);
+            frontier = new AbstractBomb[bombs.length];
+            nextFrontier = new AbstractBomb[bombs.length];
+        }
+        bombs[bombCount++] = bomb;
+        bombAtCell[toCellIndex(bomb.col, bomb.row)] = bomb;
+        bombCountByClass.computeIfAbsent(bomb.getClass(), clazz -> new int[1])[0]++;
     }
 
     // マップ上に存在する未爆発ボムのうち、そのボムインスタンスのクラスが引数 clazz と等しいボムの個数を返す。
     public int countBombByClass(Class<? extends AbstractBomb> clazz) {
-        return (int) this.bombList.stream()
-                .filter(b -> b.getClass() == clazz)
-                .count();
+        final int[] count = this.bombCountByClass.get(clazz);
+        return (count == null) ? 0 : count[0];
     }
 
     // マップ上に存在する、全ての未爆発のボムの個数を返す。
     public int countBomb() {
-        return this.bombList.size();
+        return this.bombCount;
+    }
+
+    /**
+     * i 番目の未爆発のボムを返す (0 <= i < countBomb())。順序は保証しない。
+     */
+    public AbstractBomb getBomb(int i) {
+        return this.bombs[i];
     }
 
     // 指定マスにボムが存在するなら true を返す。
     public boolean isExistsBombAt(int col, int row) {
-        return this.bombList.stream().anyMatch(bomb -> bomb.col == col && bomb.row == row);
+        return this.bombAtCell[toCellIndex(col, row)] != null;
     }
 
-    // ボムのリストを更新し、必要に応じて爆破処理を実行する。
-    public void update(MapData mapData) {
-        ListIterator<AbstractBomb> itr = bombList.listIterator();
-        while (itr.hasNext()) {
-            final AbstractBomb bomb = itr.next();
+    /**
+     * 全てのボムのカウントダウンを 1 tick 進め、必要に応じて爆破処理を実行する。
+     * 爆発の波と、爆風が届いたマスは listener に通知する。
+     * <p>
+     * 爆風が他の未爆発のボムに届いた場合はそのボムも誘爆させる。
+     * 誘爆は再帰を使わずに「波」単位で処理する。
+     * カウントダウンを終えたボムが最初の波で、ある波の爆風が届いたボムが次の波になる。
+     * 同じ波の中では、複数のボムの爆風が重なっても各セルは一度しか処理しない。
+     * 連鎖がどれだけ続いても、この呼び出しの中で全て爆発し終える。
+     */
+    public void update(MapData mapData, MazeSimulationListener listener) {
+        // カウントダウンを終えたボムを最初の波とする
+        int frontierSize = 0;
+        for (int i = bombCount - 1; i >= 0; --i) {
+            final AbstractBomb bomb = bombs[i];
+            bomb.tick();
             if (bomb.hasExploded()) {
-                bomb.explode(mapData, this.positionResolver, this.explosionAnimExecutor);
-                bomb.playExplosionSE();
-                itr.remove();
+                frontier[frontierSize++] = bomb;
+                this.unregister(bomb);
+                this.removeAt(i);
+            }
+        }
+
+        boolean hasChainedBomb = false;
+        while (frontierSize > 0) {
+            listener.onBombWaveExploded(frontier[0]);
+
+            final int nextFrontierSize = this.explodeWave(mapData, frontierSize, listener);
+            hasChainedBomb |= nextFrontierSize > 0;
+
+            final AbstractBomb[] tmp = frontier;
+            frontier = nextFrontier;
+            nextFrontier = tmp;
+            Arrays.fill(nextFrontier, 0, frontierSize, null);
+            frontierSize = nextFrontierSize;
+        }
+
+        // 誘爆したボムをリストから取り除く
+        if (hasChainedBomb) {
+            for (int i = bombCount - 1; i >= 0; --i) {
+                if (bombs[i].hasExploded()) {
+                    this.removeAt(i);
+                }
             }
         }
     }
 
-    // ボムおよび爆発アニメーションを描画する。
-    public void draw(GraphicsContext gc) {
-        for (final var bomb : this.bombList) {
-            bomb.draw(gc, this.positionResolver);
+    /**
+     * frontier[0, frontierSize) のボムを爆発させる。
+     * 爆風が届いた未爆発のボムを nextFrontier に詰めて、その個数を返す。
+     */
+    private int explodeWave(MapData mapData, int frontierSize, MazeSimulationListener listener) {
+        int nextFrontierSize = 0;
+        int touchedCount = 0;
+
+        for (int f = 0; f < frontierSize; ++f) {
+            final AbstractBomb bomb = frontier[f];
+            if (blastCells.length < bomb.getMaxBlastCellCount()) {
+                blastCells = new int[bomb.getMaxBlastCellCount()];
+            }
+
+            final int n = bomb.collectBlastCells(mapData, blastCells);
+            for (int k = 0; k < n; ++k) {
+                final int cell = blastCells[k];
+                if (waveTouchedCellBits.get(cell)) continue;
+
+                waveTouchedCellBits.set(cell);
+                if (touchedCount == waveTouchedCells.length) {
+                    waveTouchedCells = Arrays.copyOf(waveTouchedCells, waveTouchedCells.length * 2);
+                }
+                waveTouchedCells[touchedCount++] = cell;
+
+                final int x = mapData.getCellX(cell);
+                final int y = mapData.getCellY(cell);
+                bomb.blastCell(mapData, x, y);
+                listener.onCellBlasted(x, y);
+
+                final AbstractBomb chainedBomb = bombAtCell[cell];
+                if (chainedBomb != null) {
+                    this.unregister(chainedBomb);
+                    chainedBomb.detonate();
+                    nextFrontier[nextFrontierSize++] = chainedBomb;
+                }
+            }
         }
-        explosionAnimExecutor.draw(gc);
+
+        for (int k = 0; k < touchedCount; ++k) {
+            waveTouchedCellBits.clear(waveTouchedCells[k]);
+        }
+        return nextFrontierSize;
+    }
+
+    /**
+     * ボムを、セル番号からの索引とクラス毎の個数から取り除く。
+     */
+    private void unregister(AbstractBomb bomb) {
+        bombAtCell[toCellIndex(bomb.col, bomb.row)] = null;
+        bombCountByClass.get(bomb.getClass())[0]--;
+    }
+
+    /**
+     * bombs[i] を、末尾の要素と入れ替えることで O(1) で削除する。
+     */
+    private void removeAt(int i) {
+        bombs[i] = bombs[bombCount - 1];
+        bombs[bombCount - 1] = null;
+        --bombCount;
+    }
+
+    private int toCellIndex(int col, int row) {
+        return row * mapWidth + col;
     }
 }
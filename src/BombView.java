@@ -0,0 +1,74 @@
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.media.AudioClip;
+
+/**
+ * {@link BombExecutor} が管理するボムと、その爆風のアニメーションを描画するクラス。
+ * 爆発の効果音もここで鳴らす。
+ */
+public class BombView {
+    private static final SpriteSheet normalBombSpriteSheet = new SpriteSheet(Assets.image("png/black-bomb-spritesheet.png"), 4, 1);
+    private static final SpriteSheet goldBombSpriteSheet = new SpriteSheet(Assets.image("png/gold-bomb-spritesheet.png"), 4, 1);
+    private static final AudioClip explosionSE = Assets.audioClip("sound/explosion.wav");
+
+    private final BombExecutor bombExecutor;
+    private final CellDrawnPositionResolver positionResolver;
+    private final DrawableExecutor explosionAnimExecutor;
+
+    /**
+     * @param bombExecutor     描画するボムを管理するもの
+     * @param positionResolver セルの描画位置を求めるもの
+     */
+    public BombView(BombExecutor bombExecutor, CellDrawnPositionResolver positionResolver) {
+        this.bombExecutor = bombExecutor;
+        this.positionResolver = positionResolver;
+        this.explosionAnimExecutor = new DrawableExecutor();
+    }
+
+    /**
+     * 爆発の波が起きたときに呼び出す。爆発の効果音を鳴らす。
+     */
+    public void onBombWaveExploded(AbstractBomb firstBomb) {
+        explosionSE.play();
+    }
+
+    /**
+     * 爆風がマス(col, row) に届いたときに呼び出す。そのマスに爆風のアニメーションを表示する。
+     */
+    public void onCellBlasted(int col, int row) {
+        explosionAnimExecutor.registerAndPlay(ExplosionAnimation.obtain(
+                positionResolver.getCellDrawnX(col),
+                positionResolver.getCellDrawnY(row),
+                positionResolver.getCellSize()));
+    }
+
+    /**
+     * 再生中の爆風のアニメーションを止めてプールへ返す。もうこの BombView を使わなくなったときに呼び出す。
+     */
+    public void dispose() {
+        explosionAnimExecutor.clear();
+    }
+
+    /**
+     * 爆風のアニメーションの個数を返す。
+     */
+    public int countExplosionAnimation() {
+        return explosionAnimExecutor.getCount();
+    }
+
+    // ボムおよび爆発アニメーションを描画する。
+    public void draw(GraphicsContext gc) {
+        final int s = positionResolver.getCellSize();
+        for (int i = 0; i < bombExecutor.countBomb(); ++i) {
+            final AbstractBomb bomb = bombExecutor.getBomb(i);
+            final SpriteSheet spriteSheet = (bomb instanceof GoldBomb) ? goldBombSpriteSheet : normalBombSpriteSheet;
+
+            // 導火線の残り秒数 (切り上げ) のコマを表示する。最後のコマは残り 1 秒、最初のコマは残り 3 秒。
+            final int remainingSeconds = (bomb.getRemainingFuseTicks() + MazeSimulation.TICKS_PER_SECOND - 1) / MazeSimulation.TICKS_PER_SECOND;
+            final int frameIndex = Math.max(0, Math.min(spriteSheet.getFrameCount() - 1, remainingSeconds));
+
+            spriteSheet.drawFrame(gc, frameIndex,
+                    positionResolver.getCellDrawnX(bomb.col), positionResolver.getCellDrawnY(bomb.row), s, s);
+        }
+        explosionAnimExecutor.draw(gc);
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * マップのうち画面に映す範囲 (ビューポート) を表すクラス。
+ * <p>
+ * スクロール量 (scrollX, scrollY) は、ビューポートの左上がマップの描画座標でどれだけずれているかを表す。
+ * マップの描画座標 (x, y) は、画面上では (x - scrollX, y - scrollY) に描画される。
+ */
+public class Camera {
+    private final int viewportWidth;
+    private final int viewportHeight;
+    private double scrollX = 0;
+    private double scrollY = 0;
+
+    /**
+     * 横 viewportWidth ピクセル、縦 viewportHeight ピクセルのビューポートを持つカメラを生成する。
+     *
+     * @param viewportWidth  ビューポートの横幅
+     * @param viewportHeight ビューポートの高さ
+     */
+    public Camera(int viewportWidth, int viewportHeight) {
+        this.viewportWidth = viewportWidth;
+        this.viewportHeight = viewportHeight;
+    }
+
+    /**
+     * 描画座標 (targetX, targetY) がビューポートの中心に来るようにスクロールする。
+     * ただし、ビューポートがマップの外側を映さないように、スクロール量は
+     * [0, マップの大きさ - ビューポートの大きさ] の範囲に収める。
+     * 画像がぼやけないように、スクロール量は整数ピクセルに丸める。
+     *
+     * @param targetX   中心に映したい点の x 座標 (マップの左端を 0 とした描画座標)
+     * @param targetY   中心に映したい点の y 座標 (マップの上端を 0 とした描画座標)
+     * @param mapWidth  マップの横幅 (ピクセル)
+     * @param mapHeight マップの高さ (ピクセル)
+     */
+    public void follow(double targetX, double targetY, int mapWidth, int mapHeight) {
+        this.scrollX = Math.round(clamp(targetX - viewportWidth / 2.0, 0, Math.max(0, mapWidth - viewportWidth)));
+        this.scrollY = Math.round(clamp(targetY - viewportHeight / 2.0, 0, Math.max(0, mapHeight - viewportHeight)));
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    public double getScrollX() {
+        return scrollX;
+    }
+
+    public double getScrollY() {
+        return scrollY;
+    }
+
+    public int getViewportWidth() {
+        return viewportWidth;
+    }
+
+    public int getViewportHeight() {
+        return viewportHeight;
+    }
+}
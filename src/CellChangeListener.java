@@ -0,0 +1,14 @@
+/**
+ * {@link MapData} のセルの種類が変化したときに通知を受け取るインターフェース。
+ */
+@FunctionalInterface
+public interface CellChangeListener {
+    /**
+     * セル(x, y) の種類が cellType に変化した直後に呼び出される。
+     *
+     * @param x        変化したセルの列番号
+     * @param y        変化したセルの行番号
+     * @param cellType 変化後のセルの種類
+     */
+    void onCellChanged(int x, int y, CellType cellType);
+}
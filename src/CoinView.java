@@ -1,5 +1,4 @@
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
 
 public class CoinView {
     private static final String imageFilePath = "png/full-coins.png";
@@ -7,8 +6,7 @@ public class CoinView {
     private final ImageFrameAnimation coinRotateAnimation;
 
     public CoinView() {
-        Image img = new Image(imageFilePath);
-        SpriteSheet coinSpriteSheet = new SpriteSheet(img, 8, 1);
+        SpriteSheet coinSpriteSheet = new SpriteSheet(Assets.image(imageFilePath), 8, 1);
         this.coinRotateAnimation = new ImageFrameAnimation(coinSpriteSheet, 100, ImageFrameAnimation.Direction.NORMAL);
         this.coinRotateAnimation.start();
     }
@@ -16,4 +14,11 @@ public class CoinView {
     public void draw(GraphicsContext gc, double x, double y, double w, double h) {
         this.coinRotateAnimation.draw(gc, x, y, w, h);
     }
+
+    /**
+     * コインの回転アニメーションを止める。もう描画しなくなったときに呼び出す。
+     */
+    public void dispose() {
+        this.coinRotateAnimation.stop();
+    }
 }
@@ -0,0 +1,201 @@
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * グリッド上の全てのマスについて、根のマスからの最短距離 (歩数) を保持するクラス。
+ * <p>
+ * セルは座標ではなくセル番号 (y * ncol + x) で扱う。
+ * 通れないマスや根から到達できないマスの距離は {@link #UNREACHABLE} である。
+ * <p>
+ * 通れなかったマスが通れるようになった場合は {@link #onCellOpened} を呼ぶことで、
+ * 全体を作り直さずに、距離が縮むマスだけを差分更新できる。
+ * <p>
+ * {@link #rebuild(int, IntPredicate, int)} で距離の上限を決めると、上限より遠いマスは到達できないものとして扱い、
+ * 計算量がマップの大きさによらず上限の二乗に比例するようになる。
+ */
+public class DistanceField {
+    public static final int UNREACHABLE = -1;
+
+    private final int ncol;
+    private final int nrow;
+    private final int[] dist;
+    private final int[] queue;
+    private int root = -1;
+
+    // 距離の上限。上限を決めずに計算したなら Integer.MAX_VALUE
+    private int maxDistance = Integer.MAX_VALUE;
+
+    /**
+     * 列数 ncol, 行数 nrow のグリッド用の距離場を生成する。
+     * {@link #rebuild} を呼ぶまでは、全てのマスの距離は {@link #UNREACHABLE} である。
+     *
+     * @param ncol グリッドの列数
+     * @param nrow グリッドの行数
+     */
+    public DistanceField(int ncol, int nrow) {
+        this.ncol = ncol;
+        this.nrow = nrow;
+        this.dist = new int[ncol * nrow];
+        this.queue = new int[ncol * nrow];
+        Arrays.fill(this.dist, UNREACHABLE);
+    }
+
+    public int getColumnCount() {
+        return ncol;
+    }
+
+    public int getRowCount() {
+        return nrow;
+    }
+
+    /**
+     * 根のセル番号を返す。まだ一度も {@link #rebuild} していなければ -1 を返す。
+     */
+    public int getRoot() {
+        return root;
+    }
+
+    /**
+     * セル番号 cell のマスの、根からの距離を返す。
+     *
+     * @param cell セル番号
+     * @return 根からの距離。到達できないなら {@link #UNREACHABLE}
+     */
+    public int getDistance(int cell) {
+        return dist[cell];
+    }
+
+    /**
+     * 根を root として、全てのマスの距離を幅優先探索で計算し直す。
+     *
+     * @param root     根のセル番号
+     * @param passable 指定したセル番号のマスが通れるなら true を返す述語関数
+     */
+    public void rebuild(int root, IntPredicate passable) {
+        this.rebuild(root, passable, Integer.MAX_VALUE);
+    }
+
+    /**
+     * 根を root として、根から maxDistance 歩以内のマスの距離を幅優先探索で計算し直す。
+     * それより遠いマスは {@link #UNREACHABLE} になる。以降の {@link #onCellOpened} も、この上限の範囲だけを更新する。
+     * <p>
+     * 前回も上限を決めて計算していれば、前回の根の周りの範囲だけを消すので、計算量はマップの大きさによらない。
+     *
+     * @param root        根のセル番号
+     * @param passable    指定したセル番号のマスが通れるなら true を返す述語関数
+     * @param maxDistance 距離の上限 (歩数)
+     */
+    public void rebuild(int root, IntPredicate passable, int maxDistance) {
+        this.clear();
+        this.root = root;
+        this.maxDistance = maxDistance;
+
+        dist[root] = 0;
+        queue[0] = root;
+        this.propagate(1, passable);
+    }
+
+    /**
+     * 全てのマスの距離を UNREACHABLE にする。上限を決めて計算していた場合は、根から上限の距離までの正方形の範囲だけを消す。
+     */
+    private void clear() {
+        if (root < 0 || maxDistance == Integer.MAX_VALUE || (2L * maxDistance + 1) * (2L * maxDistance + 1) >= dist.length) {
+            Arrays.fill(dist, UNREACHABLE);
+            return;
+        }
+
+        // 上限の範囲のマスは、根からのマンハッタン距離が maxDistance 以下なので、この正方形に収まる
+        final int rootX = root % ncol;
+        final int rootY = root / ncol;
+        final int minX = Math.max(0, rootX - maxDistance);
+        final int maxX = Math.min(ncol - 1, rootX + maxDistance);
+        final int minY = Math.max(0, rootY - maxDistance);
+        final int maxY = Math.min(nrow - 1, rootY + maxDistance);
+        for (int y = minY; y <= maxY; ++y) {
+            Arrays.fill(dist, y * ncol + minX, y * ncol + maxX + 1, UNREACHABLE);
+        }
+    }
+
+    /**
+     * 通れなかったマス cell が通れるようになったときに呼び出す。
+     * cell と、 cell を経由することで根に近くなるマスの距離だけを更新する。
+     * <p>
+     * マスが通れなくなった場合は距離が伸びうるので、この方法では更新できない。 {@link #rebuild} すること。
+     *
+     * @param cell     通れるようになったマスのセル番号
+     * @param passable 指定したセル番号のマスが通れるなら true を返す述語関数
+     */
+    public void onCellOpened(int cell, IntPredicate passable) {
+        if (root < 0) return;
+
+        int best = (cell == root) ? 0 : UNREACHABLE;
+        final int x = cell % ncol;
+        if (x + 1 < ncol) best = minReachable(best, dist[cell + 1]);
+        if (cell + ncol < dist.length) best = minReachable(best, dist[cell + ncol]);
+        if (cell - ncol >= 0) best = minReachable(best, dist[cell - ncol]);
+        if (x - 1 >= 0) best = minReachable(best, dist[cell - 1]);
+
+        // 隣に根から到達できるマスが無ければ、このマスも到達できないままである
+        if (best == UNREACHABLE || best > maxDistance) return;
+        if (dist[cell] != UNREACHABLE && dist[cell] <= best) return;
+
+        dist[cell] = best;
+        queue[0] = cell;
+        this.propagate(1, passable);
+    }
+
+    /**
+     * 隣のマスの距離 neighborDist を経由したときの距離と best のうち、小さい方を返す。
+     */
+    private static int minReachable(int best, int neighborDist) {
+        if (neighborDist == UNREACHABLE) return best;
+        if (best == UNREACHABLE) return neighborDist + 1;
+        return Math.min(best, neighborDist + 1);
+    }
+
+    /**
+     * queue[0, tail) のマスを起点に、距離が縮む隣のマスへ距離を伝播させる。
+     * 起点のマスの距離は全て等しくなければならない。
+     */
+    private void propagate(int tail, IntPredicate passable) {
+        int head = 0;
+        while (head < tail) {
+            final int cur = queue[head++];
+            final int x = cur % ncol;
+            final int nextDist = dist[cur] + 1;
+
+            if (x + 1 < ncol && this.relax(cur + 1, nextDist, passable)) queue[tail++] = cur + 1;
+            if (cur + ncol < dist.length && this.relax(cur + ncol, nextDist, passable)) queue[tail++] = cur + ncol;
+            if (cur - ncol >= 0 && this.relax(cur - ncol, nextDist, passable)) queue[tail++] = cur - ncol;
+            if (x - 1 >= 0 && this.relax(cur - 1, nextDist, passable)) queue[tail++] = cur - 1;
+        }
+    }
+
+    private boolean relax(int cell, int d, IntPredicate passable) {
+        if (d > maxDistance) return false;
+        if (dist[cell] != UNREACHABLE && dist[cell] <= d) return false;
+        if (!passable.test(cell)) return false;
+        dist[cell] = d;
+        return true;
+    }
+
+    /**
+     * 根から到達できるマス cell の隣のマスのうち、根に一歩近いマスのセル番号を返す。
+     * 候補が複数ある場合は 右, 下, 上, 左 の順で最初に見つかったマスを返す。
+     * cell が根そのもの、または根から到達できないマスなら -1 を返す。
+     *
+     * @param cell セル番号
+     * @return 根に一歩近い隣のマスのセル番号
+     */
+    public int nextCellTowardRoot(int cell) {
+        final int d = dist[cell] - 1;
+        if (d < 0) return -1;
+
+        final int x = cell % ncol;
+        if (x + 1 < ncol && dist[cell + 1] == d) return cell + 1;
+        if (cell + ncol < dist.length && dist[cell + ncol] == d) return cell + ncol;
+        if (cell - ncol >= 0 && dist[cell - ncol] == d) return cell - ncol;
+        if (x - 1 >= 0 && dist[cell - 1] == d) return cell - 1;
+        return -1;
+    }
+}
@@ -7,7 +7,7 @@ public class DoorKeyView {
     private final Image image;
 
     public DoorKeyView() {
-        this.image = new Image(imageFilePath);
+        this.image = Assets.image(imageFilePath);
     }
 
     public void draw(GraphicsContext gc, double x, double y, double w, double h) {
@@ -1,25 +1,62 @@
 import javafx.scene.canvas.GraphicsContext;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
 
+/**
+ * 登録されたエフェクトを再生が終わるまで描画するクラス。
+ * <p>
+ * エフェクトは配列で保持し、再生が終わったものは末尾の要素との入れ替えで O(1) で取り除く。
+ * そのため描画順は登録順とは限らない。
+ * 取り除いたエフェクトは {@link DrawableTransition#release()} でプールへ返却される。
+ */
 public class DrawableExecutor {
-    private final List<DrawableTransition> drawableTransitionList;
+    private DrawableTransition[] drawableTransitions = new DrawableTransition[64];
+    private int count = 0;
 
     public DrawableExecutor() {
-        this.drawableTransitionList = new LinkedList<>();
     }
 
     public void registerAndPlay(DrawableTransition drawableTransition) {
-        this.drawableTransitionList.add(drawableTransition);
+        if (count == drawableTransitions.length) {
+            drawableTransitions = Arrays.copyOf(drawableTransitions, drawableTransitions.length * 2);
+        }
+        drawableTransitions[count++] = drawableTransition;
         drawableTransition.play();
     }
 
     public void draw(GraphicsContext gc) {
-        this.drawableTransitionList.removeIf(DrawableTransition::hasFinished);
+        for (int i = count - 1; i >= 0; --i) {
+            if (drawableTransitions[i].hasFinished()) {
+                this.removeAt(i);
+            }
+        }
+
+        for (int i = 0; i < count; ++i) {
+            drawableTransitions[i].draw(gc);
+        }
+    }
 
-        for (final var e : this.drawableTransitionList) {
-            e.draw(gc);
+    /**
+     * 再生中のものも含めて、全てのエフェクトを取り除く。
+     */
+    public void clear() {
+        for (int i = count - 1; i >= 0; --i) {
+            this.removeAt(i);
         }
     }
+
+    /**
+     * 登録されているエフェクトの個数を返す。
+     */
+    public int getCount() {
+        return count;
+    }
+
+    private void removeAt(int i) {
+        final DrawableTransition removed = drawableTransitions[i];
+        drawableTransitions[i] = drawableTransitions[count - 1];
+        drawableTransitions[count - 1] = null;
+        --count;
+        removed.release();
+    }
 }
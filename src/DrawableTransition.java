@@ -1,4 +1,3 @@
-import javafx.animation.Transition;
 import javafx.scene.canvas.GraphicsContext;
 
 public interface DrawableTransition {
@@ -8,4 +7,11 @@ public interface DrawableTransition {
     boolean hasFinished();
 
     void play();
+
+    /**
+     * {@link DrawableExecutor} がこのエフェクトを手放すときに呼び出される。
+     * プールから取り出したエフェクトは、ここでプールに返却する。
+     */
+    default void release() {
+    }
 }
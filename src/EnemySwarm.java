@@ -0,0 +1,285 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Random;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+
+/**
+ * プレイヤーを追いかける敵の群れ。JavaFX に依存しない。
+ * <p>
+ * 敵の一体一体はオブジェクトにせず、位置や状態を敵の番号を添字とするプリミティブ型の配列で持つ。
+ * 敵は [0, enemyCount) が有効で、倒された敵は末尾の敵と入れ替えて取り除くので、敵の番号は変わりうる。
+ * <p>
+ * 全ての敵は、プレイヤーのマスを根とする一つの距離場 (フローフィールド) を共有し、
+ * 今いるマスから距離場で一歩根に近いマスへ進む。距離場はプレイヤーのマスが変わったときに一度だけ計算し直すので、
+ * 敵一体あたりの 1 tick の処理は敵の数やマップの大きさによらず一定である。
+ * 距離場はプレイヤーから chaseRadius 歩以内だけを計算するので、計算し直す重さもマップの大きさによらない。
+ * それより遠くにいる敵は、プレイヤーが近づくまで止まっている。
+ * <p>
+ * セルは座標ではなくセル番号 (y * width + x) で扱う。
+ */
+public class EnemySwarm {
+    /**
+     * 進める隣のマスが無く、止まっている状態。
+     */
+    public static final byte STATE_IDLE = 0;
+
+    /**
+     * 隣のマスへ移動している途中の状態。
+     */
+    public static final byte STATE_MOVING = 1;
+
+    private final IntPredicate passable;
+    private final int moveTicks;
+    private final int chaseRadius;
+
+    // 敵毎の移動元・移動先のセル番号、移動を始めてからの tick 数、状態 (STATE_*)
+    private int[] fromCells = new int[16];
+    private int[] toCells = new int[16];
+    private int[] elapsedTicks = new int[16];
+    private byte[] states = new byte[16];
+    private int enemyCount = 0;
+
+    // プレイヤーのマスを根とする距離場。敵はこれを下って進む。
+    private final DistanceField flowField;
+    private int targetCell = -1;
+    private boolean isFlowFieldDirty = true;
+
+    // この tick で爆風が届いたマス
+    private final BitSet blastedCellBits = new BitSet();
+    private int[] blastedCells = new int[64];
+    private int blastedCellCount = 0;
+
+    /**
+     * @param mapData     マップ
+     * @param moveTicks   敵が 1 マス移動するのにかける tick 数
+     * @param chaseRadius 敵が追いかけ始める、追いかけるマスからの歩数
+     */
+    public EnemySwarm(MapData mapData, int moveTicks, int chaseRadius) {
+        this.passable = mapData::isMovableAt;
+        this.moveTicks = Math.max(1, moveTicks);
+        this.chaseRadius = chaseRadius;
+        this.flowField = new DistanceField(mapData.getWidth(), mapData.getHeight());
+    }
+
+    /**
+     * 敵が追いかけるマスをセル番号 cell のマスにする。距離場は次の {@link #tick()} で一度だけ計算し直す。
+     */
+    public void setTarget(int cell) {
+        if (cell == targetCell) return;
+        this.targetCell = cell;
+        this.isFlowFieldDirty = true;
+    }
+
+    /**
+     * セル番号 cell のマスが通れるかどうかが変化したときに呼び出す。
+     * 通れるようになった場合は距離場を差分更新し、通れなくなった場合は次の {@link #tick()} で計算し直す。
+     */
+    public void onCellChanged(int cell) {
+        if (isFlowFieldDirty) return;
+        if (passable.test(cell)) {
+            flowField.onCellOpened(cell, passable);
+        } else {
+            isFlowFieldDirty = true;
+        }
+    }
+
+    /**
+     * セル番号 cell のマスに敵を一体出す。
+     *
+     * @return 出した敵の番号
+     */
+    public int spawn(int cell) {
+        if (enemyCount == fromCells.length) {
+            final int n = enemyCount * 2;
+            fromCells = Arrays.copyOf(fromCells, n);
+            toCells = Arrays.copyOf(toCells, n);
+            elapsedTicks = Arrays.copyOf(elapsedTicks, n);
+            states = Arrays.copyOf(states, n);
+        }
+        fromCells[enemyCount] = cell;
+        toCells[enemyCount] = cell;
+        elapsedTicks[enemyCount] = 0;
+        states[enemyCount] = STATE_IDLE;
+        return enemyCount++;
+    }
+
+    /**
+     * 追いかけるマスから歩いて minDistance 歩以上、追いかけ始める歩数以下だけ離れたマスのうち、 random で選んだ count 個のマスに敵を出す。
+     * 候補のマスが足りなければ、候補の数だけ出す。 {@link #setTarget} で追いかけるマスを決めてから呼び出すこと。
+     *
+     * @return 出した敵の数
+     */
+    public int spawnAwayFromTarget(int count, int minDistance, Random random) {
+        this.refreshFlowField();
+
+        // 距離場が計算されているのは追いかけるマスの周りの正方形の中だけなので、その中から候補を集める
+        final int ncol = flowField.getColumnCount();
+        final int nrow = flowField.getRowCount();
+        final int targetCol = targetCell % ncol;
+        final int targetRow = targetCell / ncol;
+        int[] candidates = new int[64];
+        int candidateCount = 0;
+        for (int row = Math.max(0, targetRow - chaseRadius); row <= Math.min(nrow - 1, targetRow + chaseRadius); ++row) {
+            for (int col = Math.max(0, targetCol - chaseRadius); col <= Math.min(ncol - 1, targetCol + chaseRadius); ++col) {
+                final int cell = row * ncol + col;
+                if (flowField.getDistance(cell) < minDistance) continue;
+                if (candidateCount == candidates.length) {
+                    candidates = Arrays.copyOf(candidates, candidateCount * 2);
+                }
+                candidates[candidateCount++] = cell;
+            }
+        }
+
+        // 候補のマスから、部分的なシャッフルで重複しないように count 個選ぶ
+
+        final int n = Math.min(count, candidateCount);
+        for (int i = 0; i < n; ++i) {
+            final int k = i + random.nextInt(candidateCount - i);
+            final int cell = candidates[k];
+            candidates[k] = candidates[i];
+            this.spawn(cell);
+        }
+        return n;
+    }
+
+    /**
+     * 全ての敵を 1 tick 進める。
+     * 移動を終えた敵と止まっている敵は、距離場で一歩追いかけるマスに近い隣のマスへ移動し始める。
+     */
+    public void tick() {
+        this.refreshFlowField();
+
+        for (int i = 0; i < enemyCount; ++i) {
+            if (states[i] == STATE_MOVING && ++elapsedTicks[i] >= moveTicks) {
+                fromCells[i] = toCells[i];
+                states[i] = STATE_IDLE;
+            }
+            if (states[i] == STATE_IDLE) {
+                final int next = flowField.nextCellTowardRoot(fromCells[i]);
+                if (next >= 0) {
+                    toCells[i] = next;
+                    elapsedTicks[i] = 0;
+                    states[i] = STATE_MOVING;
+                }
+            }
+        }
+    }
+
+    private void refreshFlowField() {
+        if (!isFlowFieldDirty || targetCell < 0) return;
+        flowField.rebuild(targetCell, passable, chaseRadius);
+        isFlowFieldDirty = false;
+    }
+
+    /**
+     * セル番号 cell のマスに爆風が届いたことを記録する。 {@link #removeBlastedEnemies} で、記録したマスにいる敵をまとめて倒す。
+     */
+    public void markBlasted(int cell) {
+        if (blastedCellBits.get(cell)) return;
+        blastedCellBits.set(cell);
+        if (blastedCellCount == blastedCells.length) {
+            blastedCells = Arrays.copyOf(blastedCells, blastedCellCount * 2);
+        }
+        blastedCells[blastedCellCount++] = cell;
+    }
+
+    /**
+     * {@link #markBlasted} で記録したマスにいる敵を全て取り除き、記録を消す。
+     *
+     * @param onRemoved 取り除いた敵毎に、その敵がいたマスのセル番号を受け取る処理
+     * @return 取り除いた敵の数
+     */
+    public int removeBlastedEnemies(IntConsumer onRemoved) {
+        if (blastedCellCount == 0) return 0;
+
+        int removedCount = 0;
+        for (int i = enemyCount - 1; i >= 0; --i) {
+            final int cell = this.getCell(i);
+            if (blastedCellBits.get(cell)) {
+                this.remove(i);
+                onRemoved.accept(cell);
+                ++removedCount;
+            }
+        }
+
+        for (int k = 0; k < blastedCellCount; ++k) {
+            blastedCellBits.clear(blastedCells[k]);
+        }
+        blastedCellCount = 0;
+        return removedCount;
+    }
+
+    /**
+     * セル番号 cell のマスにいる敵を全て取り除く。
+     *
+     * @return 取り除いた敵の数
+     */
+    public int removeEnemiesAt(int cell) {
+        int removedCount = 0;
+        for (int i = enemyCount - 1; i >= 0; --i) {
+            if (this.getCell(i) == cell) {
+                this.remove(i);
+                ++removedCount;
+            }
+        }
+        return removedCount;
+    }
+
+    /**
+     * i 番目の敵を、末尾の敵と入れ替えて取り除く。
+     */
+    private void remove(int i) {
+        final int last = --enemyCount;
+        fromCells[i] = fromCells[last];
+        toCells[i] = toCells[last];
+        elapsedTicks[i] = elapsedTicks[last];
+        states[i] = states[last];
+    }
+
+    /**
+     * 全ての敵を取り除く。
+     */
+    public void clear() {
+        enemyCount = 0;
+    }
+
+    public int getEnemyCount() {
+        return enemyCount;
+    }
+
+    /**
+     * i 番目の敵がいるマスのセル番号を返す。移動の途中なら、進み具合が半分を超えた時点で移動先のマスになる。
+     */
+    public int getCell(int i) {
+        return (states[i] == STATE_MOVING && elapsedTicks[i] * 2 > moveTicks) ? toCells[i] : fromCells[i];
+    }
+
+    public int getFromCell(int i) {
+        return fromCells[i];
+    }
+
+    public int getToCell(int i) {
+        return toCells[i];
+    }
+
+    public byte getState(int i) {
+        return states[i];
+    }
+
+    /**
+     * i 番目の敵の移動の進み具合を [0.0, 1.0] で返す。
+     * 描画位置を補間できるよう、最後の tick から次の tick までの割合 alpha の分だけ進めた値を返す。
+     */
+    public double getProgress(int i, double alpha) {
+        if (states[i] != STATE_MOVING) return 1.0;
+        return Math.min(1.0, (elapsedTicks[i] + alpha) / moveTicks);
+    }
+
+    /**
+     * 敵が共有している、追いかけるマスを根とする距離場を返す。
+     */
+    public DistanceField getFlowField() {
+        return flowField;
+    }
+}
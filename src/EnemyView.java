@@ -0,0 +1,65 @@
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+import java.util.function.IntPredicate;
+
+/**
+ * {@link EnemySwarm} の敵を描画するクラス。
+ * 敵は画像を使わず、紫色の丸い体と白い目を図形で描く。ビューポートに映らない敵は描画しない。
+ */
+public class EnemyView {
+    private static final Color BODY_COLOR = Color.rgb(120, 40, 160);
+    private static final Color EYE_COLOR = Color.WHITE;
+
+    private final EnemySwarm enemySwarm;
+    private final MapView mapView;
+    private final int mapWidth;
+
+    /**
+     * @param enemySwarm 描画する敵の群れ
+     * @param mapView    セルの描画位置とビューポートに映る範囲を求めるもの
+     * @param mapWidth   マップの列数。セル番号を列番号・行番号に変換するのに使う
+     */
+    public EnemyView(EnemySwarm enemySwarm, MapView mapView, int mapWidth) {
+        this.enemySwarm = enemySwarm;
+        this.mapView = mapView;
+        this.mapWidth = mapWidth;
+    }
+
+    /**
+     * 敵を、移動元と移動先のマスの間を進み具合で補間した位置に描画する。
+     *
+     * @param alpha       最後の tick から次の tick までの経過の割合
+     * @param isCellShown 指定したセル番号のマスにいる敵を描画するなら true を返す述語関数 (暗闇で見えないマスを除くのに使う)
+     */
+    public void draw(GraphicsContext gc, double alpha, IntPredicate isCellShown) {
+        final int s = mapView.getCellSize();
+        final int minCol = mapView.getVisibleMinCol() - 1;
+        final int maxCol = mapView.getVisibleMaxCol();
+        final int minRow = mapView.getVisibleMinRow() - 1;
+        final int maxRow = mapView.getVisibleMaxRow();
+
+        for (int i = 0; i < enemySwarm.getEnemyCount(); ++i) {
+            final int fromCell = enemySwarm.getFromCell(i);
+            final int toCell = enemySwarm.getToCell(i);
+            final int fromCol = fromCell % mapWidth;
+            final int fromRow = fromCell / mapWidth;
+            if (fromCol < minCol || maxCol < fromCol || fromRow < minRow || maxRow < fromRow) continue;
+            if (!isCellShown.test(enemySwarm.getCell(i))) continue;
+
+            final double progress = enemySwarm.getProgress(i, alpha);
+            final double x = mapView.getCellDrawnX(fromCol) + (toCell % mapWidth - fromCol) * s * progress;
+            final double y = mapView.getCellDrawnY(fromRow) + (toCell / mapWidth - fromRow) * s * progress;
+            this.drawEnemy(gc, x, y, s);
+        }
+    }
+
+    private void drawEnemy(GraphicsContext gc, double x, double y, int s) {
+        gc.setFill(BODY_COLOR);
+        gc.fillOval(x + s * 0.1, y + s * 0.15, s * 0.8, s * 0.8);
+
+        gc.setFill(EYE_COLOR);
+        gc.fillOval(x + s * 0.28, y + s * 0.35, s * 0.16, s * 0.2);
+        gc.fillOval(x + s * 0.56, y + s * 0.35, s * 0.16, s * 0.2);
+    }
+}
@@ -1,23 +1,36 @@
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
 
+/**
+ * 爆風のアニメーション。
+ * 爆発のたびにセルの数だけ使われるので、 {@link #obtain} でプールから取り出し、
+ * 再生が終わったら {@link DrawableExecutor} が {@link #release()} でプールへ返却する。
+ */
 public class ExplosionAnimation implements DrawableTransition {
-    private static final SpriteSheet spriteSheet = new SpriteSheet(new Image("png/explosion-animation.png"), 6, 1);
+    private static final SpriteSheet spriteSheet = new SpriteSheet(Assets.image("png/explosion-animation.png"), 6, 1);
+    private static final ObjectPool<ExplosionAnimation> pool = new ObjectPool<>(ExplosionAnimation::new, 64);
 
-    public final int x;
-    public final int y;
-    public final int cellSize;
-    public final ImageFrameAnimation animation;
+    private int x;
+    private int y;
+    private int cellSize;
+    private final ImageFrameAnimation animation;
 
-    ExplosionAnimation(int x, int y, int cellSize) {
-        this.x = x;
-        this.y = y;
-        this.cellSize = cellSize;
+    private ExplosionAnimation() {
         this.animation = new ImageFrameAnimation(
                 spriteSheet, 70, ImageFrameAnimation.Direction.NORMAL);
         this.animation.setInfinite(false);
     }
 
+    /**
+     * 描画座標 (x, y) に一辺 cellSize ピクセルで描画する爆風のアニメーションをプールから取り出す。
+     */
+    public static ExplosionAnimation obtain(int x, int y, int cellSize) {
+        final ExplosionAnimation explosion = pool.obtain();
+        explosion.x = x;
+        explosion.y = y;
+        explosion.cellSize = cellSize;
+        return explosion;
+    }
+
     @Override
     public void draw(GraphicsContext gc) {
         this.animation.draw(gc, x, y, cellSize, cellSize);
@@ -32,4 +45,10 @@ public class ExplosionAnimation implements DrawableTransition {
     public void play() {
         this.animation.start();
     }
+
+    @Override
+    public void release() {
+        this.animation.reset();
+        pool.release(this);
+    }
 }
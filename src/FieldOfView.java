@@ -0,0 +1,206 @@
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.IntPredicate;
+
+/**
+ * グリッド上の視点のマスから見えるマス (視界) と、これまでに一度でも見えたマス (探索済み) を保持するクラス。JavaFX に依存しない。
+ * <p>
+ * 視界は再帰的シャドウキャスティングで求める。視点の周りを 8 つの八分円に分け、それぞれ視点に近い行から順に走査して、
+ * 視線を遮るマスの後ろにできる影の傾きの範囲を再帰で絞り込んでいく。
+ * 走査するのは視点から半径 radius マスの範囲だけなので、計算量はマップの大きさによらず半径の二乗に比例する。
+ * <p>
+ * 視界は毎フレーム計算し直すのではなく、視点が移動したり、視界の中のマスが変化したりしたときに
+ * 印を付けておき、 {@link #refresh()} を呼んだときに印があれば計算し直す。
+ * <p>
+ * セルは座標ではなくセル番号 (y * ncol + x) で扱う。
+ */
+public class FieldOfView {
+    // 八分円毎の座標の変換。 (dx, dy) を (dx * XX + dy * XY, dx * YX + dy * YY) に写す。
+    private static final int[] XX = {1, 0, 0, -1, -1, 0, 0, 1};
+    private static final int[] XY = {0, 1, -1, 0, 0, -1, 1, 0};
+    private static final int[] YX = {0, 1, 1, 0, 0, -1, -1, 0};
+    private static final int[] YY = {1, 0, 0, 1, -1, 0, 0, -1};
+
+    private final int ncol;
+    private final int nrow;
+    private final IntPredicate opaque;
+
+    private final BitSet visible = new BitSet();
+    private final BitSet explored = new BitSet();
+
+    // 今見えているマスのセル番号。次に計算し直すときに visible を全て消さずに済むよう覚えておく。
+    private int[] visibleCells = new int[64];
+    private int visibleCellCount = 0;
+    private int exploredCellCount = 0;
+
+    private int originCol = 0;
+    private int originRow = 0;
+    private int radius;
+    private boolean isDirty = true;
+
+    /**
+     * 列数 ncol, 行数 nrow のグリッド用の視界を生成する。 {@link #refresh()} を呼ぶまでは、どのマスも見えていない。
+     *
+     * @param ncol   グリッドの列数
+     * @param nrow   グリッドの行数
+     * @param radius 見通せる半径 (マス数)
+     * @param opaque 指定したセル番号のマスが視線を遮るなら true を返す述語関数
+     */
+    public FieldOfView(int ncol, int nrow, int radius, IntPredicate opaque) {
+        this.ncol = ncol;
+        this.nrow = nrow;
+        this.radius = radius;
+        this.opaque = opaque;
+    }
+
+    public int getColumnCount() {
+        return ncol;
+    }
+
+    public int getRowCount() {
+        return nrow;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * 視点をマス(col, row) に移す。
+     */
+    public void setOrigin(int col, int row) {
+        if (col == originCol && row == originRow) return;
+        this.originCol = col;
+        this.originRow = row;
+        this.isDirty = true;
+    }
+
+    /**
+     * 見通せる半径を radius マスにする。
+     */
+    public void setRadius(int radius) {
+        if (radius == this.radius) return;
+        this.radius = radius;
+        this.isDirty = true;
+    }
+
+    /**
+     * マス(col, row) が視線を遮るかどうかが変化したときに呼び出す。視界に影響しうる場合だけ、計算し直す印を付ける。
+     */
+    public void onCellChanged(int col, int row) {
+        if (Math.abs(col - originCol) <= radius && Math.abs(row - originRow) <= radius) {
+            this.isDirty = true;
+        }
+    }
+
+    /**
+     * 前回の計算以降に視点や視界の中のマスが変化していれば、視界を計算し直して、新しく見えたマスを探索済みにする。
+     *
+     * @return 計算し直したなら true
+     */
+    public boolean refresh() {
+        if (!isDirty) return false;
+        this.isDirty = false;
+
+        for (int i = 0; i < visibleCellCount; ++i) {
+            visible.clear(visibleCells[i]);
+        }
+        visibleCellCount = 0;
+
+        this.markVisible(originCol, originRow);
+        for (int octant = 0; octant < 8; ++octant) {
+            this.castLight(1, 1.0, 0.0, XX[octant], XY[octant], YX[octant], YY[octant]);
+        }
+        return true;
+    }
+
+    /**
+     * 視点から startRow 行目以降の八分円を走査する。 [end, start] は、まだ影になっていない傾き (横 / 縦) の範囲。
+     */
+    private void castLight(int startRow, double start, double end, int xx, int xy, int yx, int yy) {
+        if (start < end) return;
+
+        final int radiusSq = radius * radius;
+        double newStart = 0.0;
+        for (int j = startRow; j <= radius; ++j) {
+            final int dy = -j;
+            boolean blocked = false;
+            for (int dx = -j; dx <= 0; ++dx) {
+                // マスの両端の傾き
+                final double leftSlope = (dx - 0.5) / (dy + 0.5);
+                final double rightSlope = (dx + 0.5) / (dy - 0.5);
+                if (start < rightSlope) continue;
+                if (end > leftSlope) break;
+
+                final int col = originCol + dx * xx + dy * xy;
+                final int row = originRow + dx * yx + dy * yy;
+                if (dx * dx + dy * dy <= radiusSq) {
+                    this.markVisible(col, row);
+                }
+
+                final boolean isOpaque = this.isOpaque(col, row);
+                if (blocked) {
+                    if (isOpaque) {
+                        newStart = rightSlope;
+                    } else {
+                        blocked = false;
+                        start = newStart;
+                    }
+                } else if (isOpaque && j < radius) {
+                    // 遮るマスの手前までの範囲を次の行から走査し、この行の残りは遮るマスの先から続ける
+                    blocked = true;
+                    this.castLight(j + 1, start, leftSlope, xx, xy, yx, yy);
+                    newStart = rightSlope;
+                }
+            }
+            if (blocked) break;
+        }
+    }
+
+    /**
+     * マス(col, row) が視線を遮るなら true を返す。マップの外は視線を遮る。
+     */
+    private boolean isOpaque(int col, int row) {
+        if (col < 0 || ncol <= col || row < 0 || nrow <= row) return true;
+        return opaque.test(row * ncol + col);
+    }
+
+    private void markVisible(int col, int row) {
+        if (col < 0 || ncol <= col || row < 0 || nrow <= row) return;
+
+        final int cell = row * ncol + col;
+        if (visible.get(cell)) return;
+        visible.set(cell);
+        if (visibleCellCount == visibleCells.length) {
+            visibleCells = Arrays.copyOf(visibleCells, visibleCellCount * 2);
+        }
+        visibleCells[visibleCellCount++] = cell;
+
+        if (!explored.get(cell)) {
+            explored.set(cell);
+            ++exploredCellCount;
+        }
+    }
+
+    /**
+     * セル番号 cell のマスが今見えているなら true を返す。
+     */
+    public boolean isVisible(int cell) {
+        return visible.get(cell);
+    }
+
+    /**
+     * セル番号 cell のマスがこれまでに一度でも見えたなら true を返す。
+     */
+    public boolean isExplored(int cell) {
+        return explored.get(cell);
+    }
+
+    public int getVisibleCellCount() {
+        return visibleCellCount;
+    }
+
+    public int getExploredCellCount() {
+        return exploredCellCount;
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * 描画のフレームレートに関係なく、一定の時間刻み (ステップ) でシミュレーションを進めるための時間の管理。JavaFX に依存しない。
+ * <p>
+ * 毎フレーム {@link #advance(long)} に現在時刻を渡すと、前回からの経過時間を貯めておき、
+ * 貯まった時間で進めるべきステップ数を返す。ステップに満たない端数は次のフレームに持ち越し、
+ * 描画側は {@link #getAlpha()} で直前のステップと次のステップの間を補間する。
+ * <p>
+ * 1 フレームで進めるステップ数には上限があり、上限を超えた分は次のフレーム以降に持ち越して追いつく。
+ * ただし、ウィンドウの移動などで長い間止まっていた場合に追いつこうとし続けないよう、
+ * 持ち越せる時間にも上限があり、それを超えた時間は捨てる (その間ゲームが止まっていたことになる)。
+ */
+public class FixedTimestep {
+    private static final long UNDEFINED_TIME = -1;
+
+    private final long stepNano;
+    private final int maxStepsPerFrame;
+    private final long maxLagNano;
+
+    private long lastTime = UNDEFINED_TIME;
+    private long accumulatedNano = 0;
+
+    /**
+     * @param stepNano         1 ステップの長さ (ナノ秒)
+     * @param maxStepsPerFrame 1 フレームで進めるステップ数の上限
+     * @param maxLagNano       持ち越せる時間の上限 (ナノ秒)。これを超えた時間は捨てる。
+     */
+    public FixedTimestep(long stepNano, int maxStepsPerFrame, long maxLagNano) {
+        this.stepNano = stepNano;
+        this.maxStepsPerFrame = maxStepsPerFrame;
+        this.maxLagNano = maxLagNano;
+    }
+
+    /**
+     * 前回の呼び出しからの経過時間を貯め、このフレームで進めるべきステップ数を返す。
+     * 返したステップ数の分の時間は、貯めた時間から差し引かれる。
+     * 最初の呼び出しとリセット直後の呼び出しでは、時刻を記録するだけで 0 を返す。
+     *
+     * @param now 現在時刻(ナノ秒)
+     * @return このフレームで進めるステップ数 (0 以上 maxStepsPerFrame 以下)
+     */
+    public int advance(long now) {
+        if (lastTime == UNDEFINED_TIME) {
+            lastTime = now;
+            return 0;
+        }
+
+        accumulatedNano += Math.max(0, now - lastTime);
+        lastTime = now;
+        if (accumulatedNano > maxLagNano) {
+            accumulatedNano = maxLagNano;
+        }
+
+        final int steps = (int) Math.min(maxStepsPerFrame, accumulatedNano / stepNano);
+        accumulatedNano -= steps * stepNano;
+        return steps;
+    }
+
+    /**
+     * 1 ステップ以上の時間が貯まったまま (このフレームで進めきれなかった) なら true を返す。
+     */
+    public boolean isBehind() {
+        return accumulatedNano >= stepNano;
+    }
+
+    /**
+     * 貯まっている端数の時間を、ステップの長さに対する割合 [0.0, 1.0] で返す。
+     * 描画側は直前のステップの状態と最新のステップの状態を、この割合で補間する。
+     */
+    public double getAlpha() {
+        return Math.min(1.0, (double) accumulatedNano / stepNano);
+    }
+
+    /**
+     * 貯めた時間を捨て、次の {@link #advance(long)} の呼び出しから数え直す。
+     */
+    public void reset() {
+        lastTime = UNDEFINED_TIME;
+        accumulatedNano = 0;
+    }
+
+    public long getStepNano() {
+        return stepNano;
+    }
+}
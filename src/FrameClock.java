@@ -0,0 +1,87 @@
+import java.util.Arrays;
+
+/**
+ * 動作中の全ての {@link MyTimer} を一括で進める、アプリケーション共通のフレームクロック。
+ * <p>
+ * MyTimer は JavaFX のパルスに個別に登録するのではなく、このクロックの配列に登録される。
+ * {@link MapGameScene} のゲームループが毎フレーム {@link #tick(long)} を呼び出し、
+ * 登録されている全てのタイマーを進める。
+ * <p>
+ * 登録・解除は配列の末尾の要素との入れ替えで行うので O(1) で、オブジェクトを生成しない
+ * (配列の拡張が起きる場合を除く)。
+ */
+public final class FrameClock {
+    private static final FrameClock instance = new FrameClock();
+
+    private MyTimer[] timers = new MyTimer[256];
+    private int timerCount = 0;
+
+    // tick() で進めるタイマーの写し。処理中の登録・解除で timers の並びが変わっても、各タイマーを一度ずつ進める。
+    private MyTimer[] tickingTimers = new MyTimer[256];
+
+    private FrameClock() {
+    }
+
+    public static FrameClock getInstance() {
+        return instance;
+    }
+
+    /**
+     * タイマーを登録する。登録済みなら何もしない。
+     */
+    void register(MyTimer timer) {
+        if (timer.clockSlot >= 0) return;
+
+        if (timerCount == timers.length) {
+            timers = Arrays.copyOf(timers, timers.length * 2);
+        }
+        timer.clockSlot = timerCount;
+        timers[timerCount++] = timer;
+    }
+
+    /**
+     * タイマーの登録を解除する。登録されていなければ何もしない。
+     */
+    void unregister(MyTimer timer) {
+        final int slot = timer.clockSlot;
+        if (slot < 0) return;
+
+        final MyTimer last = timers[--timerCount];
+        timers[slot] = last;
+        last.clockSlot = slot;
+        timers[timerCount] = null;
+        timer.clockSlot = -1;
+    }
+
+    /**
+     * 登録されている全てのタイマーを進める。ゲームループから毎フレーム呼び出す。
+     * <p>
+     * 呼び出した時点で登録されているタイマーの写しを走査するので、タイマーの処理中に登録されたタイマーは次のフレームから進み始め、
+     * 処理中に登録を解除されたタイマーは (まだ進めていなければ) このフレームでは進めない。
+     * どのタイマーもフレームあたり一度しか進めない。
+     *
+     * @param now 現在時刻(ナノ秒)
+     */
+    public void tick(long now) {
+        final int n = timerCount;
+        if (tickingTimers.length < n) {
+            tickingTimers = new MyTimer[timers.length];
+        }
+        System.arraycopy(timers, 0, tickingTimers, 0, n);
+
+        for (int i = 0; i < n; ++i) {
+            final MyTimer timer = tickingTimers[i];
+            tickingTimers[i] = null;
+            if (timer.clockSlot >= 0) {
+                timer.handle(now);
+            }
+        }
+    }
+
+    /**
+     * 登録されているタイマーの個数を返す。
+     */
+    public int getTimerCount() {
+        return timerCount;
+    }
+}
@@ -0,0 +1,285 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * ゲームループの 1 フレームごとの処理時間と、描画物・ボム・タイマーの個数を記録するクラス。JavaFX に依存しない。
+ * <p>
+ * {@link MapGameScene} のゲームループが、毎フレーム次の順に呼び出す。
+ * <pre>
+ *     beginFrame() → (FrameClock と phase.update) → endUpdate() → (phase.draw) → endDraw()
+ * </pre>
+ * 直近 {@link #CAPACITY} フレーム分をリングバッファに保持し、古いものから上書きする。
+ * 処理時間のパーセンタイルは、リングバッファと同じ範囲を数えるヒストグラムから求めるので、
+ * フレーム毎の記録も問い合わせも配列を走査するだけで、オブジェクトを生成しない。
+ */
+public class FrameProfiler {
+    /**
+     * 記録を保持するフレーム数。 60 fps で約 10 秒分。
+     */
+    public static final int CAPACITY = 600;
+
+    private final long[] updateNanos = new long[CAPACITY];
+    private final long[] drawNanos = new long[CAPACITY];
+    private final long[] totalNanos = new long[CAPACITY];
+    private final int[] drawableCounts = new int[CAPACITY];
+    private final int[] bombCounts = new int[CAPACITY];
+    private final int[] timerCounts = new int[CAPACITY];
+    private final int[] taskCounts = new int[CAPACITY];
+
+    private final Histogram updateHistogram = new Histogram();
+    private final Histogram drawHistogram = new Histogram();
+    private final Histogram totalHistogram = new Histogram();
+
+    // 次に書き込む位置と、保持しているフレーム数
+    private int head = 0;
+    private int size = 0;
+    private long frameCount = 0;
+
+    // 記録中のフレームの時刻と個数
+    private long frameStartNano;
+    private long updateEndNano;
+    private int drawableCount;
+    private int bombCount;
+    private int timerCount;
+    private int taskCount;
+
+    /**
+     * フレームの処理の開始時に呼び出す。個数の記録はリセットされる。
+     */
+    public void beginFrame() {
+        this.frameStartNano = System.nanoTime();
+        this.updateEndNano = frameStartNano;
+        this.drawableCount = 0;
+        this.bombCount = 0;
+        this.timerCount = 0;
+        this.taskCount = 0;
+    }
+
+    /**
+     * 更新処理 (タイマーとフェーズの update) の終了時に呼び出す。
+     */
+    public void endUpdate() {
+        this.updateEndNano = System.nanoTime();
+    }
+
+    /**
+     * 描画処理の終了時に呼び出す。このフレームの記録が確定する。
+     */
+    public void endDraw() {
+        final long now = System.nanoTime();
+        this.record(updateEndNano - frameStartNano, now - updateEndNano, now - frameStartNano);
+    }
+
+    /**
+     * 1 フレーム分の処理時間を、このフレームで報告された個数とともに記録する。
+     */
+    void record(long updateNano, long drawNano, long totalNano) {
+        if (size == CAPACITY) {
+            updateHistogram.remove(updateNanos[head]);
+            drawHistogram.remove(drawNanos[head]);
+            totalHistogram.remove(totalNanos[head]);
+        } else {
+            ++size;
+        }
+
+        updateNanos[head] = updateNano;
+        drawNanos[head] = drawNano;
+        totalNanos[head] = totalNano;
+        drawableCounts[head] = drawableCount;
+        bombCounts[head] = bombCount;
+        timerCounts[head] = timerCount;
+        taskCounts[head] = taskCount;
+        updateHistogram.add(updateNano);
+        drawHistogram.add(drawNano);
+        totalHistogram.add(totalNano);
+
+        head = (head + 1) % CAPACITY;
+        ++frameCount;
+    }
+
+    /**
+     * 描画中のエフェクト ({@link DrawableExecutor} 等に登録されたもの) の個数を加算する。
+     */
+    public void addDrawableCount(int count) {
+        this.drawableCount += count;
+    }
+
+    /**
+     * 未爆発のボムの個数を加算する。
+     */
+    public void addBombCount(int count) {
+        this.bombCount += count;
+    }
+
+    /**
+     * 動作中のタイマーの個数を加算する。
+     */
+    public void addTimerCount(int count) {
+        this.timerCount += count;
+    }
+
+    /**
+     * 実行待ちの遅延タスクの個数を加算する。
+     */
+    public void addTaskCount(int count) {
+        this.taskCount += count;
+    }
+
+    /**
+     * 保持しているフレーム数を返す。
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * 記録を始めてからの総フレーム数を返す。
+     */
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * 保持しているフレームのうち、古い方から i 番目 (0 <= i < getSize()) のリングバッファ上の位置を返す。
+     */
+    private int slotOf(int i) {
+        return (head - size + i + CAPACITY) % CAPACITY;
+    }
+
+    /**
+     * 直前に記録したフレームの更新処理の時間 (ナノ秒) を返す。
+     */
+    public long getLastUpdateNano() {
+        return (size == 0) ? 0 : updateNanos[slotOf(size - 1)];
+    }
+
+    /**
+     * 直前に記録したフレームの描画処理の時間 (ナノ秒) を返す。
+     */
+    public long getLastDrawNano() {
+        return (size == 0) ? 0 : drawNanos[slotOf(size - 1)];
+    }
+
+    /**
+     * 直前に記録したフレーム全体の処理時間 (ナノ秒) を返す。
+     */
+    public long getLastTotalNano() {
+        return (size == 0) ? 0 : totalNanos[slotOf(size - 1)];
+    }
+
+    public int getLastDrawableCount() {
+        return (size == 0) ? 0 : drawableCounts[slotOf(size - 1)];
+    }
+
+    public int getLastBombCount() {
+        return (size == 0) ? 0 : bombCounts[slotOf(size - 1)];
+    }
+
+    public int getLastTimerCount() {
+        return (size == 0) ? 0 : timerCounts[slotOf(size - 1)];
+    }
+
+    public int getLastTaskCount() {
+        return (size == 0) ? 0 : taskCounts[slotOf(size - 1)];
+    }
+
+    /**
+     * 古い方から i 番目のフレーム全体の処理時間 (ナノ秒) を返す。グラフの描画に使う。
+     */
+    public long getTotalNano(int i) {
+        return totalNanos[slotOf(i)];
+    }
+
+    /**
+     * 保持しているフレームの更新処理の時間の p パーセンタイル (ナノ秒) を返す。
+     */
+    public long getUpdatePercentileNano(double p) {
+        return updateHistogram.percentile(p);
+    }
+
+    /**
+     * 保持しているフレームの描画処理の時間の p パーセンタイル (ナノ秒) を返す。
+     */
+    public long getDrawPercentileNano(double p) {
+        return drawHistogram.percentile(p);
+    }
+
+    /**
+     * 保持しているフレーム全体の処理時間の p パーセンタイル (ナノ秒) を返す。
+     */
+    public long getTotalPercentileNano(double p) {
+        return totalHistogram.percentile(p);
+    }
+
+    /**
+     * 保持している全フレームの記録を、古い順に CSV ファイルとして path に書き出す。
+     * 時間の単位はマイクロ秒。
+     *
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public void exportCsv(Path path) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("frame,update_us,draw_us,total_us,drawables,bombs,timers,tasks");
+            writer.newLine();
+
+            final long firstFrame = frameCount - size;
+            for (int i = 0; i < size; ++i) {
+                final int slot = slotOf(i);
+                writer.write((firstFrame + i)
+                        + "," + updateNanos[slot] / 1000
+                        + "," + drawNanos[slot] / 1000
+                        + "," + totalNanos[slot] / 1000
+                        + "," + drawableCounts[slot]
+                        + "," + bombCounts[slot]
+                        + "," + timerCounts[slot]
+                        + "," + taskCounts[slot]);
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * 処理時間の度数分布。 0.1 ms 刻みで 0 ms から 50 ms までを数え、それ以上は最後の階級にまとめる。
+     */
+    private static final class Histogram {
+        private static final long BUCKET_NANO = 100_000;
+        private static final int BUCKET_COUNT = 501;
+
+        private final int[] buckets = new int[BUCKET_COUNT];
+        private int count = 0;
+
+        private static int bucketOf(long nano) {
+            return (int) Math.min(BUCKET_COUNT - 1, Math.max(0, nano / BUCKET_NANO));
+        }
+
+        void add(long nano) {
+            ++buckets[bucketOf(nano)];
+            ++count;
+        }
+
+        void remove(long nano) {
+            --buckets[bucketOf(nano)];
+            --count;
+        }
+
+        /**
+         * p パーセンタイル (0 <= p <= 100) を含む階級の上端 (ナノ秒) を返す。記録が無ければ 0 を返す。
+         */
+        long percentile(double p) {
+            if (count == 0) return 0;
+
+            final int rank = (int) Math.ceil(count * p / 100.0);
+            int seen = 0;
+            for (int i = 0; i < BUCKET_COUNT; ++i) {
+                seen += buckets[i];
+                if (seen >= Math.max(1, rank)) {
+                    return (i + 1) * BUCKET_NANO;
+                }
+            }
+            return BUCKET_COUNT * BUCKET_NANO;
+        }
+    }
+}
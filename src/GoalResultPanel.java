@@ -1,6 +1,5 @@
 import javafx.geometry.VPos;
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
@@ -28,8 +27,8 @@ public class GoalResultPanel {
         this.title = title;
         this.goalTimeSec = goalTimeSec;
         this.score = score;
-        this.btnToTitle = new ImageViewButton(new Image("png/button-to-title.png"), mapGameScene);
-        this.btnNewMap = new ImageViewButton(new Image("png/button-new-map.png"), mapGameScene);
+        this.btnToTitle = new ImageViewButton(Assets.image("png/button-to-title.png"), mapGameScene);
+        this.btnNewMap = new ImageViewButton(Assets.image("png/button-new-map.png"), mapGameScene);
 
         mapGameScene.getOtherComponents().getChildren().add(this.btnToTitle);
         mapGameScene.getOtherComponents().getChildren().add(this.btnNewMap);
@@ -1,45 +1,34 @@
-import javafx.scene.image.Image;
-import javafx.scene.media.AudioClip;
-
 public final class GoldBomb extends AbstractBomb {
-    private static final SpriteSheet bombSpriteSheet = new SpriteSheet(new Image("png/gold-bomb-spritesheet.png"), 4, 1);
-    private static final AudioClip explosionSE = new AudioClip(MapGame.getResourceAsString("sound/explosion.wav"));
-
     public GoldBomb(int col, int row) {
-        super(col, row, GoldBomb.bombSpriteSheet);
-    }
-
-    @Override
-    public void playExplosionSE() {
-        GoldBomb.explosionSE.play();
+        super(col, row);
     }
 
+    // 自分のマスからのマンハッタン距離が 2 以下のマスが爆風の範囲
     @Override
-    public void explode(MapData mapData, CellDrawnPositionResolver positionResolver, DrawableExecutor explosionAnimExecutor) {
+    public int collectBlastCells(MapData mapData, int[] out) {
+        int n = 0;
         for (int y = this.row - 2; y <= this.row + 2; ++y) {
             for (int x = this.col - 2; x <= this.col + 2; ++x) {
                 if (y < 0 || x < 0 || y >= mapData.getHeight() || x >= mapData.getWidth()) continue;
                 if (Math.abs(y - this.row) + Math.abs(x - this.col) > 2) continue;
                 if (mapData.getCellType(x, y) == CellType.WALL) continue;
-
-                registerExplosion(x, y, positionResolver, explosionAnimExecutor);
-
-                if (mapData.getCellType(x, y) == CellType.BREAKABLE_BLOCK) {
-                    mapData.setCellType(x, y, CellType.SPACE);
-                    mapData.setItemType(x, y, ItemType.COIN);
-                }
+                out[n++] = mapData.toCellIndex(x, y);
             }
         }
+        return n;
+    }
+
+    @Override
+    public int getMaxBlastCellCount() {
+        return 13;
     }
 
-    private static void registerExplosion(
-            int col, int row,
-            CellDrawnPositionResolver positionResolver,
-            DrawableExecutor explosionAnimExecutor
-    ) {
-        explosionAnimExecutor.registerAndPlay(new ExplosionAnimation(
-                positionResolver.getCellDrawnX(col),
-                positionResolver.getCellDrawnY(row),
-                positionResolver.getCellSize()));
+    // 壊したブロックはコインに変わる
+    @Override
+    public void blastCell(MapData mapData, int x, int y) {
+        if (mapData.getCellType(x, y) == CellType.BREAKABLE_BLOCK) {
+            mapData.setCellType(x, y, CellType.SPACE);
+            mapData.setItemType(x, y, ItemType.COIN);
+        }
     }
 }
@@ -0,0 +1,198 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * グリッド上の最短経路を幅優先探索で求めるクラス。
+ * <p>
+ * セルは座標ではなくセル番号 (y * ncol + x) で扱う。
+ * 探索用のキュー・距離の配列・経路の配列は探索をまたいで使い回すので、
+ * 一度インスタンスを作れば、それ以降の探索ではオブジェクトを一切生成しない。
+ * <p>
+ * 距離の配列は探索のたびに初期化せず、「何回目の探索で書き込まれた値か」を表す印で有効かどうかを判定する。
+ */
+public class GridPathFinder {
+    private final int ncol;
+    private final int nrow;
+
+    private final int[] queue;
+    private final int[] dist;
+    private final int[] visitedMark;
+    private int currentMark = 0;
+
+    private final int[] path;
+    private int pathLength = 0;
+
+    /**
+     * 列数 ncol, 行数 nrow のグリッド用の探索器を生成する。
+     *
+     * @param ncol グリッドの列数
+     * @param nrow グリッドの行数
+     */
+    public GridPathFinder(int ncol, int nrow) {
+        this.ncol = ncol;
+        this.nrow = nrow;
+
+        final int cellCount = ncol * nrow;
+        this.queue = new int[cellCount];
+        this.dist = new int[cellCount];
+        this.visitedMark = new int[cellCount];
+        this.path = new int[cellCount];
+    }
+
+    public int getColumnCount() {
+        return ncol;
+    }
+
+    public int getRowCount() {
+        return nrow;
+    }
+
+    /**
+     * セル番号 start から セル番号 goal までの最短ルートを求める。
+     * 求めたルートは {@link #getPathCell(int)} で取り出せる。
+     * ルートの先頭は start で、末尾は goal である。
+     * 最短ルートが複数ある場合は、そのうちのどれが選ばれるかは実装依存である。
+     *
+     * @param start      スタートマスのセル番号
+     * @param goal       ゴールマスのセル番号
+     * @param canBeTrail 指定したセル番号のマスが道になれる (=プレイヤーが通過できる) なら true を返す述語関数
+     * @return ルートに含まれるマスの個数 (start と goal を含む)。 start から goal へ到達できない場合は 0
+     */
+    public int findPath(int start, int goal, IntPredicate canBeTrail) {
+        this.pathLength = 0;
+        if (!this.search(goal, start, canBeTrail)) {
+            return 0;
+        }
+
+        // start から goal に向かって経路復元する
+        int cur = start;
+        path[pathLength++] = cur;
+        while (cur != goal) {
+            cur = this.nextCellTowardRoot(cur);
+            path[pathLength++] = cur;
+        }
+        return pathLength;
+    }
+
+    /**
+     * root から幅優先探索を行い、 target に到達した時点で探索を打ち切る。
+     * target に到達できたら true を返す。
+     */
+    private boolean search(int root, int target, IntPredicate canBeTrail) {
+        this.nextMark();
+
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = root;
+        this.visit(root, 0);
+
+        while (head < tail) {
+            final int cur = queue[head++];
+            if (cur == target) return true;
+
+            final int x = cur % ncol;
+            final int nextDist = dist[cur] + 1;
+
+            // 右, 下, 上, 左 の順に隣のマスを調べる
+            if (x + 1 < ncol && this.tryVisit(cur + 1, nextDist, canBeTrail)) queue[tail++] = cur + 1;
+            if (cur + ncol < queue.length && this.tryVisit(cur + ncol, nextDist, canBeTrail)) queue[tail++] = cur + ncol;
+            if (cur - ncol >= 0 && this.tryVisit(cur - ncol, nextDist, canBeTrail)) queue[tail++] = cur - ncol;
+            if (x - 1 >= 0 && this.tryVisit(cur - 1, nextDist, canBeTrail)) queue[tail++] = cur - 1;
+        }
+        return false;
+    }
+
+    private boolean tryVisit(int cell, int d, IntPredicate canBeTrail) {
+        if (visitedMark[cell] == currentMark) return false;
+        if (!canBeTrail.test(cell)) return false;
+        this.visit(cell, d);
+        return true;
+    }
+
+    private void visit(int cell, int d) {
+        visitedMark[cell] = currentMark;
+        dist[cell] = d;
+    }
+
+    /**
+     * 探索済みのマス cell の隣のマスのうち、探索の起点に一歩近いマスを返す。
+     */
+    private int nextCellTowardRoot(int cell) {
+        final int x = cell % ncol;
+        final int d = dist[cell] - 1;
+        if (x + 1 < ncol && this.hasDistance(cell + 1, d)) return cell + 1;
+        if (cell + ncol < queue.length && this.hasDistance(cell + ncol, d)) return cell + ncol;
+        if (cell - ncol >= 0 && this.hasDistance(cell - ncol, d)) return cell - ncol;
+        return cell - 1;
+    }
+
+    private boolean hasDistance(int cell, int d) {
+        return visitedMark[cell] == currentMark && dist[cell] == d;
+    }
+
+    private void nextMark() {
+        ++currentMark;
+
+        // 印が一周したら、古い印が誤って有効と判定されないように全て消す
+        if (currentMark == Integer.MAX_VALUE) {
+            Arrays.fill(visitedMark, 0);
+            currentMark = 1;
+        }
+    }
+
+    /**
+     * 直前の {@link #findPath} で求めたルートに含まれるマスの個数を返す。
+     *
+     * @return ルートに含まれるマスの個数。ルートが無ければ 0
+     */
+    public int getPathLength() {
+        return pathLength;
+    }
+
+    /**
+     * 直前の {@link #findPath} で求めたルートの i 番目のマスのセル番号を返す。
+     * 0 番目は start で、 (getPathLength() - 1) 番目は goal である。
+     *
+     * @param i ルート上の番号
+     * @return セル番号
+     */
+    public int getPathCell(int i) {
+        if (i < 0 || pathLength <= i) {
+            throw new IndexOutOfBoundsException("`i` is out of the path length");
+        }
+        return path[i];
+    }
+
+    /**
+     * start から goal までの最短ルートを List として返す。
+     * List の先頭要素は start で、末尾要素は goal である。
+     * 最短ルートが複数ある場合は、そのうちのどれが選ばれるかは実装依存である。
+     * start から goal へ到達できない場合は空の List を返す。
+     * <p>
+     * 呼び出すたびに探索器を生成するので、繰り返し探索する場合は GridPathFinder のインスタンスを使い回すこと。
+     *
+     * @param start      スタートマスの位置
+     * @param goal       ゴールマスの位置
+     * @param ncol       グリッドの列数
+     * @param nrow       グリッドの行数
+     * @param canBeTrail 指定したマスが道になれる (=プレイヤーが通過できる) なら true を返す述語関数
+     * @return start から goal までの最短ルート
+     */
+    public static List<Pos> calcShortestPath(Pos start, Pos goal, int ncol, int nrow, Predicate<Pos> canBeTrail) {
+        final GridPathFinder finder = new GridPathFinder(ncol, nrow);
+        final int pathLength = finder.findPath(
+                start.row * ncol + start.col,
+                goal.row * ncol + goal.col,
+                cell -> canBeTrail.test(new Pos(cell % ncol, cell / ncol)));
+
+        final List<Pos> path = new ArrayList<>(pathLength);
+        for (int i = 0; i < pathLength; i++) {
+            final int cell = finder.getPathCell(i);
+            path.add(new Pos(cell % ncol, cell / ncol));
+        }
+        return path;
+    }
+}
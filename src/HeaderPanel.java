@@ -24,8 +24,8 @@ public class HeaderPanel {
 
     public HeaderPanel(int x, int y, int width, int height) {
         this.centerButtons = new ArrayList<>();
-        this.keyImageActive = new Image("png/key-32x32.png");
-        this.keyImageInactive = new Image("png/key-icon-heart-gray.png");
+        this.keyImageActive = Assets.image("png/key-32x32.png");
+        this.keyImageInactive = Assets.image("png/key-icon-heart-gray.png");
 
         this.width = width;
         this.height = height;
@@ -49,7 +49,13 @@ public class ImageFrameAnimation extends MyTimer {
         this.imageFrames = imageFrames;
         this.durationNano = durationMilliSec * 1000000L;  // ms -> ns
         this.animationDirection = animationDirection;
+        this.rewind();
+    }
 
+    /**
+     * 表示するフレームを再生方向の最初のフレームに戻す。
+     */
+    private void rewind() {
         if (this.animationDirection == Direction.REVERSE) {
             this.currentFrameIndex = this.imageFrames.getFrameCount() - 1;
             isPlus = false;
@@ -57,6 +63,16 @@ public class ImageFrameAnimation extends MyTimer {
             this.currentFrameIndex = 0;
             isPlus = true;
         }
+        this.currentFrameCount = 0;
+    }
+
+    /**
+     * タイマーを停止し、アニメーションを最初のフレームに戻す。
+     */
+    @Override
+    public void reset() {
+        super.reset();
+        this.rewind();
     }
 
     public boolean isInfinite() {
@@ -0,0 +1,360 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * 残りのカギを全て拾ってからゴールするまでのルートを求めるクラス。JavaFX に依存しない。
+ * <p>
+ * 始点・残りのカギ・コイン・ゴールのマス (目標) の全ての組の歩数を、目標毎の幅優先探索で求めて表にし、
+ * 「どの目標を訪れたか (ビット集合)」と「最後に訪れた目標」を状態とする動的計画法 (bit DP) で最適な訪問順を求める。
+ * <ul>
+ *     <li>{@link #solveFastest}: 歩数が最も少ないルート。カギだけを訪れる</li>
+ *     <li>{@link #solveMaxScore}: 最短のルートより maxExtraSteps 歩多く歩くまでの範囲で、拾えるコインが最も多いルート</li>
+ * </ul>
+ * bit DP の状態数は目標の数の指数で増えるので、コインは最短のルートからの寄り道が少ないものから
+ * 最大 {@value #MAX_COIN_CANDIDATES} 枚だけを候補にする。最短のルートの上にあるコインは寄り道せずに拾えるので、候補にしない。
+ * <p>
+ * 通れるマスだけを歩くものとし、ボムでブロックを壊すことは考えない。
+ * 一度作ったインスタンスは、同じ大きさのマップに対して何度でも使い回せる (作業領域を再利用する)。
+ */
+public class KeyRouteSolver {
+    /**
+     * {@link #solveMaxScore} で訪問順を最適化するコインの最大数。
+     */
+    public static final int MAX_COIN_CANDIDATES = 10;
+
+    private static final int INF = Integer.MAX_VALUE / 4;
+
+    private final int ncol;
+    private final int nrow;
+
+    // 目標毎の、その目標を根とする距離場。必要になった分だけ作る。
+    private DistanceField[] fields = new DistanceField[0];
+
+    // 作業領域
+    private int[] matrix = new int[0];
+    private int[] dp = new int[0];
+    private int[] parent = new int[0];
+    private int[] coinCells = new int[64];
+    private final BitSet countedCells = new BitSet();
+
+    /**
+     * 列数 ncol, 行数 nrow のマップ用のソルバーを作る。
+     */
+    public KeyRouteSolver(int ncol, int nrow) {
+        this.ncol = ncol;
+        this.nrow = nrow;
+    }
+
+    /**
+     * マス startCell から、 mapData の残りのカギを全て拾ってゴールするまでの、歩数が最も少ないルートを返す。
+     * カギが残っていなければ、ゴールまでの最短ルートを返す。
+     */
+    public Route solveFastest(MapData mapData, int startCell) {
+        return this.solve(mapData, startCell, 0, false);
+    }
+
+    /**
+     * マス startCell から、 mapData の残りのカギを全て拾ってゴールするまでのルートのうち、
+     * 歩数が最短のルートの歩数 + maxExtraSteps 以下で、訪れるコインが最も多いルートを返す。
+     * コインの数が同じなら、歩数が少ない方を選ぶ。
+     */
+    public Route solveMaxScore(MapData mapData, int startCell, int maxExtraSteps) {
+        return this.solve(mapData, startCell, maxExtraSteps, true);
+    }
+
+    private Route solve(MapData mapData, int startCell, int maxExtraSteps, boolean visitsCoins) {
+        final int goalCell = mapData.toCellIndex(mapData.getGoalX(), mapData.getGoalY());
+
+        // 目標は [始点, カギ..., コインの候補..., ゴール] の順に並べ、ゴール以外の目標毎に距離場を作る
+        final int keyCount = mapData.countItems(ItemType.KEY);
+        int[] targets = new int[keyCount + 2];
+        int n = 0;
+        targets[n++] = startCell;
+        for (int cell = mapData.nextItemCell(ItemType.KEY, 0); cell >= 0; cell = mapData.nextItemCell(ItemType.KEY, cell + 1)) {
+            targets[n++] = cell;
+        }
+        for (int i = 0; i < n; ++i) {
+            this.field(i).rebuild(targets[i], mapData::isMovableAt);
+        }
+        targets[n] = goalCell;
+
+        // まずカギだけを訪れる最短のルートを求める
+        final Route fastest = this.runDp(mapData, targets, n + 1, keyCount, false, 0);
+        if (!visitsCoins || !fastest.isFound()) return fastest;
+
+        // 最短のルートからの寄り道が少ないコインを候補にして、もう一度求める
+        final int coinCount = this.selectCoinCandidates(mapData, fastest, maxExtraSteps);
+        targets = Arrays.copyOf(targets, n + coinCount + 1);
+        for (int c = 0; c < coinCount; ++c) {
+            targets[n + c] = coinCells[c];
+            this.field(n + c).rebuild(coinCells[c], mapData::isMovableAt);
+        }
+        targets[n + coinCount] = goalCell;
+        return this.runDp(mapData, targets, n + coinCount + 1, keyCount, true, fastest.getSteps() + maxExtraSteps);
+    }
+
+    /**
+     * i 番目の目標の距離場を返す。まだ無ければ作る。
+     */
+    private DistanceField field(int i) {
+        if (i >= fields.length) {
+            fields = Arrays.copyOf(fields, Math.max(i + 1, fields.length * 2));
+        }
+        if (fields[i] == null) {
+            fields[i] = new DistanceField(ncol, nrow);
+        }
+        return fields[i];
+    }
+
+    /**
+     * i 番目の目標 (ゴール以外) からセル番号 cell のマスまでの歩数を返す。歩いて行けなければ INF を返す。
+     */
+    private int distance(int i, int cell) {
+        final int d = fields[i].getDistance(cell);
+        return (d == DistanceField.UNREACHABLE) ? INF : d;
+    }
+
+    /**
+     * 最短のルート fastest のいずれかの区間の途中で寄ったときに増える歩数が 1 以上 maxExtraSteps 以下のコインを、
+     * 増える歩数の少ない順に最大 MAX_COIN_CANDIDATES 枚選んで coinCells の先頭に詰め、その数を返す。
+     */
+    private int selectCoinCandidates(MapData mapData, Route fastest, int maxExtraSteps) {
+        final int[] waypoints = fastest.getWaypoints();
+        final int[] waypointTargets = fastest.getWaypointTargets();
+        final DistanceField goalDistanceField = mapData.getGoalDistanceField();
+
+        int count = 0;
+        long[] keyedCells = new long[64];
+        for (int cell = mapData.nextItemCell(ItemType.COIN, 0); cell >= 0; cell = mapData.nextItemCell(ItemType.COIN, cell + 1)) {
+            int detour = INF;
+            int from = 0;
+            for (int k = 0; k < waypoints.length; ++k) {
+                // 区間 (from → waypoints[k]) の途中でコインに寄る歩数。最後の区間の行き先はゴールなので、ゴールの距離場を使う
+                final int fromPrev = this.distance(from, cell);
+                final int toNext = (k + 1 < waypoints.length)
+                        ? this.distance(waypointTargets[k], cell)
+                        : goalDistanceField.getDistance(cell);
+                if (fromPrev < INF && toNext < INF && toNext != DistanceField.UNREACHABLE) {
+                    detour = Math.min(detour, fromPrev + toNext - this.distance(from, waypoints[k]));
+                }
+                from = waypointTargets[k];
+            }
+            if (detour == 0 || detour > maxExtraSteps) continue;
+
+            if (count == keyedCells.length) {
+                keyedCells = Arrays.copyOf(keyedCells, count * 2);
+            }
+            keyedCells[count++] = ((long) detour << 32) | cell;
+        }
+
+        Arrays.sort(keyedCells, 0, count);
+        final int n = Math.min(count, MAX_COIN_CANDIDATES);
+        for (int i = 0; i < n; ++i) {
+            coinCells[i] = (int) keyedCells[i];
+        }
+        return n;
+    }
+
+    /**
+     * 目標 targets[0, targetCount) について bit DP を行う。
+     * targets[0] は始点、 [1, 1 + keyCount) はカギ、その後ろはコインの候補、最後はゴールである。
+     * visitsCoins が false なら、カギを全て訪れる最短のルートを返す。
+     * true なら、歩数が stepLimit 以下のルートのうち、訪れるコインの候補が最も多いルートを返す。
+     */
+    private Route runDp(MapData mapData, int[] targets, int targetCount, int keyCount, boolean visitsCoins, int stepLimit) {
+        // 始点とゴールを除いた、訪れる順番を決める目標の数。 j 番目は targets[1 + j]
+        final int m = targetCount - 2;
+        final int goalCell = targets[targetCount - 1];
+        final int fullMask = (1 << m) - 1;
+        final int keyMask = (1 << keyCount) - 1;
+        final int limit = visitsCoins ? stepLimit : INF;
+
+        // 目標の組毎の歩数の表。 matrix[i * targetCount + j] は目標 i から目標 j までの歩数
+        if (matrix.length < targetCount * targetCount) {
+            matrix = new int[targetCount * targetCount];
+        }
+        for (int i = 0; i < targetCount - 1; ++i) {
+            for (int j = 0; j < targetCount; ++j) {
+                matrix[i * targetCount + j] = this.distance(i, targets[j]);
+            }
+        }
+
+        // dp[mask * m + last]: 始点から mask の目標を全て訪れて、最後に目標 last にいるときの最少歩数
+        final int stateCount = (1 << m) * Math.max(1, m);
+        if (dp.length < stateCount) {
+            dp = new int[stateCount];
+            parent = new int[stateCount];
+        }
+        Arrays.fill(dp, 0, stateCount, INF);
+        for (int j = 0; j < m; ++j) {
+            dp[(1 << j) * m + j] = matrix[1 + j];
+            parent[(1 << j) * m + j] = -1;
+        }
+        // mask に含まれる目標と含まれない目標だけを、ビットを一つずつ取り出して列挙する
+        for (int mask = 1; mask <= fullMask; ++mask) {
+            for (int visited = mask; visited != 0; visited &= visited - 1) {
+                final int last = Integer.numberOfTrailingZeros(visited);
+                final int cur = dp[mask * m + last];
+                if (cur >= INF || cur > limit) continue;
+                final int row = (1 + last) * targetCount + 1;
+                for (int rest = fullMask & ~mask; rest != 0; rest &= rest - 1) {
+                    final int next = Integer.numberOfTrailingZeros(rest);
+                    final int d = cur + matrix[row + next];
+                    final int k = (mask | (1 << next)) * m + next;
+                    if (d < dp[k]) {
+                        dp[k] = d;
+                        parent[k] = last;
+                    }
+                }
+            }
+        }
+
+        // カギを全て含む訪問の集合のうち、最後にゴールへ向かったときの歩数が上限以下のものから選ぶ
+        int bestMask = -1;
+        int bestLast = -1;
+        int bestSteps = INF;
+        int bestCoins = -1;
+        final int goal = targetCount - 1;
+        if (keyCount == 0 && matrix[goal] < INF && matrix[goal] <= limit) {
+            bestMask = 0;
+            bestSteps = matrix[goal];
+            bestCoins = 0;
+        }
+        for (int mask = Math.max(1, keyMask); mask <= fullMask; ++mask) {
+            if ((mask & keyMask) != keyMask) continue;
+            if (!visitsCoins && mask != keyMask) break;
+
+            final int coins = Integer.bitCount(mask & ~keyMask);
+            for (int last = 0; last < m; ++last) {
+                if ((mask & (1 << last)) == 0 || dp[mask * m + last] >= INF) continue;
+                final int steps = dp[mask * m + last] + matrix[(1 + last) * targetCount + goal];
+                if (steps > limit || steps >= INF) continue;
+                if (coins > bestCoins || (coins == bestCoins && steps < bestSteps)) {
+                    bestMask = mask;
+                    bestLast = last;
+                    bestSteps = steps;
+                    bestCoins = coins;
+                }
+            }
+        }
+        // ゴールに歩いて行けなければ、ルートは無い (歩数が INF のまま経路を展開しない)
+        if (bestMask < 0 || bestSteps >= INF) {
+            return Route.NOT_FOUND;
+        }
+
+        // 訪れる順番を末尾から復元する
+        final int visitCount = Integer.bitCount(bestMask);
+        final int[] waypoints = new int[visitCount + 1];
+        final int[] waypointTargets = new int[visitCount + 1];
+        for (int mask = bestMask, last = bestLast, i = visitCount - 1; i >= 0; --i) {
+            waypoints[i] = targets[1 + last];
+            waypointTargets[i] = 1 + last;
+            final int prev = parent[mask * m + last];
+            mask &= ~(1 << last);
+            last = prev;
+        }
+        waypoints[visitCount] = goalCell;
+        waypointTargets[visitCount] = goal;
+        final int[] path = this.expandPath(waypoints, waypointTargets, bestSteps);
+        return new Route(waypoints, waypointTargets, path, bestSteps, this.countCoins(mapData, path));
+    }
+
+    /**
+     * path のマスにあるコインの数を返す。同じマスを何度か通る場合も一枚と数える。
+     */
+    private int countCoins(MapData mapData, int[] path) {
+        int count = 0;
+        for (final int cell : path) {
+            if (mapData.getItemTypeAt(cell) == ItemType.COIN && !countedCells.get(cell)) {
+                countedCells.set(cell);
+                ++count;
+            }
+        }
+        for (final int cell : path) {
+            countedCells.clear(cell);
+        }
+        return count;
+    }
+
+    /**
+     * 始点から waypoints を順に辿るときに歩くマスの列 (始点を含まない) を返す。
+     * 区間 (a → b) は、 a を根とする距離場を b から根へ辿り、逆向きに並べる。
+     */
+    private int[] expandPath(int[] waypoints, int[] waypointTargets, int steps) {
+        final int[] path = new int[steps];
+        int end = 0;
+        int from = 0;
+        for (int k = 0; k < waypoints.length; ++k) {
+            final DistanceField field = fields[from];
+            final int legLength = field.getDistance(waypoints[k]);
+            int cell = waypoints[k];
+            for (int i = end + legLength - 1; i >= end; --i) {
+                path[i] = cell;
+                cell = field.nextCellTowardRoot(cell);
+            }
+            end += legLength;
+            from = waypointTargets[k];
+        }
+        return path;
+    }
+
+    /**
+     * ソルバーが求めたルート。
+     */
+    public static class Route {
+        static final Route NOT_FOUND = new Route(new int[0], new int[0], new int[0], -1, 0);
+
+        private final int[] waypoints;
+        private final int[] waypointTargets;
+        private final int[] path;
+        private final int steps;
+        private final int coinCount;
+
+        Route(int[] waypoints, int[] waypointTargets, int[] path, int steps, int coinCount) {
+            this.waypoints = waypoints;
+            this.waypointTargets = waypointTargets;
+            this.path = path;
+            this.steps = steps;
+            this.coinCount = coinCount;
+        }
+
+        /**
+         * ルートが見つかったなら true を返す。カギやゴールに歩いて行けなければ false を返す。
+         */
+        public boolean isFound() {
+            return steps >= 0;
+        }
+
+        /**
+         * 訪れる目標 (カギ、コイン、最後にゴール) のセル番号を、訪れる順に返す。
+         */
+        public int[] getWaypoints() {
+            return waypoints;
+        }
+
+        /**
+         * 始点の次のマスからゴールまで、歩くマスのセル番号を順に返す。
+         */
+        public int[] getPath() {
+            return path;
+        }
+
+        /**
+         * ルートの歩数を返す。ルートが見つからなければ -1 を返す。
+         */
+        public int getSteps() {
+            return steps;
+        }
+
+        /**
+         * ルートの上にあるコインの数を返す。
+         */
+        public int getCoinCount() {
+            return coinCount;
+        }
+
+        int[] getWaypointTargets() {
+            return waypointTargets;
+        }
+    }
+}
@@ -0,0 +1,294 @@
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * 暗闇と、それを照らす光を描画するクラス。
+ * <p>
+ * ビューポートを縦横 1/{@code scale} に縮小した明るさの配列 (ライトマップ) を用意し、光源毎に
+ * 前もって作っておいた円形の光のマスクを、明るい方を残すように重ねる。
+ * 最後に、明るさに応じた透明度の黒でライトマップを画像にし、ビューポートの大きさに拡大して一度だけ描画する。
+ * 拡大するときに補間されるので、光の縁は滑らかにぼける。
+ * <p>
+ * 光のマスクは、ライトマップ上の半径 (整数) 毎に一度だけ作ってキャッシュする。
+ * 半径が時間とともに変化しても、新しい半径のマスクを一度作るだけで、1フレームあたりの処理はライトマップの画素数に比例する。
+ * <p>
+ * 爆発などの一瞬だけ光るもの (フラッシュ) は {@link #flash} で登録すると、時間とともに半径が縮んで消える。
+ * <p>
+ * {@link #applyFieldOfView} で視界を重ねると、壁の陰になって見えないマスの光を消し、探索済みのマスを薄暗く残す。
+ */
+public class LightingCompositor {
+    // 光のマスクのうち、中心からこの割合の半径までは最も明るい。そこから縁に向かって暗くなる。
+    private static final double FULL_BRIGHT_RATIO = 0.7;
+    private static final long UNDEFINED_TIME = -1;
+
+    private final int scale;
+    private final int mapWidth;
+    private final int mapHeight;
+    private final int viewportWidth;
+    private final int viewportHeight;
+
+    // 明るさ (0: 真っ暗 〜 255: 暗闇なし)
+    private final int[] lightBuffer;
+    // lightBuffer を画像にした画素 (乗算済みアルファの ARGB)
+    private final int[] pixels;
+    private final WritableImage lightMapImage;
+    private final PixelFormat<IntBuffer> pixelFormat = PixelFormat.getIntArgbPreInstance();
+
+    // applyFieldOfView で使う、ライトマップの列・行毎のマスの列番号・行番号 (マップの外なら -1)
+    private final int[] cellColOfColumn;
+    private final int[] cellRowOfRow;
+
+    // maskByRadius[r] は、ライトマップ上の半径 r の光のマスク ((2r+1) x (2r+1) の明るさ)。必要になるまで作らない。
+    private byte[][] maskByRadius = new byte[64][];
+    private int cachedMaskCount = 0;
+
+    // 今のフレームのビューポートの左上 (マップの描画座標)
+    private double originX;
+    private double originY;
+
+    // フラッシュ。 [0, flashCount) が有効で、順序は保証しない。
+    private double[] flashX = new double[64];
+    private double[] flashY = new double[64];
+    private double[] flashRadius = new double[64];
+    private long[] flashStartTime = new long[64];
+    private long[] flashDurationNano = new long[64];
+    private int flashCount = 0;
+    private long now = UNDEFINED_TIME;
+
+    /**
+     * @param viewportWidth  暗闇を描画する範囲の横幅 (ピクセル)
+     * @param viewportHeight 暗闇を描画する範囲の高さ (ピクセル)
+     * @param scale          ライトマップの縮小率。大きいほど速いが、光の縁がぼける
+     */
+    public LightingCompositor(int viewportWidth, int viewportHeight, int scale) {
+        this.scale = scale;
+        this.viewportWidth = viewportWidth;
+        this.viewportHeight = viewportHeight;
+        this.mapWidth = (viewportWidth + scale - 1) / scale;
+        this.mapHeight = (viewportHeight + scale - 1) / scale;
+        this.lightBuffer = new int[mapWidth * mapHeight];
+        this.pixels = new int[mapWidth * mapHeight];
+        this.lightMapImage = new WritableImage(mapWidth, mapHeight);
+        this.cellColOfColumn = new int[mapWidth];
+        this.cellRowOfRow = new int[mapHeight];
+    }
+
+    /**
+     * フラッシュの経過時間を進め、消えたフラッシュを取り除く。フェーズの update() から毎フレーム呼び出す。
+     *
+     * @param now 現在時刻(ナノ秒)
+     */
+    public void update(long now) {
+        this.now = now;
+        for (int i = flashCount - 1; i >= 0; --i) {
+            if (flashStartTime[i] == UNDEFINED_TIME) {
+                flashStartTime[i] = now;
+            }
+            if (now - flashStartTime[i] >= flashDurationNano[i]) {
+                this.removeFlash(i);
+            }
+        }
+    }
+
+    /**
+     * マップの描画座標 (x, y) に、半径 radius から durationMilli ミリ秒かけて縮んで消える光を登録する。
+     */
+    public void flash(double x, double y, double radius, long durationMilli) {
+        if (flashCount == flashX.length) {
+            final int n = flashCount * 2;
+            flashX = Arrays.copyOf(flashX, n);
+            flashY = Arrays.copyOf(flashY, n);
+            flashRadius = Arrays.copyOf(flashRadius, n);
+            flashStartTime = Arrays.copyOf(flashStartTime, n);
+            flashDurationNano = Arrays.copyOf(flashDurationNano, n);
+        }
+        flashX[flashCount] = x;
+        flashY[flashCount] = y;
+        flashRadius[flashCount] = radius;
+        flashStartTime[flashCount] = now;
+        flashDurationNano[flashCount] = durationMilli * 1000000L;
+        ++flashCount;
+    }
+
+    /**
+     * 全てのフラッシュを消す。
+     */
+    public void clearFlashes() {
+        flashCount = 0;
+    }
+
+    private void removeFlash(int i) {
+        final int last = --flashCount;
+        flashX[i] = flashX[last];
+        flashY[i] = flashY[last];
+        flashRadius[i] = flashRadius[last];
+        flashStartTime[i] = flashStartTime[last];
+        flashDurationNano[i] = flashDurationNano[last];
+    }
+
+    /**
+     * ライトマップを真っ暗にして、このフレームの光の重ね合わせを始める。
+     * 登録されているフラッシュは、この時点の大きさで重ねる。
+     *
+     * @param originX ビューポートの左上の x 座標 (マップの描画座標)
+     * @param originY ビューポートの左上の y 座標 (マップの描画座標)
+     */
+    public void begin(double originX, double originY) {
+        this.originX = originX;
+        this.originY = originY;
+        Arrays.fill(lightBuffer, 0);
+
+        for (int i = 0; i < flashCount; ++i) {
+            final long elapsed = (flashStartTime[i] == UNDEFINED_TIME) ? 0 : now - flashStartTime[i];
+            final double rest = 1.0 - (double) elapsed / flashDurationNano[i];
+            if (rest > 0) {
+                this.addLight(flashX[i], flashY[i], flashRadius[i] * rest);
+            }
+        }
+    }
+
+    /**
+     * マップの描画座標 (x, y) を中心とする半径 radius の光を重ねる。
+     */
+    public void addLight(double x, double y, double radius) {
+        final int r = (int) Math.round(radius / scale);
+        if (r <= 0) return;
+
+        final byte[] mask = this.getMask(r);
+        final int size = 2 * r + 1;
+        final int left = (int) Math.round((x - originX) / scale) - r;
+        final int top = (int) Math.round((y - originY) / scale) - r;
+
+        // ライトマップからはみ出る部分は重ねない
+        final int x0 = Math.max(0, -left);
+        final int y0 = Math.max(0, -top);
+        final int x1 = Math.min(size, mapWidth - left);
+        final int y1 = Math.min(size, mapHeight - top);
+        for (int my = y0; my < y1; ++my) {
+            int dst = (top + my) * mapWidth + left + x0;
+            int src = my * size + x0;
+            for (int mx = x0; mx < x1; ++mx, ++dst, ++src) {
+                final int light = mask[src] & 0xFF;
+                if (light > lightBuffer[dst]) {
+                    lightBuffer[dst] = light;
+                }
+            }
+        }
+    }
+
+    /**
+     * 視界 fieldOfView に合わせてライトマップを調整する。光を全て重ねた後、 {@link #draw} の前に呼び出す。
+     * 見えているマスは光の明るさのまま (ただし rememberedLight より暗くはしない)、
+     * 見えていないが探索済みのマスは rememberedLight の明るさ、まだ見ていないマスとマップの外は真っ暗にする。
+     *
+     * @param fieldOfView     視界
+     * @param mapLeftX        マップの左端の x 座標 (マップの描画座標)
+     * @param mapTopY         マップの上端の y 座標 (マップの描画座標)
+     * @param cellSize        マスの大きさ (ピクセル)
+     * @param rememberedLight 探索済みのマスの明るさ (0 〜 255)
+     */
+    public void applyFieldOfView(FieldOfView fieldOfView, double mapLeftX, double mapTopY, int cellSize, int rememberedLight) {
+        final int ncol = fieldOfView.getColumnCount();
+        final int nrow = fieldOfView.getRowCount();
+
+        // ライトマップの画素の中心がどのマスに入るかは、列と行で独立に決まる
+        for (int mx = 0; mx < mapWidth; ++mx) {
+            final int col = (int) Math.floor((originX + (mx + 0.5) * scale - mapLeftX) / cellSize);
+            cellColOfColumn[mx] = (0 <= col && col < ncol) ? col : -1;
+        }
+        for (int my = 0; my < mapHeight; ++my) {
+            final int row = (int) Math.floor((originY + (my + 0.5) * scale - mapTopY) / cellSize);
+            cellRowOfRow[my] = (0 <= row && row < nrow) ? row : -1;
+        }
+
+        int i = 0;
+        for (int my = 0; my < mapHeight; ++my) {
+            final int row = cellRowOfRow[my];
+            for (int mx = 0; mx < mapWidth; ++mx, ++i) {
+                final int col = cellColOfColumn[mx];
+                if (row < 0 || col < 0) {
+                    lightBuffer[i] = 0;
+                    continue;
+                }
+                final int cell = row * ncol + col;
+                if (fieldOfView.isVisible(cell)) {
+                    lightBuffer[i] = Math.max(lightBuffer[i], rememberedLight);
+                } else {
+                    lightBuffer[i] = fieldOfView.isExplored(cell) ? rememberedLight : 0;
+                }
+            }
+        }
+    }
+
+    /**
+     * 重ね合わせたライトマップを暗闇の画像にして、ビューポートに拡大して描画する。
+     * gc はマップの描画座標で描画するように設定しておくこと。
+     */
+    public void draw(GraphicsContext gc) {
+        for (int i = 0; i < pixels.length; ++i) {
+            // 黒の乗算済みアルファなので、色の成分は 0 のまま
+            pixels[i] = (255 - lightBuffer[i]) << 24;
+        }
+        lightMapImage.getPixelWriter().setPixels(0, 0, mapWidth, mapHeight, pixelFormat, pixels, 0, mapWidth);
+        gc.drawImage(lightMapImage, originX, originY, mapWidth * scale, mapHeight * scale);
+    }
+
+    /**
+     * ライトマップ上の半径 r の光のマスクを返す。初めての半径なら作ってキャッシュする。
+     */
+    private byte[] getMask(int r) {
+        if (r >= maskByRadius.length) {
+            maskByRadius = Arrays.copyOf(maskByRadius, Math.max(r + 1, maskByRadius.length * 2));
+        }
+        if (maskByRadius[r] == null) {
+            maskByRadius[r] = createMask(r);
+            ++cachedMaskCount;
+        }
+        return maskByRadius[r];
+    }
+
+    /**
+     * 半径 r の光のマスクを作る。中心から FULL_BRIGHT_RATIO * r までは 255 で、そこから縁に向かって滑らかに 0 になる。
+     */
+    private static byte[] createMask(int r) {
+        final int size = 2 * r + 1;
+        final byte[] mask = new byte[size * size];
+        final double inner = r * FULL_BRIGHT_RATIO;
+        for (int y = 0; y < size; ++y) {
+            for (int x = 0; x < size; ++x) {
+                final double d = Math.hypot(x - r, y - r);
+                final double t = (d <= inner) ? 1.0 : Math.max(0.0, (r - d) / (r - inner));
+                // smoothstep で縁をなだらかにする
+                final double light = t * t * (3 - 2 * t);
+                mask[y * size + x] = (byte) Math.round(light * 255);
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * キャッシュしている光のマスクの個数を返す。
+     */
+    public int getCachedMaskCount() {
+        return cachedMaskCount;
+    }
+
+    /**
+     * 登録されているフラッシュの個数を返す。
+     */
+    public int getFlashCount() {
+        return flashCount;
+    }
+
+    public int getViewportWidth() {
+        return viewportWidth;
+    }
+
+    public int getViewportHeight() {
+        return viewportHeight;
+    }
+}
@@ -1,6 +1,10 @@
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
+import java.util.Random;
+import java.util.function.IntPredicate;
 import java.util.function.Predicate;
 
 /**
@@ -10,30 +14,80 @@ import java.util.function.Predicate;
  * また、左から x マス目、上から y マス目のセルを セル(x, y) と表すことにする。
  * <p>
  * x, y は 0 から始まる (0-indexed)。
+ * <p>
+ * セル(x, y) には セル番号 y * width + x が対応する。
+ * 各セルの種類とアイテムの種類は、セル番号の順に並んだ一つの byte 配列に詰めて保持している。
+ * 1バイトの下位4ビットが {@link CellType} の ordinal、上位4ビットが {@link ItemType} の ordinal である。
+ * <p>
+ * また、アイテムの種類毎に「そのアイテムが置かれているセル番号の集合」をビット集合で保持しているので、
+ * マップ全体を走査せずにアイテムを数えたり列挙したりできる。
  */
 public class MapData {
-    private final CellType[][] cellTypeGrid;
-    private final ItemType[][] itemTypeGrid;
+    // 上下左右の4方向。 (DIR_X[i], DIR_Y[i]) が i 番目の方向を表す。
+    private static final int[] DIR_X = {0, 0, -1, 1};
+    private static final int[] DIR_Y = {1, -1, 0, 0};
+
+    private static final CellType[] CELL_TYPES = CellType.values();
+    private static final ItemType[] ITEM_TYPES = ItemType.values();
+    private static final int CELL_TYPE_MASK = 0x0F;
+    private static final int ITEM_TYPE_SHIFT = 4;
+    private static final int ITEM_TYPE_MASK = 0x0F << ITEM_TYPE_SHIFT;
+
+    // MOVABLE[ordinal] は、その ordinal の CellType が通行可能なら true
+    private static final boolean[] MOVABLE = new boolean[CELL_TYPES.length];
+
+    static {
+        for (CellType cellType : CELL_TYPES) {
+            MOVABLE[cellType.ordinal()] = cellType.isMovable();
+        }
+    }
+
+    private final byte[] cells;
+
+    // itemCellBits[ordinal] は、その ordinal の ItemType が置かれているセル番号の集合。
+    // itemCounts[ordinal] はその要素数。 ItemType.NONE については保持しない。
+    private final BitSet[] itemCellBits = new BitSet[ITEM_TYPES.length];
+    private final int[] itemCounts = new int[ITEM_TYPES.length];
     private final int width;
     private final int height;
-    private final int playerStartX = 1;
-    private final int playerStartY = 1;
+    private final int playerStartX;
+    private final int playerStartY;
+    private final long seed;
+    private final Random random;
 
     private int goalX;
     private int goalY;
     private boolean isGoalOpen = false;
 
+    // ゴールを根とした距離場。必要になるまで作らない。
+    private DistanceField goalDistanceField = null;
+    private boolean isGoalDistanceFieldDirty = true;
+    private final IntPredicate isMovableCell = this::isMovableAt;
+
+    private final List<CellChangeListener> cellChangeListeners = new ArrayList<>();
+
     /**
      * 縦 height マス、横 width マスからなるマップデータを生成し、迷路を構築する。
+     * 乱数のシードは毎回ランダムに決まる。
      *
      * @param width  マップの列数
      * @param height マップの行数
      */
     public MapData(int width, int height) {
-        this.width = width;
-        this.height = height;
-        this.cellTypeGrid = new CellType[height][width];
-        this.itemTypeGrid = new ItemType[height][width];
+        this(width, height, new Random().nextLong());
+    }
+
+    /**
+     * 縦 height マス、横 width マスからなるマップデータを、シード seed の乱数で生成し、迷路を構築する。
+     * 同じ width, height, seed を与えれば、常に同じ迷路・ゴール位置・アイテム配置になる。
+     *
+     * @param width  マップの列数
+     * @param height マップの行数
+     * @param seed   迷路生成に使う乱数のシード
+     */
+    public MapData(int width, int height, long seed) {
+        this(width, height, seed, 1, 1);
+        Arrays.fill(this.cells, (byte) (ItemType.NONE.ordinal() << ITEM_TYPE_SHIFT));
 
         this.fillMap(CellType.BREAKABLE_BLOCK);
         this.digMap(1, 3);
@@ -46,6 +100,65 @@ public class MapData {
         this.placeCoins(12);
     }
 
+    /**
+     * 迷路を構築せずに、マップデータの入れ物だけを用意する。セルの配列の中身は呼び出し側で埋めること。
+     */
+    private MapData(int width, int height, long seed, int playerStartX, int playerStartY) {
+        this.width = width;
+        this.height = height;
+        this.seed = seed;
+        this.random = new Random(seed);
+        this.playerStartX = playerStartX;
+        this.playerStartY = playerStartY;
+        this.cells = new byte[width * height];
+        for (ItemType itemType : ITEM_TYPES) {
+            if (itemType != ItemType.NONE) {
+                this.itemCellBits[itemType.ordinal()] = new BitSet(width * height);
+            }
+        }
+    }
+
+    /**
+     * 詰めた形式のセルの配列 (クラスの説明を参照) から、マップデータを復元する。 {@link MapFormat} が使う。
+     * packedCells の現在位置から width * height バイトを読み込む。
+     *
+     * @throws IllegalArgumentException 範囲外の座標や、存在しないセル・アイテムの種類が含まれていた場合
+     */
+    static MapData fromPackedCells(int width, int height, long seed, int playerStartX, int playerStartY,
+                                   int goalX, int goalY, ByteBuffer packedCells) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Illegal map size: " + width + "x" + height);
+        }
+        if (playerStartX < 0 || width <= playerStartX || playerStartY < 0 || height <= playerStartY
+                || goalX < 0 || width <= goalX || goalY < 0 || height <= goalY) {
+            throw new IllegalArgumentException("Start or goal is out of the map");
+        }
+
+        final MapData mapData = new MapData(width, height, seed, playerStartX, playerStartY);
+        packedCells.get(mapData.cells);
+        for (int i = 0; i < mapData.cells.length; ++i) {
+            final int cellOrdinal = mapData.cells[i] & CELL_TYPE_MASK;
+            final int itemOrdinal = (mapData.cells[i] & ITEM_TYPE_MASK) >>> ITEM_TYPE_SHIFT;
+            if (cellOrdinal >= CELL_TYPES.length || itemOrdinal >= ITEM_TYPES.length) {
+                throw new IllegalArgumentException("Illegal cell value at " + i + ": " + mapData.cells[i]);
+            }
+            if (ITEM_TYPES[itemOrdinal] != ItemType.NONE) {
+                mapData.itemCellBits[itemOrdinal].set(i);
+                ++mapData.itemCounts[itemOrdinal];
+            }
+        }
+        mapData.goalX = goalX;
+        mapData.goalY = goalY;
+        return mapData;
+    }
+
+    /**
+     * 詰めた形式のセルの配列を、 dst の現在位置に width * height バイト書き込む。 {@link MapFormat} が使う。
+     */
+    void writePackedCells(ByteBuffer dst) {
+        dst.put(cells);
+    }
+
     /**
      * マップの縦のマス数 (=行数) を返す。
      *
@@ -64,6 +177,15 @@ public class MapData {
         return width;
     }
 
+    /**
+     * このマップの生成に使った乱数のシードを返す。
+     *
+     * @return 乱数のシード
+     */
+    public long getSeed() {
+        return seed;
+    }
+
     public int getPlayerStartX() {
         return playerStartX;
     }
@@ -84,6 +206,64 @@ public class MapData {
         return new Pos(goalX, goalY);
     }
 
+    /**
+     * セル(x, y) のセル番号 y * width + x を返す。
+     *
+     * @param x 列番号
+     * @param y 行番号
+     * @return セル番号
+     */
+    public int toCellIndex(int x, int y) {
+        return y * width + x;
+    }
+
+    /**
+     * セル番号 cellIndex の列番号を返す。
+     */
+    public int getCellX(int cellIndex) {
+        return cellIndex % width;
+    }
+
+    /**
+     * セル番号 cellIndex の行番号を返す。
+     */
+    public int getCellY(int cellIndex) {
+        return cellIndex / width;
+    }
+
+    /**
+     * セル番号 cellIndex のセルの種類を返す。
+     * cellIndex は 0 <= cellIndex < width * height でなければならない。
+     *
+     * @param cellIndex セル番号
+     * @return セルの種類
+     */
+    public CellType getCellTypeAt(int cellIndex) {
+        return CELL_TYPES[cells[cellIndex] & CELL_TYPE_MASK];
+    }
+
+    /**
+     * セル番号 cellIndex のセルが通行可能なら true を返す。
+     * cellIndex は 0 <= cellIndex < width * height でなければならない。
+     *
+     * @param cellIndex セル番号
+     * @return セルが通行可能なら true
+     */
+    public boolean isMovableAt(int cellIndex) {
+        return MOVABLE[cells[cellIndex] & CELL_TYPE_MASK];
+    }
+
+    /**
+     * セル番号 cellIndex のアイテムの種類を返す。
+     * cellIndex は 0 <= cellIndex < width * height でなければならない。
+     *
+     * @param cellIndex セル番号
+     * @return アイテムの種類
+     */
+    public ItemType getItemTypeAt(int cellIndex) {
+        return ITEM_TYPES[(cells[cellIndex] & ITEM_TYPE_MASK) >>> ITEM_TYPE_SHIFT];
+    }
+
     public boolean isGoalOpen() {
         return isGoalOpen;
     }
@@ -105,23 +285,77 @@ public class MapData {
         if (x < 0 || width <= x || y < 0 || height <= y) {
             return CellType.ILLEGAL;
         }
-        return cellTypeGrid[y][x];
+        return getCellTypeAt(y * width + x);
     }
 
     /**
      * セル(x, y) の種類を設定する。
      * x, y は 0-indexed。
-     * 指定したマスの位置がマップの範囲を超える場合は例外を投げずに何もしない。
+     * 指定したマスが外周のマスであるか、マップの範囲を超える場合は例外を投げずに何もしない。
      *
      * @param x        設定するセルの列番号
      * @param y        設定するセルの行番号
      * @param cellType 設定するセルの種類
      */
     public void setCellType(int x, int y, CellType cellType) {
-        if (x < 1 || width <= x - 1 || y < 1 || height <= y - 1) {
+        if (x < 1 || width - 1 <= x || y < 1 || height - 1 <= y) {
             return;
         }
-        cellTypeGrid[y][x] = cellType;
+        final int i = y * width + x;
+        final boolean wasMovable = isMovableAt(i);
+        final boolean hasChanged = getCellTypeAt(i) != cellType;
+        cells[i] = (byte) ((cells[i] & ITEM_TYPE_MASK) | cellType.ordinal());
+
+        // ゴールからの距離場を更新する。
+        // マスが通れるようになった場合は差分更新し、通れなくなった場合は次に必要になったときに作り直す。
+        if (wasMovable != cellType.isMovable() && !isGoalDistanceFieldDirty) {
+            if (cellType.isMovable()) {
+                goalDistanceField.onCellOpened(i, isMovableCell);
+            } else {
+                isGoalDistanceFieldDirty = true;
+            }
+        }
+
+        if (hasChanged) {
+            notifyCellChanged(i);
+        }
+    }
+
+    /**
+     * セルの種類が変化したときに通知を受け取るリスナーを登録する。
+     *
+     * @param listener 登録するリスナー
+     */
+    public void addCellChangeListener(CellChangeListener listener) {
+        cellChangeListeners.add(listener);
+    }
+
+    /**
+     * 登録済みのリスナーを解除する。
+     *
+     * @param listener 解除するリスナー
+     */
+    public void removeCellChangeListener(CellChangeListener listener) {
+        cellChangeListeners.remove(listener);
+    }
+
+    private void notifyCellChanged(int cellIndex) {
+        final int x = cellIndex % width;
+        final int y = cellIndex / width;
+        final CellType cellType = getCellTypeAt(cellIndex);
+        for (int k = 0; k < cellChangeListeners.size(); ++k) {
+            cellChangeListeners.get(k).onCellChanged(x, y, cellType);
+        }
+    }
+
+    /**
+     * リスナーが登録されていれば、全てのセルについて変化を通知する。
+     */
+    private void notifyAllCellsChanged() {
+        if (cellChangeListeners.isEmpty()) return;
+        for (int i = 0; i < cells.length; ++i) {
+            notifyCellChanged(i);
+        }
     }
 
     /**
@@ -134,19 +368,64 @@ public class MapData {
      * @return x列y行目のアイテムの種類
      */
     public ItemType getItemType(int x, int y) {
-        return itemTypeGrid[y][x];
+        return getItemTypeAt(y * width + x);
     }
 
     /**
      * セル(x, y) のアイテムの種類を設定する。
      * x, y は 0-indexed。
+     * 指定したマスの位置がマップの範囲を超える場合は例外を投げずに何もしない。
      *
      * @param x        設定するアイテムの列番号
      * @param y        設定するアイテムの行番号
      * @param itemType 設定するアイテムの種類
      */
     public void setItemType(int x, int y, ItemType itemType) {
-        itemTypeGrid[y][x] = itemType;
+        if (x < 0 || width <= x || y < 0 || height <= y) {
+            return;
+        }
+        final int i = y * width + x;
+        final ItemType oldItemType = getItemTypeAt(i);
+        if (oldItemType == itemType) return;
+
+        cells[i] = (byte) ((cells[i] & CELL_TYPE_MASK) | (itemType.ordinal() << ITEM_TYPE_SHIFT));
+
+        if (oldItemType != ItemType.NONE) {
+            itemCellBits[oldItemType.ordinal()].clear(i);
+            --itemCounts[oldItemType.ordinal()];
+        }
+        if (itemType != ItemType.NONE) {
+            itemCellBits[itemType.ordinal()].set(i);
+            ++itemCounts[itemType.ordinal()];
+        }
+    }
+
+    /**
+     * マップ上に置かれている itemType のアイテムの個数を返す。
+     * マップを走査せずに O(1) で求まる。
+     *
+     * @param itemType アイテムの種類 ({@link ItemType#NONE} 以外)
+     * @return アイテムの個数
+     */
+    public int countItems(ItemType itemType) {
+        return itemCounts[itemType.ordinal()];
+    }
+
+    /**
+     * セル番号が fromCellIndex 以上のセルのうち、 itemType のアイテムが置かれている最小のセル番号を返す。
+     * 該当するセルが無ければ -1 を返す。
+     * <p>
+     * 次のようにすると、マップ全体を走査せずにアイテムの置かれたセルを列挙できる。
+     * <pre>
+     * for (int i = mapData.nextItemCell(type, 0); i >= 0; i = mapData.nextItemCell(type, i + 1)) { ... }
+     * </pre>
+     *
+     * @param itemType      アイテムの種類 ({@link ItemType#NONE} 以外)
+     * @param fromCellIndex 探し始めるセル番号 (範囲に含む)
+     * @return アイテムが置かれているセル番号
+     */
+    public int nextItemCell(ItemType itemType, int fromCellIndex) {
+        return itemCellBits[itemType.ordinal()].nextSetBit(fromCellIndex);
     }
 
     /**
@@ -155,66 +434,102 @@ public class MapData {
      * @param fillValue 塗りつぶす値
      */
     public void fillMap(CellType fillValue) {
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                cellTypeGrid[y][x] = fillValue;
-            }
+        for (int i = 0; i < cells.length; ++i) {
+            cells[i] = (byte) ((cells[i] & ITEM_TYPE_MASK) | fillValue.ordinal());
         }
+        isGoalDistanceFieldDirty = true;
+        notifyAllCellsChanged();
     }
 
     /**
      * マップ上のアイテムを空にする。
      */
     public void clearItem() {
-        for (int y = 0; y < height; ++y) {
-            for (int x = 0; x < width; ++x) {
-                itemTypeGrid[y][x] = ItemType.NONE;
+        final int none = ItemType.NONE.ordinal() << ITEM_TYPE_SHIFT;
+        for (int i = 0; i < cells.length; ++i) {
+            cells[i] = (byte) ((cells[i] & CELL_TYPE_MASK) | none);
+        }
+        for (ItemType itemType : ITEM_TYPES) {
+            if (itemType != ItemType.NONE) {
+                itemCellBits[itemType.ordinal()].clear();
+                itemCounts[itemType.ordinal()] = 0;
             }
         }
     }
 
     public void fillOuterWall() {
+        final int wall = CellType.WALL.ordinal();
         for (int y = 0; y < height; ++y) {
-            cellTypeGrid[y][0] = CellType.WALL;
-            cellTypeGrid[y][width - 1] = CellType.WALL;
+            final int left = y * width;
+            final int right = left + width - 1;
+            cells[left] = (byte) ((cells[left] & ITEM_TYPE_MASK) | wall);
+            cells[right] = (byte) ((cells[right] & ITEM_TYPE_MASK) | wall);
         }
         for (int x = 0; x < width; ++x) {
-            cellTypeGrid[0][x] = CellType.WALL;
-            cellTypeGrid[height - 1][x] = CellType.WALL;
+            final int top = x;
+            final int bottom = (height - 1) * width + x;
+            cells[top] = (byte) ((cells[top] & ITEM_TYPE_MASK) | wall);
+            cells[bottom] = (byte) ((cells[bottom] & ITEM_TYPE_MASK) | wall);
         }
+        isGoalDistanceFieldDirty = true;
+        notifyAllCellsChanged();
     }
 
     /**
-     * 迷路の通り道を セル(x, y) から再帰的に作る。
+     * 迷路の通り道を セル(startX, startY) から穴掘り法で作る。
+     * <p>
+     * 再帰を使わず、掘り進めたセルを明示的なスタック (int 配列) に積んで処理する。
+     * スタックに積まれるのは startX, startY と偶奇が同じセルだけで、各セルは高々一度しか積まれないので、
+     * 巨大なマップでも StackOverflowError にならず、使用メモリもマップの大きさに比例する量で抑えられる。
      *
-     * @param x 列番号
-     * @param y 行番号
+     * @param startX 掘り始めるセルの列番号
+     * @param startY 掘り始めるセルの行番号
      */
-    public void digMap(int x, int y) {
-        setCellType(x, y, CellType.SPACE);
-        final int[][] dl = {{0, 1}, {0, -1}, {-1, 0}, {1, 0}};
-
-        // Shuffle dl[]
-        for (int i = 0; i < dl.length; i++) {
-            // swap (dl[i]) and (dl[k])
-            final int k = (int) (Math.random() * dl.length);
-            final int[] tmp = dl[i];
-            dl[i] = dl[k];
-            dl[k] = tmp;
-        }
+    public void digMap(int startX, int startY) {
+        setCellType(startX, startY, CellType.SPACE);
+
+        final int[] stack = new int[((width + 1) / 2) * ((height + 1) / 2) + 1];
+        final int[] candidates = new int[DIR_X.length];
+        int top = 0;
+        stack[top++] = startY * width + startX;
+
+        while (top > 0) {
+            final int x = stack[top - 1] % width;
+            final int y = stack[top - 1] / width;
+
+            // 2マス先がまだ掘られていない方向を候補として集める
+            int candidateCount = 0;
+            for (int d = 0; d < DIR_X.length; ++d) {
+                if (isDiggable(x + DIR_X[d] * 2, y + DIR_Y[d] * 2)) {
+                    candidates[candidateCount++] = d;
+                }
+            }
 
-        // シャッフルした順で上下左右の4方向へ道を掘る
-        for (int[] direction : dl) {
-            final int dx = direction[0];
-            final int dy = direction[1];
-            final CellType c = getCellType(x + dx * 2, y + dy * 2);
-            if (c != CellType.ILLEGAL && !c.isMovable()) {
-                setCellType(x + dx, y + dy, CellType.SPACE);
-                digMap(x + dx * 2, y + dy * 2);
+            // 掘れる方向が無ければ一つ前のセルへ戻る
+            if (candidateCount == 0) {
+                --top;
+                continue;
             }
+
+            // 候補の中からランダムに選んだ方向へ2マス掘り進める
+            final int d = candidates[random.nextInt(candidateCount)];
+            final int nx = x + DIR_X[d] * 2;
+            final int ny = y + DIR_Y[d] * 2;
+            setCellType(x + DIR_X[d], y + DIR_Y[d], CellType.SPACE);
+            setCellType(nx, ny, CellType.SPACE);
+            stack[top++] = ny * width + nx;
         }
     }
 
+    /**
+     * digMap() で セル(x, y) をこれから掘ることができるなら true を返す。
+     */
+    private boolean isDiggable(int x, int y) {
+        // 外周のマスは setCellType() で書き換えられないので掘らない
+        if (x < 1 || width - 1 <= x || y < 1 || height - 1 <= y) return false;
+        return !getCellType(x, y).isMovable();
+    }
+
     /**
      * セル(col, row) が、空白マスかつスタート位置でもなくゴール位置でもなくアイテムも配置されていないなら true を返す。
      * そうでなければ false を返す。
@@ -230,59 +545,61 @@ public class MapData {
                 && getItemType(col, row) == ItemType.NONE;
     }
 
-    private boolean isEmptyPos(Pos pos) {
-        return isEmptyPos(pos.col, pos.row);
-    }
-
     public void placeKeys() {
         final int midX = this.width / 2;
         final int midY = this.height / 2;
 
         // 右上のエリアにキーを一つランダムに配置
-        {
-            final List<Pos> poses =
-                    this.listUpCellPositions(midX + 1, width, 0, midY - 1, this::isEmptyPos);
-            final Pos p = randomChoice(poses);
-            this.setItemType(p.col, p.row, ItemType.KEY);
-        }
+        placeItemAtRandomCell(midX + 1, width, 0, midY - 1, ItemType.KEY);
 
         // 右下のエリアにキーを一つランダムに配置
-        {
-            final List<Pos> poses =
-                    this.listUpCellPositions(midX + 1, width, midY + 1, height, this::isEmptyPos);
-            final Pos p = randomChoice(poses);
-            this.setItemType(p.col, p.row, ItemType.KEY);
-        }
+        placeItemAtRandomCell(midX + 1, width, midY + 1, height, ItemType.KEY);
 
         // 左のエリアにキーを一つランダムに配置
-        {
-            final List<Pos> poses =
-                    this.listUpCellPositions(0, midX - 1, midY + 1, height, this::isEmptyPos);
-            final Pos p = randomChoice(poses);
-            this.setItemType(p.col, p.row, ItemType.KEY);
-        }
+        placeItemAtRandomCell(0, midX - 1, midY + 1, height, ItemType.KEY);
     }
 
-    public void placeCoins(int coinNum) {
-        final List<Pos> freeCells = this.listUpCellPositions(this::isEmptyPos);
-        Collections.shuffle(freeCells);
-
-        for (int i = 0; i < coinNum; ++i) {
-            final Pos p = freeCells.get(i);
-            this.setItemType(p.col, p.row, ItemType.COIN);
-        }
+    private void placeItemAtRandomCell(int minX, int maxX, int minY, int maxY, ItemType itemType) {
+        final int cell = pickRandomCell(minX, maxX, minY, maxY, this::isEmptyPos);
+        this.setItemType(cell % width, cell / width, itemType);
     }
 
-    public int countExistingKeys() {
-        int count = 0;
+    /**
+     * 空いているマスのうち coinNum 個をランダムに選んでコインを配置する。
+     * 空いているマスが coinNum 個未満なら、空いているマス全てにコインを配置する。
+     * <p>
+     * 候補のマスをリストに溜めてシャッフルするのではなく、
+     * 大きさ coinNum の配列を使ったリザーバサンプリングで選ぶ。
+     *
+     * @param coinNum 配置するコインの枚数
+     */
+    public void placeCoins(int coinNum) {
+        final int[] chosenCells = new int[coinNum];
+        int seenCount = 0;
+
         for (int y = 0; y < height; ++y) {
             for (int x = 0; x < width; ++x) {
-                if (getItemType(x, y) == ItemType.KEY) {
-                    ++count;
+                if (!isEmptyPos(x, y)) continue;
+
+                if (seenCount < coinNum) {
+                    chosenCells[seenCount] = y * width + x;
+                } else {
+                    final int k = random.nextInt(seenCount + 1);
+                    if (k < coinNum) {
+                        chosenCells[k] = y * width + x;
+                    }
                 }
+                ++seenCount;
             }
         }
-        return count;
+
+        for (int i = 0; i < Math.min(coinNum, seenCount); ++i) {
+            this.setItemType(chosenCells[i] % width, chosenCells[i] / width, ItemType.COIN);
+        }
+    }
+
+    public int countExistingKeys() {
+        return countItems(ItemType.KEY);
     }
 
     public int countRemovedKeys() {
@@ -293,37 +610,96 @@ public class MapData {
      * TODO 必須2 ゴールの配置
      */
     public void placeGoal() {
-        // ゴール位置の候補。要素を追加して長さを自由に変えられる配列。
-        List<Pos> goalCandidates = new ArrayList<>();
-
         // 外周は候補の探索に含めないので 0 <= y < height ではなく 1 <= y < height - 1。 x も同様。
-        for (int y = 1; y < height - 1; y++) {
-            for (int x = 1; x < width - 1; x++) {
+        // ゴール位置の候補 (周囲がコの字に壁で囲まれた空白マス) の中からランダムに一つ選んでゴール位置として設定
+        final int goalCell = pickRandomCell(1, width - 1, 1, height - 1, this::isGoalCandidate);
+        this.goalX = goalCell % width;
+        this.goalY = goalCell / width;
+        this.isGoalDistanceFieldDirty = true;
+    }
 
-                // 今見ているマスが壁ならば、ゴールを配置できないのでスキップ
-                if (getCellType(x, y) != CellType.SPACE) continue;
+    /**
+     * ゴールを根とした距離場を返す。
+     * 距離場はマップの変化に合わせて更新されるので、常に現在のマップでのゴールまでの最短距離を表す。
+     *
+     * @return ゴールを根とした距離場
+     */
+    public DistanceField getGoalDistanceField() {
+        if (goalDistanceField == null) {
+            goalDistanceField = new DistanceField(width, height);
+        }
+        if (isGoalDistanceFieldDirty) {
+            goalDistanceField.rebuild(toCellIndex(goalX, goalY), isMovableCell);
+            isGoalDistanceFieldDirty = false;
+        }
+        return goalDistanceField;
+    }
 
-                // プレイヤーのスタートマスにゴールは配置できないのでスキップ
-                if (y == getPlayerStartY() && x == getPlayerStartX()) continue;
+    /**
+     * セル(x, y) からゴールまでの最短距離 (歩数) を返す。
+     * ゴールへ到達できない場合は {@link DistanceField#UNREACHABLE} を返す。
+     *
+     * @param x 列番号
+     * @param y 行番号
+     * @return ゴールまでの最短距離
+     */
+    public int getGoalDistance(int x, int y) {
+        if (x < 0 || width <= x || y < 0 || height <= y) {
+            return DistanceField.UNREACHABLE;
+        }
+        return getGoalDistanceField().getDistance(toCellIndex(x, y));
+    }
+
+    /**
+     * セル(x, y) がゴールを配置できるマスなら true を返す。
+     */
+    private boolean isGoalCandidate(int x, int y) {
+        final int i = y * width + x;
+
+        // 今見ているマスが壁ならば、ゴールを配置できない
+        if ((cells[i] & CELL_TYPE_MASK) != CellType.SPACE.ordinal()) return false;
 
-                // 上下左右の壁の数を数える。
-                int wallCount = 0;
-                if (!getCellType(x + 1, y).isMovable()) wallCount++;
-                if (!getCellType(x - 1, y).isMovable()) wallCount++;
-                if (!getCellType(x, y + 1).isMovable()) wallCount++;
-                if (!getCellType(x, y - 1).isMovable()) wallCount++;
+        // プレイヤーのスタートマスにゴールは配置できない
+        if (y == getPlayerStartY() && x == getPlayerStartX()) return false;
 
-                // 周囲がコの字に壁で囲まれているならゴール候補に追加
-                if (wallCount == 3) {
-                    goalCandidates.add(new Pos(x, y));
+        // 上下左右の壁の数を数える。外周は候補に含めないので、隣のセルは必ずマップの範囲内にある。
+        int wallCount = 0;
+        if (!isMovableAt(i + 1)) wallCount++;
+        if (!isMovableAt(i - 1)) wallCount++;
+        if (!isMovableAt(i + width)) wallCount++;
+        if (!isMovableAt(i - width)) wallCount++;
+
+        // 周囲がコの字に壁で囲まれているならゴール候補
+        return wallCount == 3;
+    }
+
+    /**
+     * 列番号 x が (minX <= x < maxX) かつ 行番号 y が (minY <= y < maxY) の範囲内のセルのうち、
+     * cellPredicate が true になるセルを一様ランダムに一つ選び、そのセル番号 (y * width + x) を返す。
+     * <p>
+     * 候補をリストに溜めずにリザーバサンプリングで選ぶので、巨大なマップでも追加のメモリを必要としない。
+     *
+     * @throws IllegalStateException 条件を満たすセルが一つも無い場合
+     */
+    private int pickRandomCell(int minX, int maxX, int minY, int maxY, CellPredicate cellPredicate) {
+        int chosenCell = -1;
+        int seenCount = 0;
+
+        for (int y = Math.max(minY, 0); y < Math.min(maxY, height); ++y) {
+            for (int x = Math.max(minX, 0); x < Math.min(maxX, width); ++x) {
+                if (!cellPredicate.test(x, y)) continue;
+
+                ++seenCount;
+                if (random.nextInt(seenCount) == 0) {
+                    chosenCell = y * width + x;
                 }
             }
         }
 
-        // ゴール候補リストの中からランダムに一つ選んでゴール位置として設定
-        final Pos goalPos = randomChoice(goalCandidates);
-        this.goalX = goalPos.col;
-        this.goalY = goalPos.row;
+        if (chosenCell < 0) {
+            throw new IllegalStateException("No cell satisfies the predicate in the specified area");
+        }
+        return chosenCell;
     }
 
     /**
@@ -364,15 +740,11 @@ public class MapData {
     }
 
     /**
-     * リストの要素をランダムに一つ選んで返す。
-     *
-     * @param list リスト
-     * @param <T>  リストの要素の型
-     * @return ランダムに抽出されたリストの要素
+     * セル(x, y) についての述語。
+     * Predicate&lt;Pos&gt; と違い、セル毎に Pos を生成せずに済む。
      */
-    private static <T> T randomChoice(List<T> list) {
-        final int i = (int) (Math.random() * list.size());
-        return list.get(i);
+    @FunctionalInterface
+    private interface CellPredicate {
+        boolean test(int x, int y);
     }
 }
-
@@ -0,0 +1,130 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * {@link MapData} を保存・読み込みするためのバイナリ形式。JavaFX に依存しない。
+ * <p>
+ * 形式 (全てビッグエンディアン):
+ * <pre>
+ *     オフセット  大きさ  内容
+ *      0          4      マジックナンバー "BCMP"
+ *      4          2      形式のバージョン ({@value #VERSION})
+ *      6          2      フラグ (予約。 0)
+ *      8          2      横のマス数 width
+ *     10          2      縦のマス数 height
+ *     12          2      スタート位置の x
+ *     14          2      スタート位置の y
+ *     16          2      ゴールの x
+ *     18          2      ゴールの y
+ *     20          8      生成に使った乱数のシード
+ *     28          width * height  セル番号順のセル。1バイトの下位4ビットがセルの種類、上位4ビットがアイテムの種類の ordinal
+ * </pre>
+ * セルの並びは MapData が内部で持っている配列そのものなので、変換せずにそのまま読み書きできる。
+ * ゴールの扉が開いているかどうかなど、遊んでいる途中の状態は保存しない。
+ */
+public final class MapFormat {
+    public static final int MAGIC = 0x42434D50; // "BCMP"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 28;
+
+    private static final int MAX_SIDE = 0xFFFF;
+
+    private MapFormat() {
+    }
+
+    /**
+     * mapData を符号化したときのバイト数を返す。
+     */
+    public static int encodedSize(MapData mapData) {
+        return HEADER_SIZE + mapData.getWidth() * mapData.getHeight();
+    }
+
+    /**
+     * mapData を符号化して dst の現在位置に書き込む。 dst の位置は書き込んだバイト数だけ進む。
+     *
+     * @throws IllegalArgumentException マップが大きすぎて形式で表せない場合
+     */
+    public static void encode(MapData mapData, ByteBuffer dst) {
+        if (mapData.getWidth() > MAX_SIDE || mapData.getHeight() > MAX_SIDE
+                || (long) mapData.getWidth() * mapData.getHeight() > Integer.MAX_VALUE - HEADER_SIZE) {
+            throw new IllegalArgumentException("Map is too large: " + mapData.getWidth() + "x" + mapData.getHeight());
+        }
+
+        dst.putInt(MAGIC);
+        dst.putShort((short) VERSION);
+        dst.putShort((short) 0);
+        dst.putShort((short) mapData.getWidth());
+        dst.putShort((short) mapData.getHeight());
+        dst.putShort((short) mapData.getPlayerStartX());
+        dst.putShort((short) mapData.getPlayerStartY());
+        dst.putShort((short) mapData.getGoalX());
+        dst.putShort((short) mapData.getGoalY());
+        dst.putLong(mapData.getSeed());
+        mapData.writePackedCells(dst);
+    }
+
+    /**
+     * mapData を符号化したバイト列を返す。
+     */
+    public static byte[] encode(MapData mapData) {
+        final ByteBuffer buffer = ByteBuffer.allocate(encodedSize(mapData));
+        encode(mapData, buffer);
+        return buffer.array();
+    }
+
+    /**
+     * src の現在位置から一つのマップを復号する。 src の位置は読み込んだバイト数だけ進む。
+     *
+     * @throws IllegalArgumentException 形式が正しくない場合や、対応していないバージョンの場合
+     */
+    public static MapData decode(ByteBuffer src) {
+        if (src.remaining() < HEADER_SIZE) {
+            throw new IllegalArgumentException("Map data is truncated");
+        }
+        if (src.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a map data (bad magic number)");
+        }
+        final int version = Short.toUnsignedInt(src.getShort());
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported map format version: " + version);
+        }
+        src.getShort(); // フラグ (予約)
+
+        final int width = Short.toUnsignedInt(src.getShort());
+        final int height = Short.toUnsignedInt(src.getShort());
+        final int startX = Short.toUnsignedInt(src.getShort());
+        final int startY = Short.toUnsignedInt(src.getShort());
+        final int goalX = Short.toUnsignedInt(src.getShort());
+        final int goalY = Short.toUnsignedInt(src.getShort());
+        final long seed = src.getLong();
+        // 幅と高さはそれぞれ最大 65535 なので、積は int に収まらないことがある
+        if ((long) width * height > src.remaining()) {
+            throw new IllegalArgumentException("Map data is truncated (" + width + "x" + height + ")");
+        }
+        return MapData.fromPackedCells(width, height, seed, startX, startY, goalX, goalY, src);
+    }
+
+    /**
+     * mapData をファイル path に保存する。
+     *
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public static void write(Path path, MapData mapData) throws IOException {
+        Files.write(path, encode(mapData));
+    }
+
+    /**
+     * ファイル path からマップを読み込む。
+     *
+     * @throws IOException 読み込みに失敗した場合や、ファイルの形式が正しくない場合
+     */
+    public static MapData read(Path path) throws IOException {
+        try {
+            return decode(ByteBuffer.wrap(Files.readAllBytes(path)));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(path + ": " + e.getMessage(), e);
+        }
+    }
+}
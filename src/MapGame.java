@@ -1,9 +1,18 @@
 import javafx.application.Application;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
 public class MapGame extends Application {
     Stage stage;
 
+    // --replay FILE --watch で起動したときに、画面で再生するリプレイとその再生速度
+    private static ReplayLog replayToWatch = null;
+    private static int replaySpeed = 1;
+
     @Override
     public void start(Stage primaryStage) {
         stage = primaryStage;
@@ -12,10 +21,50 @@ public class MapGame extends Application {
         primaryStage.setScene(myScene);
         primaryStage.show();
 
-        myScene.startGame(new TitlePhase(myScene));
+        if (replayToWatch != null) {
+            myScene.startGame(MazePhase.forReplay(myScene, replayToWatch, replaySpeed));
+        } else {
+            myScene.startGame(new TitlePhase(myScene));
+        }
     }
 
     public static void main(String[] args) {
+        // --generate-batch が指定されたら、ウィンドウを開かずに迷路の一括生成だけを行う
+        if (Arrays.asList(args).contains("--generate-batch")) {
+            MazeBatchGenerator.main(args);
+            return;
+        }
+
+        // --replay FILE が指定されたら、リプレイを再現する。
+        // --watch も指定されていれば画面で --speed N 倍速で再生し、そうでなければウィンドウを開かずに最速で再現する。
+        final List<String> argList = Arrays.asList(args);
+        final int replayOptionIndex = argList.indexOf("--replay");
+        if (replayOptionIndex >= 0 && replayOptionIndex + 1 < args.length) {
+            if (!argList.contains("--watch")) {
+                ReplayPlayer.main(args);
+                return;
+            }
+            try {
+                replayToWatch = ReplayLog.read(Paths.get(args[replayOptionIndex + 1]));
+            } catch (IOException e) {
+                System.err.println("Failed to read replay: " + e.getMessage());
+                return;
+            }
+            final int speedOptionIndex = argList.indexOf("--speed");
+            if (speedOptionIndex >= 0 && speedOptionIndex + 1 < args.length) {
+                replaySpeed = Integer.parseInt(args[speedOptionIndex + 1]);
+            }
+        }
+
+        // --map-pack FILE が指定されたら、そのマップパックのマップを順に遊ぶ
+        final int packOptionIndex = Arrays.asList(args).indexOf("--map-pack");
+        if (packOptionIndex >= 0 && packOptionIndex + 1 < args.length) {
+            try {
+                MazePhase.useMapPack(MapPack.open(Paths.get(args[packOptionIndex + 1])));
+            } catch (IOException e) {
+                System.err.println("Failed to open map pack: " + e.getMessage());
+            }
+        }
         launch(args);
     }
 
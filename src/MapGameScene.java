@@ -3,21 +3,60 @@ import javafx.scene.Group;
 import javafx.scene.Scene;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.Pane;
 import javafx.scene.paint.Color;
 import javafx.stage.Stage;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
 public class MapGameScene extends Scene {
+    /**
+     * {@link Phase#fixedUpdate()} を呼び出す、ゲーム内時間一秒あたりの回数。
+     */
+    public static final int TICKS_PER_SECOND = MazeSimulation.TICKS_PER_SECOND;
+
+    // 1 フレームで追いつく tick 数の上限と、持ち越せる遅れの上限 (それ以上の遅れは捨てる)
+    private static final int MAX_TICKS_PER_FRAME = 8;
+    private static final long MAX_LAG_NANO = 250_000_000L;
+
+    // 遅れている間に、描画を続けて省略してよいフレーム数の上限
+    private static final int MAX_SKIPPED_DRAW_FRAMES = 4;
+
+    private static final DateTimeFormatter PROFILE_FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("'frame-profile-'yyyyMMdd-HHmmss'.csv'");
+
     private final Canvas canvas;
     private final Group otherComponents;
     private Phase phase;
 
+    // フレーム毎の処理時間の記録と、その表示パネル。記録は常に行い、パネルは F3 キーで表示を切り替える。
+    private final FrameProfiler frameProfiler;
+    private final PerformanceOverlay performanceOverlay;
+    private boolean isPerformanceOverlayVisible = false;
+
+    private final FixedTimestep fixedTimestep;
+    private int skippedDrawFrames = 0;
+
     private MapGameScene(Pane root) {
         super(root);
         this.canvas = new Canvas(MazePhase.getScreenWidth(), MazePhase.getScreenHeight());
         this.otherComponents = new Group();
         root.getChildren().add(this.canvas);
         root.getChildren().add(this.otherComponents);
+
+        this.fixedTimestep = new FixedTimestep(MazeSimulation.TICK_NANO, MAX_TICKS_PER_FRAME, MAX_LAG_NANO);
+
+        // ヘッダーのすぐ下、迷路エリアの右上に表示する
+        this.frameProfiler = new FrameProfiler();
+        this.performanceOverlay = new PerformanceOverlay(this.frameProfiler,
+                MazePhase.getScreenWidth() - 248, MazePhase.getHeaderPanelHeight() + 8);
+
+        // フェーズが setOnKeyPressed を差し替えても効くように、イベントフィルタで受け取る
+        this.addEventFilter(KeyEvent.KEY_PRESSED, this::handleProfilerKey);
     }
 
     public static MapGameScene create() {
@@ -33,10 +72,37 @@ public class MapGameScene extends Scene {
         AnimationTimer gameLoopTimer = new AnimationTimer() {
             @Override
             public void handle(long curTime) {
+                frameProfiler.beginFrame();
+
+                // アニメーションや遅延処理のタイマーを全て進め、
+                // 経過時間の分だけゲーム内時間を一定の刻みで進めてから、フェーズを更新する
+                FrameClock.getInstance().tick(curTime);
+                final int ticks = fixedTimestep.advance(curTime);
+                for (int i = 0; i < ticks; ++i) {
+                    phase.fixedUpdate();
+                }
                 phase.update(curTime);
-                gc.setFill(Color.WHITESMOKE);
-                gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
-                phase.draw(gc);
+                frameProfiler.endUpdate();
+
+                // ゲーム内時間が遅れている間は、追いつくことを優先して描画を省略する。
+                // ただし画面が止まって見えないよう、続けて省略するのは数フレームまでにする。
+                if (fixedTimestep.isBehind() && skippedDrawFrames < MAX_SKIPPED_DRAW_FRAMES) {
+                    ++skippedDrawFrames;
+                } else {
+                    skippedDrawFrames = 0;
+                    gc.setFill(Color.WHITESMOKE);
+                    gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+                    phase.draw(gc, fixedTimestep.getAlpha());
+                }
+
+                frameProfiler.addTimerCount(FrameClock.getInstance().getTimerCount());
+                phase.reportFrameStats(frameProfiler);
+                frameProfiler.endDraw();
+
+                // パネル自身の描画時間は記録に含めない
+                if (isPerformanceOverlayVisible) {
+                    performanceOverlay.draw(gc);
+                }
             }
         };
 
@@ -51,6 +117,45 @@ public class MapGameScene extends Scene {
         this.phase.tearDown();
         nextPhase.setup();
         this.phase = nextPhase;
+
+        // 次のフェーズの構築にかかった時間を、次のフェーズのゲーム内時間として数えないようにする
+        this.fixedTimestep.reset();
+    }
+
+    /**
+     * F3 キーで処理時間のパネルの表示を切り替え、 F4 キーで記録を CSV ファイルに書き出す。
+     */
+    private void handleProfilerKey(KeyEvent event) {
+        switch (event.getCode()) {
+            case F3:
+                this.isPerformanceOverlayVisible = !this.isPerformanceOverlayVisible;
+                break;
+
+            case F4:
+                this.exportFrameProfile();
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    /**
+     * 直近のフレームの記録を、カレントディレクトリの frame-profile-(日時).csv に書き出す。
+     */
+    private void exportFrameProfile() {
+        final Path path = Paths.get(LocalDateTime.now().format(PROFILE_FILE_NAME_FORMAT));
+        try {
+            this.frameProfiler.exportCsv(path);
+            this.performanceOverlay.setStatusMessage("saved: " + path);
+        } catch (IOException e) {
+            this.performanceOverlay.setStatusMessage("failed to save profile");
+            System.err.println("Failed to save frame profile: " + e.getMessage());
+        }
+    }
+
+    public FrameProfiler getFrameProfiler() {
+        return frameProfiler;
     }
 
     public Canvas getCanvas() {
@@ -0,0 +1,157 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * 多数のマップを一つにまとめたファイル (マップパック)。JavaFX に依存しない。
+ * <p>
+ * 形式 (全てビッグエンディアン):
+ * <pre>
+ *     オフセット  大きさ      内容
+ *      0          4          マジックナンバー "BCPK"
+ *      4          2          形式のバージョン ({@value #VERSION})
+ *      6          2          フラグ (予約。 0)
+ *      8          4          マップの数 n
+ *     12          12 * n     索引。マップ毎に、ファイル先頭からのオフセット (8 バイト) と長さ (4 バイト)
+ *     12 + 12n    ...        {@link MapFormat} で符号化したマップを順に並べたもの
+ * </pre>
+ * {@link #open(Path)} はファイルを {@link FileChannel#map} でメモリに対応付けるだけで、マップを読み込まない。
+ * {@link #get(int)} を呼んだときに初めて、そのマップの範囲だけを復号する。
+ * ファイルの内容はコピーせずに OS のページキャッシュから直接読むので、何千ものマップがあっても開くのは一瞬で済む。
+ * 対応付けはファイル全体を一つのバッファにするので、 2GB を超えるファイルは扱えない。
+ */
+public class MapPack {
+    public static final int MAGIC = 0x42435048; // "BCPK"
+    public static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 12;
+    private static final int INDEX_ENTRY_SIZE = 12;
+
+    private final MappedByteBuffer buffer;
+    private final int mapCount;
+
+    private MapPack(MappedByteBuffer buffer, int mapCount) {
+        this.buffer = buffer;
+        this.mapCount = mapCount;
+    }
+
+    /**
+     * マップパックのファイル path を開く。
+     *
+     * @throws IOException 読み込みに失敗した場合や、ファイルの形式が正しくない場合
+     */
+    public static MapPack open(Path path) throws IOException {
+        final MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(path + ": map pack is too large");
+            }
+            // 対応付けはチャネルを閉じた後も有効
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException(path + ": not a map pack (bad magic number)");
+        }
+        final int version = Short.toUnsignedInt(buffer.getShort(4));
+        if (version != VERSION) {
+            throw new IOException(path + ": unsupported map pack version: " + version);
+        }
+        final int mapCount = buffer.getInt(8);
+        if (mapCount < 0 || (long) HEADER_SIZE + (long) INDEX_ENTRY_SIZE * mapCount > buffer.capacity()) {
+            throw new IOException(path + ": map pack index is truncated");
+        }
+        return new MapPack(buffer, mapCount);
+    }
+
+    /**
+     * マップの数を返す。
+     */
+    public int size() {
+        return mapCount;
+    }
+
+    /**
+     * index 番目のマップを復号して返す。呼び出す度に新しい MapData を返す。
+     * 複数のスレッドから同時に呼び出してもよい。
+     *
+     * @throws IndexOutOfBoundsException index が範囲外の場合
+     * @throws IllegalArgumentException  マップの範囲や形式が正しくない場合
+     */
+    public MapData get(int index) {
+        return MapFormat.decode(this.slice(index));
+    }
+
+    /**
+     * index 番目のマップの符号化されたバイト列を、コピーせずに返す。
+     */
+    public ByteBuffer slice(int index) {
+        if (index < 0 || mapCount <= index) {
+            throw new IndexOutOfBoundsException("Map index " + index + " is out of [0, " + mapCount + ")");
+        }
+        final int entry = HEADER_SIZE + INDEX_ENTRY_SIZE * index;
+        final long offset = buffer.getLong(entry);
+        final int length = buffer.getInt(entry + 8);
+        if (offset < 0 || length < 0 || offset + length > buffer.capacity()) {
+            throw new IllegalArgumentException("Map " + index + " is out of the map pack");
+        }
+
+        // 位置と上限は呼び出し毎に複製したバッファで設定するので、元のバッファは書き換えない
+        final ByteBuffer view = buffer.duplicate();
+        view.limit((int) offset + length);
+        view.position((int) offset);
+        return view.slice();
+    }
+
+    /**
+     * maps を順にまとめたマップパックのファイルを path に書き出す。
+     *
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public static void write(Path path, List<MapData> maps) throws IOException {
+        final byte[][] encodedMaps = new byte[maps.size()][];
+        for (int i = 0; i < encodedMaps.length; ++i) {
+            encodedMaps[i] = MapFormat.encode(maps.get(i));
+        }
+        write(path, encodedMaps);
+    }
+
+    /**
+     * {@link MapFormat} で符号化済みのマップ encodedMaps を順にまとめたマップパックのファイルを path に書き出す。
+     *
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public static void write(Path path, byte[][] encodedMaps) throws IOException {
+        final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + INDEX_ENTRY_SIZE * encodedMaps.length);
+        header.putInt(MAGIC);
+        header.putShort((short) VERSION);
+        header.putShort((short) 0);
+        header.putInt(encodedMaps.length);
+
+        long offset = header.capacity();
+        for (final byte[] encodedMap : encodedMaps) {
+            header.putLong(offset);
+            header.putInt(encodedMap.length);
+            offset += encodedMap.length;
+        }
+        header.flip();
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, header);
+            for (final byte[] encodedMap : encodedMaps) {
+                writeFully(channel, ByteBuffer.wrap(encodedMap));
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer src) throws IOException {
+        while (src.hasRemaining()) {
+            channel.write(src);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 次に遊ぶマップを、別スレッドで前もって生成しておくクラス。
+ * <p>
+ * {@link #requestNext()} で生成を始めておくと、迷路を遊んでいる間に別スレッドで
+ * マップの生成 (迷路の掘削・アイテムとゴールの配置) とゴールからの距離場の計算が終わる。
+ * {@link #takeNext()} はできあがったマップを受け取り、すぐに次のマップの生成を始める。
+ * <p>
+ * 生成中の MapData は生成スレッドだけが触り、受け取った後は JavaFX のスレッドだけが触るので、
+ * MapData 自体はスレッドセーフである必要はない。
+ */
+public class MapPregenerator {
+    private final int width;
+    private final int height;
+    private final ExecutorService executor;
+    private Future<MapData> pending = null;
+
+    // 設定されていれば、ランダムに生成する代わりにこのマップパックのマップを順に使う
+    private MapPack mapPack = null;
+    private int nextPackIndex = 0;
+
+    /**
+     * 横 width マス、縦 height マスのマップを生成するスレッドを用意する。生成はまだ始めない。
+     */
+    public MapPregenerator(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            // 描画の邪魔をしないよう優先度を下げ、アプリケーションの終了を妨げないようにデーモンにする
+            final Thread thread = new Thread(runnable, "map-pregenerator");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * 以降のマップを、ランダムに生成する代わりにマップパック mapPack から先頭の順に取り出すようにする。
+     * 最後のマップの次は先頭に戻る。 {@link #requestNext()} より前に呼び出すこと。
+     */
+    public void useMapPack(MapPack mapPack) {
+        this.mapPack = (mapPack.size() > 0) ? mapPack : null;
+        this.nextPackIndex = 0;
+    }
+
+    /**
+     * 次のマップの生成を別スレッドで始める。生成中または生成済みのマップがあれば何もしない。
+     */
+    public void requestNext() {
+        if (pending != null) return;
+        pending = executor.submit(this::generate);
+    }
+
+    /**
+     * 前もって生成したマップを受け取り、その次のマップの生成を始める。
+     * 生成が終わっていなければ終わるまで待ち、生成を始めていなかった (または失敗した) 場合はこのスレッドで生成する。
+     */
+    public MapData takeNext() {
+        MapData mapData = null;
+        if (pending != null) {
+            try {
+                mapData = pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                System.err.println("Failed to pre-generate a map: " + e.getCause());
+            }
+            pending = null;
+        }
+        if (mapData == null) {
+            mapData = this.generate();
+        }
+
+        this.requestNext();
+        return mapData;
+    }
+
+    /**
+     * 次のマップの生成が終わっていれば true を返す。
+     */
+    public boolean isNextReady() {
+        return pending != null && pending.isDone();
+    }
+
+    /**
+     * マップを生成 (またはマップパックから読み込み) し、描画や特技で使う派生データ (ゴールからの距離場) も計算しておく。
+     */
+    private MapData generate() {
+        final MapData mapData;
+        if (mapPack != null) {
+            mapData = mapPack.get(nextPackIndex);
+            nextPackIndex = (nextPackIndex + 1) % mapPack.size();
+        } else {
+            mapData = new MapData(width, height);
+        }
+        mapData.getGoalDistanceField();
+        return mapData;
+    }
+}
@@ -11,8 +11,7 @@ public class MapSkin {
         this.cellImages = new EnumMap<>(CellType.class);
 
         this.cellImageFilePaths.forEach((cellType, filePath) -> {
-            Image image = new Image(filePath);
-            this.cellImages.put(cellType, image);
+            this.cellImages.put(cellType, Assets.image(filePath));
         });
     }
 
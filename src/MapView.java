@@ -1,24 +1,62 @@
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+
+import java.util.Arrays;
+import java.util.BitSet;
 
 public class MapView implements CellDrawnPositionResolver {
+    // 地形キャッシュの1チャンクあたりの縦横のセル数
+    private static final int CHUNK_CELLS = 32;
+
     private final MapData mapData;
     private final MapSkin mapSkin;
     private int mapLeftX = 0;
     private int mapTopY = 0;
     private int cellSize;
 
+    // 画面に映す範囲。 null ならマップ全体を描画する。
+    private Camera camera = null;
+
     private final DoorKeyView doorKeyView = new DoorKeyView();
     private final CoinView coinView = new CoinView();
-    private final Image closedGoalImage = new Image("png/door-close-32x32.png");
-    private final Image openedGoalImage = new Image("png/door-open-32x32.png");
+    private final Image closedGoalImage = Assets.image("png/door-close-32x32.png");
+    private final Image openedGoalImage = Assets.image("png/door-open-32x32.png");
+
+    // 地形 (全セルの画像) を描画済みのキャッシュ。
+    // マップを CHUNK_CELLS x CHUNK_CELLS セルのチャンクに区切り、チャンク毎に一枚の画像として保持する。
+    // チャンクの画像は初めて描画するときに作る。
+    private final int chunkCols;
+    private final int chunkRows;
+    private final WritableImage[] chunkImages;
+
+    // cellSize x cellSize に拡大縮小済みのセル画像。添字は CellType の ordinal。
+    private final Image[] scaledCellImages = new Image[CellType.values().length];
+
+    // 種類が変化してキャッシュに描き直す必要があるセルのセル番号
+    private final BitSet dirtyCellBits = new BitSet();
+    private int[] dirtyCells = new int[64];
+    private int dirtyCellCount = 0;
 
     public MapView(MapData mapData, int cellSize, MapSkin mapSkin) {
         this.mapData = mapData;
         this.cellSize = cellSize;
         this.mapSkin = mapSkin;
+
+        this.chunkCols = (mapData.getWidth() + CHUNK_CELLS - 1) / CHUNK_CELLS;
+        this.chunkRows = (mapData.getHeight() + CHUNK_CELLS - 1) / CHUNK_CELLS;
+        this.chunkImages = new WritableImage[chunkCols * chunkRows];
+        this.loadScaledCellImages();
+
+        this.mapData.addCellChangeListener((x, y, cellType) -> this.markCellDirty(x, y));
     }
 
+    /**
+     * マップを描画する。
+     * カメラが設定されている場合は、ビューポートに映るセルだけを描画する。
+     * スクロールは呼び出し側で gc を平行移動して反映させること。
+     */
     public void draw(GraphicsContext gc) {
         this.drawCells(gc);
         this.drawGoal(gc);
@@ -47,20 +85,104 @@ public class MapView implements CellDrawnPositionResolver {
         return this.getMapTopY() + this.getMapHeight();
     }
 
+    /**
+     * 地形を描画する。
+     * セルを一つずつ描画するのではなく、キャッシュ済みのチャンクの画像を描画する。
+     * 前回の描画以降に種類が変化したセルだけを、描画前にキャッシュへ描き直す。
+     */
     private void drawCells(GraphicsContext gc) {
-        final int nrow = this.mapData.getHeight();
-        final int ncol = this.mapData.getWidth();
-
-        // 全セルの描画
-        for (int row = 0; row < nrow; ++row) {
-            for (int col = 0; col < ncol; ++col) {
-                final var cellType = this.mapData.getCellType(col, row);
-                final var cellImage = this.mapSkin.getCellImage(cellType);
-                final int x = this.getCellDrawnX(col);
-                final int y = this.getCellDrawnY(row);
-                gc.drawImage(cellImage, x, y, this.cellSize, this.cellSize);
+        this.flushDirtyCells();
+
+        final int minChunkCol = this.getVisibleMinCol() / CHUNK_CELLS;
+        final int minChunkRow = this.getVisibleMinRow() / CHUNK_CELLS;
+        final int maxChunkCol = (this.getVisibleMaxCol() + CHUNK_CELLS - 1) / CHUNK_CELLS;
+        final int maxChunkRow = (this.getVisibleMaxRow() + CHUNK_CELLS - 1) / CHUNK_CELLS;
+
+        for (int chunkRow = minChunkRow; chunkRow < maxChunkRow; ++chunkRow) {
+            for (int chunkCol = minChunkCol; chunkCol < maxChunkCol; ++chunkCol) {
+                final Image chunkImage = this.getChunkImage(chunkCol, chunkRow);
+                final int x = this.getCellDrawnX(chunkCol * CHUNK_CELLS);
+                final int y = this.getCellDrawnY(chunkRow * CHUNK_CELLS);
+                gc.drawImage(chunkImage, x, y);
+            }
+        }
+    }
+
+    /**
+     * チャンク(chunkCol, chunkRow) のキャッシュ画像を返す。
+     * まだ作られていなければ、作ってチャンク内の全セルを描画する。
+     */
+    private WritableImage getChunkImage(int chunkCol, int chunkRow) {
+        final int k = chunkRow * chunkCols + chunkCol;
+        if (chunkImages[k] != null) {
+            return chunkImages[k];
+        }
+
+        final int minCol = chunkCol * CHUNK_CELLS;
+        final int minRow = chunkRow * CHUNK_CELLS;
+        final int maxCol = Math.min(minCol + CHUNK_CELLS, mapData.getWidth());
+        final int maxRow = Math.min(minRow + CHUNK_CELLS, mapData.getHeight());
+
+        chunkImages[k] = new WritableImage((maxCol - minCol) * cellSize, (maxRow - minRow) * cellSize);
+        for (int row = minRow; row < maxRow; ++row) {
+            for (int col = minCol; col < maxCol; ++col) {
+                this.renderCellToChunk(chunkImages[k], col, row);
             }
         }
+        return chunkImages[k];
+    }
+
+    /**
+     * セル(col, row) の画像を、そのセルを含むチャンクのキャッシュ画像に書き込む。
+     */
+    private void renderCellToChunk(WritableImage chunkImage, int col, int row) {
+        final Image cellImage = scaledCellImages[mapData.getCellType(col, row).ordinal()];
+        if (cellImage == null) return;
+
+        final PixelWriter writer = chunkImage.getPixelWriter();
+        final int x = (col % CHUNK_CELLS) * cellSize;
+        final int y = (row % CHUNK_CELLS) * cellSize;
+        writer.setPixels(x, y, cellSize, cellSize, cellImage.getPixelReader(), 0, 0);
+    }
+
+    private void markCellDirty(int col, int row) {
+        final int cellIndex = mapData.toCellIndex(col, row);
+        if (dirtyCellBits.get(cellIndex)) return;
+
+        dirtyCellBits.set(cellIndex);
+        if (dirtyCellCount == dirtyCells.length) {
+            dirtyCells = Arrays.copyOf(dirtyCells, dirtyCells.length * 2);
+        }
+        dirtyCells[dirtyCellCount++] = cellIndex;
+    }
+
+    /**
+     * 種類が変化したセルをキャッシュに描き直す。
+     * まだ作られていないチャンクのセルは、チャンクを作るときにまとめて描画されるので何もしない。
+     */
+    private void flushDirtyCells() {
+        for (int i = 0; i < dirtyCellCount; ++i) {
+            final int col = mapData.getCellX(dirtyCells[i]);
+            final int row = mapData.getCellY(dirtyCells[i]);
+            final WritableImage chunkImage = chunkImages[(row / CHUNK_CELLS) * chunkCols + (col / CHUNK_CELLS)];
+            if (chunkImage != null) {
+                this.renderCellToChunk(chunkImage, col, row);
+            }
+            dirtyCellBits.clear(dirtyCells[i]);
+        }
+        dirtyCellCount = 0;
+    }
+
+    /**
+     * 全ての CellType について、 cellSize x cellSize に拡大縮小したセル画像を読み込む。
+     */
+    private void loadScaledCellImages() {
+        for (CellType cellType : CellType.values()) {
+            final String filePath = mapSkin.getCellImageFilePath(cellType);
+            scaledCellImages[cellType.ordinal()] = (filePath == null)
+                    ? null
+                    : Assets.image(filePath, cellSize, cellSize);
+        }
     }
 
     private void drawGoal(GraphicsContext gc) {
@@ -76,14 +198,20 @@ public class MapView implements CellDrawnPositionResolver {
         }
     }
 
+    /**
+     * ビューポートに映るアイテムを描画する。
+     * ビューポートに映るマスのアイテムを MapData から直接読むので、処理量はマップの大きさやアイテムの数によらず、映るマスの数に比例する。
+     */
     private void drawItems(GraphicsContext gc) {
-        final int nrow = this.mapData.getHeight();
-        final int ncol = this.mapData.getWidth();
-
-        for (int row = 0; row < nrow; ++row) {
-            for (int col = 0; col < ncol; ++col) {
-                final var itemType = this.mapData.getItemType(col, row);
+        final int minRow = this.getVisibleMinRow();
+        final int maxRow = this.getVisibleMaxRow();
+        final int minCol = this.getVisibleMinCol();
+        final int maxCol = this.getVisibleMaxCol();
 
+        for (int row = minRow; row < maxRow; ++row) {
+            final int rowHead = this.mapData.toCellIndex(0, row);
+            for (int col = minCol; col < maxCol; ++col) {
+                final ItemType itemType = this.mapData.getItemTypeAt(rowHead + col);
                 if (itemType == ItemType.KEY) {
                     final int x = this.getCellDrawnX(col);
                     final int y = this.getCellDrawnY(row);
@@ -99,6 +227,40 @@ public class MapView implements CellDrawnPositionResolver {
         }
     }
 
+    /**
+     * ビューポートに映る列番号の下限を返す (範囲に含む)。
+     */
+    public int getVisibleMinCol() {
+        if (camera == null) return 0;
+        return Math.max(0, (int) Math.floor(camera.getScrollX() / cellSize));
+    }
+
+    /**
+     * ビューポートに映る列番号の上限を返す (範囲に含まない)。
+     */
+    public int getVisibleMaxCol() {
+        if (camera == null) return mapData.getWidth();
+        final double right = camera.getScrollX() + camera.getViewportWidth();
+        return Math.min(mapData.getWidth(), (int) Math.ceil(right / cellSize));
+    }
+
+    /**
+     * ビューポートに映る行番号の下限を返す (範囲に含む)。
+     */
+    public int getVisibleMinRow() {
+        if (camera == null) return 0;
+        return Math.max(0, (int) Math.floor(camera.getScrollY() / cellSize));
+    }
+
+    /**
+     * ビューポートに映る行番号の上限を返す (範囲に含まない)。
+     */
+    public int getVisibleMaxRow() {
+        if (camera == null) return mapData.getHeight();
+        final double bottom = camera.getScrollY() + camera.getViewportHeight();
+        return Math.min(mapData.getHeight(), (int) Math.ceil(bottom / cellSize));
+    }
+
     @Override
     public int getCellDrawnX(int col) {
         return this.mapLeftX + (this.cellSize * col);
@@ -124,8 +286,27 @@ public class MapView implements CellDrawnPositionResolver {
         return mapLeftX;
     }
 
+    /**
+     * アニメーションのタイマーを止める。このマップをもう描画しなくなったときに呼び出す。
+     */
+    public void dispose() {
+        this.coinView.dispose();
+    }
+
+    public Camera getCamera() {
+        return camera;
+    }
+
+    public void setCamera(Camera camera) {
+        this.camera = camera;
+    }
+
     public void setCellSize(int cellSize) {
         this.cellSize = cellSize;
+
+        // セルの大きさが変わったので、地形のキャッシュを全て作り直す
+        this.loadScaledCellImages();
+        Arrays.fill(this.chunkImages, null);
     }
 
     public void setMapLeftX(int mapLeftX) {
@@ -0,0 +1,292 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * 迷路を大量に生成して、迷路毎の統計を CSV ファイルに書き出すコマンドラインツール。JavaFX に依存しない。
+ * 決まった版のマップにする良いシードを探すために使う。
+ * <p>
+ * 使い方 (MapGame の起動引数に --generate-batch を付けても同じ):
+ * <pre>
+ *     java MazeBatchGenerator [--count N] [--size WxH] [--seed S] [--threads T] [--out FILE] [--pack FILE]
+ * </pre>
+ * --pack を指定すると、生成した全ての迷路を index の順に {@link MapPack} のファイルにも書き出す
+ * (書き出すまで全ての迷路を符号化したまま保持するので、迷路の数と大きさに比例したメモリを使う)。
+ * 迷路は fork/join で全てのコアを使って並列に生成する。 i 番目の迷路のシードは --seed と i だけから決まるので、
+ * スレッド数によらず同じ引数なら同じ迷路と統計が得られる。ただし CSV の行の順序は保証しない (index 列で並べ替えること)。
+ * <p>
+ * 統計の列:
+ * <ul>
+ *     <li>path_length: スタートからゴールまでの最短歩数 (ブロックを壊さずに歩ける範囲で)。到達できなければ -1</li>
+ *     <li>dead_ends: 通れる隣のマスが一つしかない、行き止まりのマスの数</li>
+ *     <li>keys / reachable_keys: カギの数と、そのうちスタートから歩いて届くものの数</li>
+ *     <li>coins / coin_spread: コインの数と、各コインから最も近い別のコインまでのマンハッタン距離の平均 (大きいほど散らばっている)</li>
+ * </ul>
+ */
+public class MazeBatchGenerator {
+    private static final String CSV_HEADER = "index,seed,path_length,dead_ends,keys,reachable_keys,coins,coin_spread";
+
+    // 一つの fork/join のタスクがそれ以上分割せずに生成する迷路の数
+    private static final int CHUNK_SIZE = 32;
+
+    private final int count;
+    private final int width;
+    private final int height;
+    private final long baseSeed;
+    private final Writer writer;
+
+    // index 番目の迷路を MapFormat で符号化したもの。マップパックを書き出さない場合は null。
+    private final byte[][] encodedMaps;
+
+    public MazeBatchGenerator(int count, int width, int height, long baseSeed, Writer writer, boolean keepsEncodedMaps) {
+        this.count = count;
+        this.width = width;
+        this.height = height;
+        this.baseSeed = baseSeed;
+        this.writer = writer;
+        this.encodedMaps = keepsEncodedMaps ? new byte[count][] : null;
+    }
+
+    public static void main(String[] args) {
+        int count = 1000;
+        int width = 21;
+        int height = 15;
+        long seed = 0;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Path outPath = Paths.get("maze-stats.csv");
+        Path packPath = null;
+
+        for (int i = 0; i < args.length; ++i) {
+            switch (args[i]) {
+                case "--generate-batch":
+                    break;
+                case "--count":
+                    count = Integer.parseInt(args[++i]);
+                    break;
+                case "--size":
+                    final String[] size = args[++i].split("x");
+                    width = Integer.parseInt(size[0]);
+                    height = Integer.parseInt(size[1]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--out":
+                    outPath = Paths.get(args[++i]);
+                    break;
+                case "--pack":
+                    packPath = Paths.get(args[++i]);
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.err.println("Usage: [--count N] [--size WxH] [--seed S] [--threads T] [--out FILE] [--pack FILE]");
+                    System.exit(1);
+            }
+        }
+
+        final long startTime = System.nanoTime();
+        final Summary summary;
+        try (BufferedWriter writer = Files.newBufferedWriter(outPath, StandardCharsets.UTF_8)) {
+            writer.write(CSV_HEADER);
+            writer.newLine();
+            final MazeBatchGenerator generator = new MazeBatchGenerator(count, width, height, seed, writer, packPath != null);
+            summary = generator.run(threads);
+            if (packPath != null) {
+                MapPack.write(packPath, generator.encodedMaps);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write " + outPath + ": " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+        final double elapsedSec = (System.nanoTime() - startTime) / 1e9;
+
+        System.out.printf("Generated %d mazes (%dx%d) in %.2f s (%.0f mazes/s) on %d threads -> %s%n",
+                summary.mazeCount, width, height, elapsedSec, summary.mazeCount / elapsedSec, threads, outPath);
+        if (packPath != null) {
+            System.out.println("  map pack -> " + packPath);
+        }
+        System.out.printf("  mean path length: %.1f, mean dead ends: %.1f, all keys reachable: %d / %d%n",
+                (double) summary.pathLengthSum / Math.max(1, summary.reachableGoalCount),
+                (double) summary.deadEndSum / Math.max(1, summary.mazeCount),
+                summary.allKeysReachableCount, summary.mazeCount);
+    }
+
+    /**
+     * threads 個のスレッドで全ての迷路を生成し、統計を書き出す。
+     *
+     * @return 全ての迷路の統計の集計
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public Summary run(int threads) throws IOException {
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new GenerateTask(0, count));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * index 番目の迷路のシードを返す。
+     * 隣り合う index のシードが似た値にならないよう、 SplitMix64 の混ぜ合わせ関数を通す。
+     */
+    static long seedOf(long baseSeed, int index) {
+        long z = baseSeed + (index + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * 迷路の統計を CSV の一行として sb に追加し、集計 summary に加える。
+     */
+    static void appendStats(int index, MapData mapData, StringBuilder sb, Summary summary) {
+        final int width = mapData.getWidth();
+        final int height = mapData.getHeight();
+        final int cellCount = width * height;
+
+        final int start = mapData.toCellIndex(mapData.getPlayerStartX(), mapData.getPlayerStartY());
+        final int pathLength = mapData.getGoalDistance(mapData.getPlayerStartX(), mapData.getPlayerStartY());
+
+        final DistanceField fromStart = new DistanceField(width, height);
+        fromStart.rebuild(start, mapData::isMovableAt);
+
+        int deadEnds = 0;
+        for (int cell = 0; cell < cellCount; ++cell) {
+            if (!mapData.isMovableAt(cell)) continue;
+
+            final int x = mapData.getCellX(cell);
+            final int y = mapData.getCellY(cell);
+            int neighbors = 0;
+            if (x > 0 && mapData.isMovableAt(cell - 1)) ++neighbors;
+            if (x < width - 1 && mapData.isMovableAt(cell + 1)) ++neighbors;
+            if (y > 0 && mapData.isMovableAt(cell - width)) ++neighbors;
+            if (y < height - 1 && mapData.isMovableAt(cell + width)) ++neighbors;
+            if (neighbors == 1) ++deadEnds;
+        }
+
+        int keys = 0;
+        int reachableKeys = 0;
+        for (int cell = mapData.nextItemCell(ItemType.KEY, 0); cell >= 0; cell = mapData.nextItemCell(ItemType.KEY, cell + 1)) {
+            ++keys;
+            if (fromStart.getDistance(cell) != DistanceField.UNREACHABLE) ++reachableKeys;
+        }
+
+        final int coins = mapData.countItems(ItemType.COIN);
+        final int[] coinCells = new int[coins];
+        int n = 0;
+        for (int cell = mapData.nextItemCell(ItemType.COIN, 0); cell >= 0 && n < coins; cell = mapData.nextItemCell(ItemType.COIN, cell + 1)) {
+            coinCells[n++] = cell;
+        }
+        long nearestSum = 0;
+        for (int i = 0; i < n; ++i) {
+            int nearest = Integer.MAX_VALUE;
+            for (int j = 0; j < n; ++j) {
+                if (i == j) continue;
+                final int d = Math.abs(coinCells[i] % width - coinCells[j] % width) + Math.abs(coinCells[i] / width - coinCells[j] / width);
+                nearest = Math.min(nearest, d);
+            }
+            if (nearest != Integer.MAX_VALUE) nearestSum += nearest;
+        }
+        final double coinSpread = (n < 2) ? 0 : (double) nearestSum / n;
+
+        final boolean isGoalReachable = pathLength != DistanceField.UNREACHABLE;
+        sb.append(index).append(',')
+                .append(mapData.getSeed()).append(',')
+                .append(isGoalReachable ? pathLength : -1).append(',')
+                .append(deadEnds).append(',')
+                .append(keys).append(',')
+                .append(reachableKeys).append(',')
+                .append(coins).append(',')
+                .append(String.format(Locale.ROOT, "%.3f", coinSpread))
+                .append('\n');
+
+        ++summary.mazeCount;
+        summary.deadEndSum += deadEnds;
+        if (isGoalReachable) {
+            ++summary.reachableGoalCount;
+            summary.pathLengthSum += pathLength;
+        }
+        if (reachableKeys == keys) {
+            ++summary.allKeysReachableCount;
+        }
+    }
+
+    /**
+     * 全ての迷路の統計の集計。
+     */
+    public static class Summary {
+        int mazeCount = 0;
+        int reachableGoalCount = 0;
+        long pathLengthSum = 0;
+        long deadEndSum = 0;
+        int allKeysReachableCount = 0;
+
+        void add(Summary other) {
+            mazeCount += other.mazeCount;
+            reachableGoalCount += other.reachableGoalCount;
+            pathLengthSum += other.pathLengthSum;
+            deadEndSum += other.deadEndSum;
+            allKeysReachableCount += other.allKeysReachableCount;
+        }
+    }
+
+    /**
+     * [from, to) 番目の迷路を生成するタスク。 CHUNK_SIZE 個以下になるまで半分に分割する。
+     * 分割しないタスクは、生成した分の CSV の行をまとめて一度に書き込む。
+     */
+    @SuppressWarnings("serial") // 直列化はしない
+    private class GenerateTask extends RecursiveTask<Summary> {
+        private final int from;
+        private final int to;
+
+        GenerateTask(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Summary compute() {
+            if (to - from > CHUNK_SIZE) {
+                final int mid = (from + to) >>> 1;
+                final GenerateTask left = new GenerateTask(from, mid);
+                left.fork();
+                final Summary summary = new GenerateTask(mid, to).compute();
+                summary.add(left.join());
+                return summary;
+            }
+
+            final Summary summary = new Summary();
+            final StringBuilder sb = new StringBuilder();
+            for (int i = from; i < to; ++i) {
+                final MapData mapData = new MapData(width, height, seedOf(baseSeed, i));
+                appendStats(i, mapData, sb, summary);
+                if (encodedMaps != null) {
+                    encodedMaps[i] = MapFormat.encode(mapData);
+                }
+            }
+            try {
+                synchronized (writer) {
+                    writer.write(sb.toString());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return summary;
+        }
+    }
+}
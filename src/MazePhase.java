@@ -1,11 +1,8 @@
-import javafx.animation.Animation;
 import javafx.animation.Transition;
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
 import javafx.scene.input.KeyCode;
 import javafx.scene.input.KeyEvent;
 import javafx.scene.media.AudioClip;
-import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
 import javafx.scene.paint.Color;
 import javafx.scene.shape.Circle;
@@ -13,14 +10,22 @@ import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 import javafx.util.Duration;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.function.Predicate;
 
-public class MazePhase implements Phase {
+public class MazePhase implements Phase, MazeSimulationListener {
     private static final int HEADER_PANEL_HEIGHT = 56;
     private static final int GUIDE_MESSAGE_AREA_HEIGHT = 28;
     private static final int MAZE_AREA_WIDTH = 32 * 21;
     private static final int MAZE_AREA_HEIGHT = 32 * 15;
+    private static final int MAP_COLS = 21;
+    private static final int MAP_ROWS = 15;
 
     public static int getScreenHeight() {
         return HEADER_PANEL_HEIGHT + MAZE_AREA_HEIGHT + GUIDE_MESSAGE_AREA_HEIGHT;
@@ -30,40 +35,93 @@ public class MazePhase implements Phase {
         return MAZE_AREA_WIDTH;
     }
 
-    private static final Duration playerNormalMoveDuration = Duration.millis(250);
-    private static final Duration playerFeverMoveDuration = Duration.millis(120);
-    private static final long FEVER_KEEP_TIME_MILLI = 15 * 1000;
-    private static final Duration gageDuration_coinTrail = Duration.seconds(10);
-    private static final Duration gageDuration_fever = Duration.seconds(15);
-    private static final Duration gageDuration_collectCoins = Duration.seconds(5);
+    public static int getHeaderPanelHeight() {
+        return HEADER_PANEL_HEIGHT;
+    }
+
+    /**
+     * 最初に遊ぶマップの生成を、別スレッドで始めておく。
+     * 以降のマップは、迷路画面を作るたびにその次のマップの生成が始まる。
+     */
+    public static void pregenerateMap() {
+        mapPregenerator.requestNext();
+    }
+
+    /**
+     * 以降の迷路画面で、ランダムに生成したマップの代わりにマップパック mapPack のマップを順に遊ぶようにする。
+     */
+    public static void useMapPack(MapPack mapPack) {
+        mapPregenerator.useMapPack(mapPack);
+    }
+
+    // スコアテキストのエフェクトはコインを拾うたびに表示するので、フォントは使い回す
+    private static final Font scoreTextFontNormal = Font.font("sans-serif", FontWeight.BLACK, 18);
+    private static final Font scoreTextFontFever = Font.font("sans-serif", FontWeight.BLACK, 24);
+    private static final long SCORE_TEXT_FLOAT_UP_MILLI = 800;
+
+    // 暗闇のライトマップの縮小率と、爆風・開いたゴールの光の大きさ (マスの大きさに対する倍率)
+    private static final int LIGHT_MAP_SCALE = 4;
+    private static final double EXPLOSION_LIGHT_RATIO = 2.0;
+    private static final long EXPLOSION_LIGHT_MILLI = 400;
+    private static final double GOAL_LIGHT_RATIO = 1.5;
+
+    // 遊んだ記録 (リプレイ) は、迷路画面を抜けるときと F5 キーを押したときに、このディレクトリに書き出す
+    private static final Path REPLAY_DIR = Paths.get("replays");
+    private static final DateTimeFormatter REPLAY_FILE_NAME_FORMAT = DateTimeFormatter.ofPattern("'replay-'yyyyMMdd-HHmmss'.bcr'");
+    // 探索済みで今は見えていないマスの明るさ (0 〜 255)
+    private static final int REMEMBERED_LIGHT = 64;
+
+    // 次に遊ぶマップ。今の迷路を遊んでいる間に別スレッドで生成しておく。
+    private static final MapPregenerator mapPregenerator = new MapPregenerator(MAP_COLS, MAP_ROWS);
 
     private final MapGameScene scene;
-    private final Stopwatch goalStopwatch;
+
+    // ゲームの規則はシミュレーションが扱い、このフェーズはその状態を描画して、通知に応じて音やエフェクトを出す
+    private final MazeSimulation simulation;
+
+    // 遊んでいる間の操作の記録。リプレイの再生中は null
+    private final ReplayLog replayRecorder;
+
+    // 再生しているリプレイと、 1 回の fixedUpdate() で進める tick 数。遊んでいる間は null
+    private final ReplayPlayer replayPlayer;
+    private final int replaySpeed;
+    private boolean hasReplayFinished = false;
+
+    // P キーで切り替える自動操縦。有効な間は、移動キーを押していなければ自動操縦の向きに動く。
+    private final Autopilot autopilot;
+    private boolean isAutopilotEnabled = false;
 
     private final MapData mapData;
     private final MapView mapView;
+    private final Camera camera;
     private final MoveChara player;
-    private Duration playerMoveDuration = playerNormalMoveDuration;
 
     private final Circle blindHollowAtPlayer;
+    private final double normalHollowRadius;
     private boolean isBlindEnabled = true;
 
-    private final BombExecutor bombExecutor;
+    // 暗闇と、プレイヤー・開いたゴール・爆風の光を描画するもの
+    private final LightingCompositor lighting;
+
+    // プレイヤーの視界と探索済みのマス。プレイヤーが移動したときとブロックが壊れたときだけ計算し直す。
+    private final FieldOfView fieldOfView;
+
+    private final BombView bombView;
+    private final EnemyView enemyView;
+
+    // ゴールパネルの表示やコインの杖の効果音など、演出のために遅らせて実行する処理はこのスケジューラに登録する
+    private final TaskScheduler taskScheduler = new TaskScheduler();
 
     private final MediaPlayer normalBGM;
     private final MediaPlayer feverBGM;
     private final AudioClip coinSE;
     private final AudioClip keySE;
     private final AudioClip goalSE;
-
-    private boolean isFeverMode = false;
-    private boolean hasGoaled = false;
+    private final AudioClip coinPutSE;
 
     private final MessageArea guideMessage;
     private final HeaderPanel headerPanel;
 
-    private boolean isPlayerControllable = true;
-
     private final boolean[] isKeyPushed;
 
     private final DrawableExecutor topLayerDrawable;
@@ -75,60 +133,116 @@ public class MazePhase implements Phase {
 
     /**
      * コンストラクタ。
-     * 迷路ゲームの実行に必要なオブジェクトを構築する。
+     * 前もって生成しておいたマップで、迷路ゲームの実行に必要なオブジェクトを構築する。
      * ゲームはまだ始めない。setup() 関数を呼び出すことでゲームが始まる。
      *
      * @param scene ゲームを描画する対象のシーン
      */
     public MazePhase(MapGameScene scene) {
+        this(scene, mapPregenerator.takeNext());
+    }
+
+    /**
+     * コンストラクタ。
+     * マップ mapData で、迷路ゲームの実行に必要なオブジェクトを構築する。
+     * ゲームはまだ始めない。setup() 関数を呼び出すことでゲームが始まる。
+     *
+     * @param scene   ゲームを描画する対象のシーン
+     * @param mapData 遊ぶマップ
+     */
+    public MazePhase(MapGameScene scene, MapData mapData) {
+        this(scene, mapData, null, 1);
+    }
+
+    /**
+     * リプレイ replayLog を、 speed 倍速で再生する迷路画面を作る。再生中はキー操作やボタンでプレイヤーを操作できない。
+     *
+     * @param scene     ゲームを描画する対象のシーン
+     * @param replayLog 再生するリプレイ
+     * @param speed     再生速度 (1 回の fixedUpdate() で進める tick 数)
+     */
+    public static MazePhase forReplay(MapGameScene scene, ReplayLog replayLog, int speed) {
+        return new MazePhase(scene, replayLog.createMapData(), replayLog, speed);
+    }
+
+    private MazePhase(MapGameScene scene, MapData mapData, ReplayLog replayToPlay, int replaySpeed) {
         this.scene = scene;
-        this.goalStopwatch = new Stopwatch(Duration.millis(500));
-        this.mapData = new MapData(21, 15);
+        this.mapData = mapData;
+        this.simulation = new MazeSimulation(mapData);
+        this.simulation.setListener(this);
+
+        // 遊ぶ場合は、マップと操作をリプレイとして記録する。再生する場合は、記録された操作でシミュレーションを進める。
+        if (replayToPlay == null) {
+            this.replayRecorder = ReplayLog.startRecording(mapData);
+            this.simulation.setRecorder(this.replayRecorder);
+            this.replayPlayer = null;
+        } else {
+            this.replayRecorder = null;
+            this.replayPlayer = new ReplayPlayer(replayToPlay, this.simulation);
+        }
+        this.replaySpeed = Math.max(1, replaySpeed);
+        this.autopilot = new Autopilot(this.simulation);
+
         this.mapView = new MapView(mapData, 32, createDefaultMapSkin());
         this.mapView.setMapTopY(HEADER_PANEL_HEIGHT);
 
+        // 迷路エリアに映す範囲。マップが迷路エリアより大きい場合はプレイヤーを追ってスクロールする。
+        this.camera = new Camera(MAZE_AREA_WIDTH, MAZE_AREA_HEIGHT);
+        this.mapView.setCamera(this.camera);
+
         // 上部のパネルの設定
         {
-            this.headerPanel = new HeaderPanel(0, 0, mapView.getMapWidth(), HEADER_PANEL_HEIGHT);
+            this.headerPanel = new HeaderPanel(0, 0, MAZE_AREA_WIDTH, HEADER_PANEL_HEIGHT);
 
-            this.btnCoinTrail = new TimeGageImageViewButton(new ImageViewButton(new Image("png/button-coin-to-goal.png"), scene));
-            this.btnCollectNeighborCoin = new TimeGageImageViewButton(new ImageViewButton(new Image("png/button-coin-rod.png"), scene));
-            this.btnFever = new TimeGageImageViewButton(new ImageViewButton(new Image("png/button-magic-circle.png"), scene));
+            this.btnCoinTrail = new TimeGageImageViewButton(new ImageViewButton(Assets.image("png/button-coin-to-goal.png"), scene));
+            this.btnCollectNeighborCoin = new TimeGageImageViewButton(new ImageViewButton(Assets.image("png/button-coin-rod.png"), scene));
+            this.btnFever = new TimeGageImageViewButton(new ImageViewButton(Assets.image("png/button-magic-circle.png"), scene));
 
             this.headerPanel.addCenterButton(this.btnCoinTrail);
             this.headerPanel.addCenterButton(this.btnCollectNeighborCoin);
             this.headerPanel.addCenterButton(this.btnFever);
-            this.goalStopwatch.setTickHandler(elapsedTime -> headerPanel.setElapsedTime(((int) elapsedTime.toSeconds())));
         }
 
         // プレイヤー
-        this.player = new MoveChara(mapData.getPlayerStartX(), mapData.getPlayerStartY(), mapData, mapView);
-        this.player.setOnMoveHandler(this::onPlayerMoved);
+        this.player = new MoveChara(simulation.getPlayer(), mapView);
 
         // 暗闇をくり抜く穴
-        this.blindHollowAtPlayer = new Circle(mapView.getCellSize() * 3);
+        this.normalHollowRadius = mapView.getCellSize() * 3;
+        this.blindHollowAtPlayer = new Circle(normalHollowRadius);
+        this.lighting = new LightingCompositor(camera.getViewportWidth(), camera.getViewportHeight(), LIGHT_MAP_SCALE);
+
+        // 視界。壁とブロックが視線を遮る。
+        this.fieldOfView = new FieldOfView(mapData.getWidth(), mapData.getHeight(),
+                toSightRadius(normalHollowRadius), cell -> !mapData.isMovableAt(cell));
+        this.fieldOfView.setOrigin(mapData.getPlayerStartX(), mapData.getPlayerStartY());
+        this.fieldOfView.refresh();
+        this.mapData.addCellChangeListener((x, y, cellType) -> this.fieldOfView.onCellChanged(x, y));
 
-        // 爆弾・爆発を管理するもの
-        this.bombExecutor = new BombExecutor(mapView);
+        // 爆弾・爆発を描画するもの
+        this.bombView = new BombView(simulation.getBombExecutor(), mapView);
+
+        // 敵を描画するもの
+        this.enemyView = new EnemyView(simulation.getEnemySwarm(), mapView, mapData.getWidth());
 
         // BGM, SE の設定
         {
-            this.normalBGM = new MediaPlayer(new Media(MapGame.getResourceAsString("sound/digitalworld.mp3")));
+            this.normalBGM = Assets.mediaPlayer("sound/digitalworld.mp3");
             this.normalBGM.setVolume(0.4);
             this.normalBGM.setCycleCount(AudioClip.INDEFINITE);
 
-            this.feverBGM = new MediaPlayer(new Media(MapGame.getResourceAsString("sound/bgm-fever.mp3")));
+            this.feverBGM = Assets.mediaPlayer("sound/bgm-fever.mp3");
             this.feverBGM.setVolume(0.3);
             this.feverBGM.setCycleCount(AudioClip.INDEFINITE);
 
-            this.coinSE = new AudioClip(MapGame.getResourceAsString("sound/coin1.wav"));
-            this.keySE = new AudioClip(MapGame.getResourceAsString("sound/se_maoudamashii_system46.mp3"));
-            this.goalSE = new AudioClip(MapGame.getResourceAsString("sound/goal.wav"));
+            this.coinSE = Assets.audioClip("sound/coin1.wav");
+            this.keySE = Assets.audioClip("sound/se_maoudamashii_system46.mp3");
+            this.goalSE = Assets.audioClip("sound/goal.wav");
+            this.coinPutSE = Assets.audioClip("sound/coin8.wav");
         }
 
         // ガイドメッセージの設定
-        final Font pixelFont = Font.loadFont(MapGame.getResourceAsString("font/PixelMplus12-Regular.ttf"), 16);
-        this.guideMessage = new MessageArea(0, this.mapView.getMapBottomY(), this.mapView.getMapWidth(), GUIDE_MESSAGE_AREA_HEIGHT, pixelFont);
+        final Font pixelFont = Assets.font("font/PixelMplus12-Regular.ttf", 16);
+        this.guideMessage = new MessageArea(0, HEADER_PANEL_HEIGHT + MAZE_AREA_HEIGHT, MAZE_AREA_WIDTH, GUIDE_MESSAGE_AREA_HEIGHT, pixelFont);
 
         // キーが押されているなら 対応する列挙体の ord が true になる配列
         this.isKeyPushed = new boolean[KeyCode.values().length];
@@ -147,11 +261,26 @@ public class MazePhase implements Phase {
 
     /**
      * 暗闇をくり抜く穴の中心座標をプレイヤーの中心座標に追従させる
+     *
+     * @param alpha プレイヤーの描画位置の補間の割合
      */
-    public void updateHollowPosition() {
+    public void updateHollowPosition(double alpha) {
         final int sHalf = mapView.getCellSize() / 2;
-        this.blindHollowAtPlayer.setCenterX(player.getDrawnX() + sHalf);
-        this.blindHollowAtPlayer.setCenterY(player.getDrawnY() + sHalf);
+        this.blindHollowAtPlayer.setCenterX(player.getDrawnX(alpha) + sHalf);
+        this.blindHollowAtPlayer.setCenterY(player.getDrawnY(alpha) + sHalf);
+    }
+
+    /**
+     * カメラをプレイヤーの中心に追従させる
+     *
+     * @param alpha プレイヤーの描画位置の補間の割合
+     */
+    public void updateCameraPosition(double alpha) {
+        final int sHalf = mapView.getCellSize() / 2;
+        this.camera.follow(
+                player.getDrawnX(alpha) + sHalf - mapView.getMapLeftX(),
+                player.getDrawnY(alpha) + sHalf - mapView.getMapTopY(),
+                mapView.getMapWidth(), mapView.getMapHeight());
     }
 
     @Override
@@ -162,43 +291,32 @@ public class MazePhase implements Phase {
         // シーンにボタンを追加
         scene.getOtherComponents().getChildren().addAll(this.btnCoinTrail.getButton(), this.btnCollectNeighborCoin.getButton(), this.btnFever.getButton());
 
+        // BGMの再生
+        this.normalBGM.play();
+
+        // リプレイの再生中は、ボタンでは特技を使わない
+        if (this.replayPlayer != null) {
+            this.guideMessage.setMessage("リプレイを " + this.replaySpeed + " 倍速で再生中");
+            return;
+        }
+
         // コインの小道のボタン
         this.btnCoinTrail.getButton().setOnMouseClicked(evt -> {
-            this.putCoinTrailToGoal();
-        });
-        this.btnCoinTrail.setOnGageFilled(btn -> {
-            guideMessage.setMessage("コインの小道 が使えるようになった！ [1]キーを押すとコインがゴールへ導いてくれる！");
+            this.simulation.useSkill(Skill.COIN_TRAIL, false);
         });
 
         // コインの杖のボタン
         this.btnCollectNeighborCoin.getButton().setOnMouseClicked(evt -> {
-            this.collectCoinsAroundPlayer(2);
-        });
-        this.btnCollectNeighborCoin.setOnGageFilled(btn -> {
-            guideMessage.setMessage("コインの杖 が使えるようになった！ [2]キー を押して周囲 2 マスのコインを一気にゲット！");
+            this.simulation.useSkill(Skill.COIN_ROD, false);
         });
 
         // フィーバースターのボタン
         this.btnFever.getButton().setOnMouseClicked(evt -> {
-            this.enterFeverMode();
-        });
-        this.btnFever.setOnGageFilled(btn -> {
-            guideMessage.setMessage("フィーバースター が使えるようになった！ [3]キー を押して フィーバー だ！");
+            this.simulation.useSkill(Skill.FEVER, false);
         });
 
         // ガイドメッセージの設定
         this.guideMessage.setMessage("カギをすべて拾ってゴールの扉を開けよう！ スペースキーで爆弾を置けるぞ！");
-
-        // ゲージボタンのゲージ貯めを開始
-        this.btnCoinTrail.gageStartFromEmpty(gageDuration_coinTrail);
-        this.btnCollectNeighborCoin.gageStartFromEmpty(gageDuration_collectCoins);
-        this.btnFever.gageStartFromEmpty(gageDuration_fever);
-
-        // BGMの再生
-        this.normalBGM.play();
-
-        // ゴールまでの時間計測開始
-        this.goalStopwatch.start();
     }
 
     @Override
@@ -206,67 +324,194 @@ public class MazePhase implements Phase {
         this.scene.setOnKeyPressed(null);
         this.scene.setOnKeyReleased(null);
         this.scene.getOtherComponents().getChildren().clear();
+
+        // BGM の MediaPlayer は他の迷路画面と共有しているので、鳴らしたままにしない
+        this.normalBGM.stop();
+        this.feverBGM.stop();
+
+        // このフェーズに登録された遅延タスクが、フェーズを抜けた後に実行されないようにする
+        this.taskScheduler.cancelAll();
+        this.taskScheduler.pause();
+
+        // 共通のフレームクロックに登録されたままにならないよう、アニメーションのタイマーを止める
+        this.mapView.dispose();
+        this.player.dispose();
+        this.bombView.dispose();
+        this.topLayerDrawable.clear();
+        this.lighting.clearFlashes();
+
+        this.saveReplay();
     }
 
+    /**
+     * ここまでの操作の記録を、 replays ディレクトリの replay-(日時).bcr に書き出す。リプレイの再生中は何もしない。
+     *
+     * @return 書き出したファイル。書き出さなかった場合や、書き出しに失敗した場合は null
+     */
+    private Path saveReplay() {
+        if (this.replayRecorder == null) return null;
+
+        this.replayRecorder.setEndTick(this.simulation.getTickCount());
+        final Path path = REPLAY_DIR.resolve(LocalDateTime.now().format(REPLAY_FILE_NAME_FORMAT));
+        try {
+            Files.createDirectories(REPLAY_DIR);
+            this.replayRecorder.write(path);
+            return path;
+        } catch (IOException e) {
+            System.err.println("Failed to save replay: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 押されている移動キー (自動操縦が有効で移動キーが押されていなければ自動操縦の向き) をシミュレーションに伝えて、
+     * シミュレーションを 1 tick 進める。
+     * プレイヤーの描画位置を補間できるように、進める前の描画位置を記録しておく。
+     */
     @Override
-    public void update(long now) {
-        this.bombExecutor.update(mapData);
-        this.updateHollowPosition();
-
-        if (isPlayerControllable) {
-            if (isKeyPushed(KeyCode.H) || isKeyPushed(KeyCode.LEFT)) {
-                moveLeftAction();
-            } else if (isKeyPushed(KeyCode.J) || isKeyPushed(KeyCode.DOWN)) {
-                moveDownAction();
-            } else if (isKeyPushed(KeyCode.K) || isKeyPushed(KeyCode.UP)) {
-                moveUpAction();
-            } else if (isKeyPushed(KeyCode.L) || isKeyPushed(KeyCode.RIGHT)) {
-                moveRightAction();
+    public void fixedUpdate() {
+        this.player.savePreviousPosition();
+        if (this.replayPlayer != null) {
+            this.advanceReplay();
+        } else {
+            final int pushedDirection = this.getPushedMoveDirection();
+            if (this.isAutopilotEnabled && pushedDirection == PlayerMotion.TYPE_NONE) {
+                this.simulation.setMoveDirection(this.autopilot.nextDirection());
+            } else {
+                this.simulation.setMoveDirection(pushedDirection);
             }
+            this.simulation.tick();
+        }
+
+        // この tick でプレイヤーが移動したかブロックが壊れていれば、視界を計算し直す
+        this.fieldOfView.refresh();
+    }
+
+    /**
+     * リプレイの記録された操作で、シミュレーションを replaySpeed tick 進める。
+     */
+    private void advanceReplay() {
+        for (int i = 0; i < this.replaySpeed; ++i) {
+            if (!this.replayPlayer.step()) break;
+        }
+        if (!this.hasReplayFinished && this.replayPlayer.isFinished()) {
+            this.hasReplayFinished = true;
+            this.guideMessage.setMessage("リプレイの再生が終わりました");
         }
     }
 
+    @Override
+    public void update(long now) {
+        this.taskScheduler.update(now);
+        this.lighting.update(now);
+
+        this.headerPanel.setElapsedTime(simulation.getElapsedSeconds());
+        if (!simulation.hasGoaled()) {
+            this.btnCoinTrail.setGage(simulation.getSkillGage(Skill.COIN_TRAIL));
+            this.btnCollectNeighborCoin.setGage(simulation.getSkillGage(Skill.COIN_ROD));
+            this.btnFever.setGage(simulation.getSkillGage(Skill.FEVER));
+        }
+    }
+
+    /**
+     * 押されている移動キーに対応する向きを返す。移動キーが押されていなければ {@link PlayerMotion#TYPE_NONE} を返す。
+     */
+    private int getPushedMoveDirection() {
+        if (isKeyPushed(KeyCode.H) || isKeyPushed(KeyCode.LEFT)) {
+            return PlayerMotion.TYPE_LEFT;
+        } else if (isKeyPushed(KeyCode.J) || isKeyPushed(KeyCode.DOWN)) {
+            return PlayerMotion.TYPE_DOWN;
+        } else if (isKeyPushed(KeyCode.K) || isKeyPushed(KeyCode.UP)) {
+            return PlayerMotion.TYPE_UP;
+        } else if (isKeyPushed(KeyCode.L) || isKeyPushed(KeyCode.RIGHT)) {
+            return PlayerMotion.TYPE_RIGHT;
+        }
+        return PlayerMotion.TYPE_NONE;
+    }
+
     @Override
     public void draw(GraphicsContext gc) {
+        this.draw(gc, 1.0);
+    }
+
+    /**
+     * プレイヤー・カメラ・暗闇の穴は、直前の tick の前後の位置を alpha で補間した位置に描画する。
+     */
+    @Override
+    public void draw(GraphicsContext gc, double alpha) {
+        this.updateHollowPosition(alpha);
+        this.updateCameraPosition(alpha);
+
         gc.save();
         {
-            // 暗闇が有効 かつ 暗闇の半径が画面幅よりも小さければ、暗闇を描画する
-            // まず全て黒く塗りつぶした後に、プレイヤー周囲の正円くり抜き でクリッピングする。
-            // クリッピングするとクリッピングされた領域のみが描画される。
-            if (this.isBlindEnabled && this.blindHollowAtPlayer.getRadius() < this.mapView.getMapWidth()) {
-                gc.setFill(Color.BLACK);
-                gc.fillRect(mapView.getMapLeftX(), mapView.getMapTopY(), mapView.getMapWidth(), mapView.getMapHeight());
-                clipHoles(gc, blindHollowAtPlayer);
-            }
+            // カメラのスクロール量だけずらして、マップの描画座標で描画する。
+            // 迷路エリアからはみ出た部分は、後から描画するヘッダーとガイドメッセージで隠れる。
+            gc.translate(-camera.getScrollX(), -camera.getScrollY());
+
             mapView.draw(gc);
-            player.draw(gc);
-            this.bombExecutor.draw(gc);
+            player.draw(gc, alpha);
+            this.bombView.draw(gc);
+            this.enemyView.draw(gc, alpha, this::isEnemyShownAt);
+
+            // 暗闇が有効 かつ 暗闇の穴の半径が画面幅よりも小さければ、光で照らした暗闇を上から重ねる
+            if (this.isBlindEnabled && this.blindHollowAtPlayer.getRadius() < MAZE_AREA_WIDTH) {
+                this.drawDarkness(gc);
+            }
         }
         gc.restore();
 
         this.headerPanel.draw(gc);
         this.guideMessage.draw(gc);
+
+        // スコアテキストのエフェクトはマップの描画座標で登録されているので、カメラに合わせてずらす
+        gc.save();
+        gc.translate(-camera.getScrollX(), -camera.getScrollY());
         this.topLayerDrawable.draw(gc);
+        gc.restore();
 
         if (this.goalResultPanel != null) {
             this.goalResultPanel.draw(gc);
         }
     }
 
+    @Override
+    public void reportFrameStats(FrameProfiler profiler) {
+        profiler.addDrawableCount(this.topLayerDrawable.getCount() + this.bombView.countExplosionAnimation());
+        profiler.addBombCount(this.simulation.getBombExecutor().countBomb());
+        profiler.addTaskCount(this.taskScheduler.getTaskCount() + this.simulation.getScheduledTaskCount());
+    }
+
     /**
-     * 円領域群 (holes) のみを描画するよう gc を設定する。
+     * 迷路エリアに暗闇を描画する。プレイヤーの周囲と、開いたゴール、爆風の光っている所は明るく残す。
+     * gc はマップの描画座標で描画するように設定しておくこと。
      */
-    private void clipHoles(GraphicsContext gc, Circle... holes) {
-        gc.beginPath();
-        for (Circle hole : holes) {
-            final double cx = hole.getCenterX();
-            final double cy = hole.getCenterY();
-            final double r = hole.getRadius();
-            gc.moveTo(cx - r, cy);
-            gc.arc(cx, cy, r, r, 180, 360);
+    private void drawDarkness(GraphicsContext gc) {
+        final int sHalf = mapView.getCellSize() / 2;
+        this.lighting.begin(mapView.getMapLeftX() + camera.getScrollX(), mapView.getMapTopY() + camera.getScrollY());
+        this.lighting.addLight(blindHollowAtPlayer.getCenterX(), blindHollowAtPlayer.getCenterY(), blindHollowAtPlayer.getRadius());
+        if (mapData.isGoalOpen()) {
+            this.lighting.addLight(
+                    mapView.getCellDrawnX(mapData.getGoalX()) + sHalf,
+                    mapView.getCellDrawnY(mapData.getGoalY()) + sHalf,
+                    mapView.getCellSize() * GOAL_LIGHT_RATIO);
         }
-        gc.closePath();
-        gc.clip();
+        this.lighting.applyFieldOfView(fieldOfView, mapView.getMapLeftX(), mapView.getMapTopY(), mapView.getCellSize(), REMEMBERED_LIGHT);
+        this.lighting.draw(gc);
+    }
+
+    /**
+     * セル番号 cell のマスにいる敵を描画するなら true を返す。暗闇があるときは、視界の中の敵だけを描画する。
+     */
+    private boolean isEnemyShownAt(int cell) {
+        if (!this.isBlindEnabled || this.blindHollowAtPlayer.getRadius() >= MAZE_AREA_WIDTH) return true;
+        return this.fieldOfView.isVisible(cell);
+    }
+
+    /**
+     * 暗闇の穴の半径 hollowRadius (ピクセル) の光が届くマスを全て含む、視界の半径 (マス数) を返す。
+     */
+    private int toSightRadius(double hollowRadius) {
+        return (int) Math.ceil(hollowRadius / mapView.getCellSize()) + 1;
     }
 
     /**
@@ -294,41 +539,33 @@ public class MazePhase implements Phase {
         // フラグ配列の更新
         this.isKeyPushed[event.getCode().ordinal()] = true;
 
-        // 以下、プレイヤーの操作 (アイテムの使用も含める)
-        if (!isPlayerControllable) {
+        // リプレイの再生中は、暗闇の切り替え以外の操作を受け付けない
+        if (this.replayPlayer != null) {
+            if (event.getCode() == KeyCode.ESCAPE) {
+                this.isBlindEnabled = !this.isBlindEnabled;
+            }
             return;
         }
 
+        // 以下、プレイヤーの操作 (アイテムの使用も含める)。ゴール後の操作はシミュレーションが無視する。
+        // シフトキーが同時に押されていれば、ゲージが溜まっていなくても強制で特技を発動する。
+        final boolean isForced = isKeyPushed(KeyCode.SHIFT);
+
         switch (event.getCode()) {
             case SPACE:
-                spaceButtonAction();
+                simulation.placeBomb();
                 break;
 
             case DIGIT1: // 1 キー
-                // シフトキーが同時に押されていれば強制でコインの小道発動, そうでなければゲージボタンの状態などをチェックして発動
-                if (isKeyPushed(KeyCode.SHIFT)) {
-                    putCoinTrailToGoal();
-                } else {
-                    requirePutCoinTrail();
-                }
+                simulation.useSkill(Skill.COIN_TRAIL, isForced);
                 break;
 
             case DIGIT2: // 2 キー
-                // シフトキーが同時に押されていれば強制でコインの杖発動, そうでなければゲージボタンの状態などをチェックして発動
-                if (isKeyPushed(KeyCode.SHIFT)) {
-                    collectCoinsAroundPlayer(2);
-                } else {
-                    requireCollectCoinsAroundPlayer(2);
-                }
+                simulation.useSkill(Skill.COIN_ROD, isForced);
                 break;
 
             case DIGIT3: // 3 キー
-                // シフトキーが同時に押されていれば強制でフィーバーモード発動, そうでなければゲージボタンの状態などをチェックして発動
-                if (isKeyPushed(KeyCode.SHIFT)) {
-                    enterFeverMode();
-                } else {
-                    requireEnterFeverMode();
-                }
+                simulation.useSkill(Skill.FEVER, isForced);
                 break;
 
             case ESCAPE: // デバッグ用。暗闇の有効/無効をトグルする。
@@ -336,97 +573,79 @@ public class MazePhase implements Phase {
                 break;
 
             case F1: // デバッグ用。強制的にゴールしたことにする。
-                this.goalAction();
+                simulation.goal();
+                break;
+
+            case F5: // ここまでのリプレイを書き出して、書き出した場所をガイドメッセージに表示する。
+                final Path replayPath = this.saveReplay();
+                guideMessage.setMessage(replayPath != null ? "リプレイを保存しました: " + replayPath : "リプレイを保存できませんでした");
+                break;
+
+            case P: // 自動操縦の有効/無効をトグルする。
+                this.toggleAutopilot();
         }
     }
 
     /**
-     * スコアを取得したときに乗算する値。
-     * フィーバーモードなら x1.5倍, そうでなければ 1.0 倍
+     * 自動操縦の有効/無効を切り替える。有効にするときは、今のマスからルートを求め直す。
      */
-    private double getScoreCoefficient() {
-        if (isFeverMode) {
-            return 1.5;
+    private void toggleAutopilot() {
+        this.isAutopilotEnabled = !this.isAutopilotEnabled;
+        if (!this.isAutopilotEnabled) {
+            guideMessage.setMessage("自動操縦 OFF");
+        } else if (this.autopilot.replan()) {
+            guideMessage.setMessage("自動操縦 ON  カギとコインを拾いながらゴールへ向かう！ [P]キーで解除");
         } else {
-            return 1.0;
+            guideMessage.setMessage("自動操縦 ON  ...でもゴールへのルートが見つからない！ ボムで道を開こう");
         }
     }
 
     /**
-     * 任意のアイテムを取得したときにこのメソッドを呼び出す必要がある。
-     *
-     * @param col 取得したアイテムの列番号
-     * @param row 取得したアイテムの行番号
+     * プレイヤーのマス位置が変わったら、視界の視点を移す。視界はこの tick の fixedUpdate() の最後に計算し直す。
      */
-    public void itemGetAction(int col, int row) {
-        final boolean shouldPlaySE = true;
-
-        switch (this.mapData.getItemType(col, row)) {
-            case COIN:
-                coinGetAction(col, row, shouldPlaySE);
-                break;
-            case KEY:
-                keyGetAction(col, row, shouldPlaySE);
-                break;
-            default:
-                break;
-        }
+    @Override
+    public void onPlayerMoved(int col, int row) {
+        this.fieldOfView.setOrigin(col, row);
     }
 
     /**
-     * コインを取得したときに呼び出す。
-     * マップの更新、スコアの更新、スコアテキストのエフェクトの登録を行う。
-     *
-     * @param col    コインの列番号
-     * @param row    コインの行番号
-     * @param playSE true なら効果音を鳴らす
+     * アイテムを拾ったときの演出。
+     * スコアの更新、スコアテキストのエフェクトの登録、効果音、ガイドメッセージの更新を行う。
+     * コインの杖で拾ったコインの効果音は {@link #onCoinRodUsed} でまとめて鳴らす。
      */
-    private void coinGetAction(int col, int row, boolean playSE) {
-        this.mapData.setItemType(col, row, ItemType.NONE);
-
-        final int score = (int) (ItemType.COIN.getScore() * getScoreCoefficient());
+    @Override
+    public void onItemCollected(int x, int y, ItemType itemType, int score, boolean byCoinRod) {
         this.headerPanel.incrementScore(score);
 
         registerScoreTextFloatAnimation(score,
-                mapView.getCellDrawnX(col), mapView.getCellDrawnY(row),
-                this.topLayerDrawable, isFeverMode);
+                mapView.getCellDrawnX(x), mapView.getCellDrawnY(y),
+                this.topLayerDrawable, simulation.isFeverMode());
 
-        if (playSE) {
-            this.coinSE.play();
-        }
-    }
+        switch (itemType) {
+            case COIN:
+                if (!byCoinRod) {
+                    this.coinSE.play();
+                }
+                break;
 
-    /**
-     * キーを取得したときに呼び出す。
-     * マップの更新、スコアの更新、スコアテキストのエフェクトの登録、ガイドメッセージの更新を行う。
-     *
-     * @param col    キーの列番号
-     * @param row    キーの行番号
-     * @param playSE true なら効果音を鳴らす
-     */
-    private void keyGetAction(int col, int row, boolean playSE) {
-        this.mapData.setItemType(col, row, ItemType.NONE);
+            case KEY:
+                headerPanel.setGotKeyCount(mapData.countRemovedKeys());
 
-        headerPanel.setGotKeyCount(mapData.countRemovedKeys());
+                final int n = mapData.countExistingKeys();
+                if (n > 0) {
+                    this.guideMessage.setMessage("カギを拾った！ のこり " + n + " つ！");
+                }
+                this.keySE.play();
+                break;
 
-        if (mapData.countExistingKeys() <= 0) {
-            this.mapData.setGoalOpen(true);
-            this.guideMessage.setMessage("カギを すべて 拾って ゴールの 扉 が開いた！");
-        } else {
-            final int n = mapData.countExistingKeys();
-            this.guideMessage.setMessage("カギを拾った！ のこり " + n + " つ！");
+            default:
+                break;
         }
+    }
 
-        final int score = (int) (ItemType.KEY.getScore() * getScoreCoefficient());
-        this.headerPanel.incrementScore(score);
-
-        registerScoreTextFloatAnimation(score,
-                mapView.getCellDrawnX(col), mapView.getCellDrawnY(row),
-                this.topLayerDrawable, isFeverMode);
-
-        if (playSE) {
-            this.keySE.play();
-        }
+    @Override
+    public void onGoalOpened() {
+        this.guideMessage.setMessage("カギを すべて 拾って ゴールの 扉 が開いた！");
     }
 
     /**
@@ -434,216 +653,102 @@ public class MazePhase implements Phase {
      * エフェクトは引数の drawableExecutor に登録される。
      */
     private static void registerScoreTextFloatAnimation(int score, int x, int y, DrawableExecutor drawableExecutor, boolean isFeverMode) {
-        drawableExecutor.registerAndPlay(new TextFloatUpAnimation(
-                "+" + score,
+        drawableExecutor.registerAndPlay(TextFloatUpAnimation.obtain(
+                (score >= 0 ? "+" : "") + score,
                 x, y,
-                Font.font("sans-serif", FontWeight.BLACK, isFeverMode ? 24 : 18),
+                isFeverMode ? scoreTextFontFever : scoreTextFontNormal,
                 Color.WHITE,
                 isFeverMode ? Color.BLUE : Color.DARKORANGE,
-                Duration.millis(800),
+                SCORE_TEXT_FLOAT_UP_MILLI,
                 24
         ));
     }
 
     /**
-     * プレイヤーのマス位置が変化した直後に呼び出される処理。
-     * (マス位置であり、描画座標ではない)
+     * ゴールしたときの演出。
+     * BGMの停止、ボタンの無効化、ゴールパネルの登場処理などを行う。
      */
-    private void onPlayerMoved(MoveChara chara) {
-        final int playerCol = player.getPosCol();
-        final int playerRow = player.getPosRow();
-
-        // ゴール扉が開いている状態でゴールマスに重なったらゴール処理
-        if (mapData.isGoalOpen() && playerCol == mapData.getGoalX() && playerRow == mapData.getGoalY()) {
-            goalAction();
-        }
-
-        // プレイヤーがアイテムマスに重なったならアイテム拾得処理
-        if (mapData.getItemType(playerCol, playerRow) != ItemType.NONE) {
-            itemGetAction(playerCol, playerRow);
-        }
-    }
-
-    /**
-     * ゴール処理を行う。
-     * 時間計測の停止やBGMの停止、アニメーションの停止、ゴールパネルの登場処理などを行う。
-     */
-    public void goalAction() {
-        this.goalStopwatch.stop();
-        this.isPlayerControllable = false;
-        this.hasGoaled = true;
+    @Override
+    public void onGoal() {
         this.normalBGM.stop();
         this.feverBGM.stop();
         this.goalSE.play();
 
         this.btnCoinTrail.getButton().setButtonEnabled(false);
-        this.btnCoinTrail.pause();
         this.btnCollectNeighborCoin.getButton().setButtonEnabled(false);
-        this.btnCollectNeighborCoin.pause();
         this.btnFever.getButton().setButtonEnabled(false);
-        this.btnFever.pause();
 
-        new TaskScheduleTimer(2000) {
-            @Override
-            public void task() {
-                goalResultPanel = new GoalResultPanel("GOAL!", ((int) goalStopwatch.getCurTime().toSeconds()), headerPanel.getScore(), scene);
-                goalResultPanel.getBtnNewMap().setOnMouseClicked(event -> createAndGotoNextMaze());
-                goalResultPanel.getBtnToTitle().setOnMouseClicked(event -> {
-                    final Phase nextPhase = new TitlePhase(scene);
-                    scene.changePhase(nextPhase);
-                });
-
-                final int fromY = -1 * goalResultPanel.getHeight();
-                final int toY = (mapView.getMapHeight() - goalResultPanel.getHeight()) / 2 + mapView.getMapTopY();
-
-                goalResultPanel.setX((mapView.getMapWidth() - goalResultPanel.getWidth()) / 2);
-                goalResultPanel.setY(fromY);
-
-                new Transition() {
-                    {
-                        setCycleDuration(Duration.millis(1000));
-                    }
-
-                    @Override
-                    protected void interpolate(double frac) {
-                        final double k = Easing.easeOutBounce(frac);
-                        goalResultPanel.setY((int) (fromY + (toY - fromY) * k));
-                    }
-                }.play();
-            }
-        }.start();
-    }
+        // ゴール後はゲームプレイ中に予約した演出 (コインの杖の効果音など) を実行しない
+        this.taskScheduler.cancelAll();
 
-    /**
-     * 次のマップへ遷移する
-     */
-    public void createAndGotoNextMaze() {
-        Phase nextPhase = new MazePhase(this.scene);
-        this.scene.changePhase(nextPhase);
-    }
+        this.taskScheduler.schedule(2000, () -> {
+            goalResultPanel = new GoalResultPanel("GOAL!", simulation.getElapsedSeconds(), simulation.getScore(), scene);
+            goalResultPanel.getBtnNewMap().setOnMouseClicked(event -> createAndGotoNextMaze());
+            goalResultPanel.getBtnToTitle().setOnMouseClicked(event -> {
+                final Phase nextPhase = new TitlePhase(scene);
+                scene.changePhase(nextPhase);
+            });
 
-    // Operations for going the cat up
-    public void moveUpAction() {
-        if (player.getMoveTransitionStatus() == Animation.Status.RUNNING) return;
-        player.setCharaDirection(MoveChara.TYPE_UP);
-        player.moveBy(0, -1, playerMoveDuration);
-    }
+            final int fromY = -1 * goalResultPanel.getHeight();
+            final int toY = (MAZE_AREA_HEIGHT - goalResultPanel.getHeight()) / 2 + HEADER_PANEL_HEIGHT;
 
-    // Operations for going the cat down
-    public void moveDownAction() {
-        if (player.getMoveTransitionStatus() == Animation.Status.RUNNING) return;
-        player.setCharaDirection(MoveChara.TYPE_DOWN);
-        player.moveBy(0, 1, playerMoveDuration);
-    }
+            goalResultPanel.setX((MAZE_AREA_WIDTH - goalResultPanel.getWidth()) / 2);
+            goalResultPanel.setY(fromY);
 
-    // Operations for going the cat right
-    public void moveLeftAction() {
-        if (player.getMoveTransitionStatus() == Animation.Status.RUNNING) return;
-        player.setCharaDirection(MoveChara.TYPE_LEFT);
-        player.moveBy(-1, 0, playerMoveDuration);
-    }
+            new Transition() {
+                {
+                    setCycleDuration(Duration.millis(1000));
+                }
 
-    // Operations for going the cat right
-    public void moveRightAction() {
-        if (player.getMoveTransitionStatus() == Animation.Status.RUNNING) return;
-        player.setCharaDirection(MoveChara.TYPE_RIGHT);
-        player.moveBy(1, 0, playerMoveDuration);
+                @Override
+                protected void interpolate(double frac) {
+                    final double k = Easing.easeOutBounce(frac);
+                    goalResultPanel.setY((int) (fromY + (toY - fromY) * k));
+                }
+            }.play();
+        });
     }
 
     /**
-     * スペースキーが押されたときの処理。ボムを設置する。
+     * 次のマップへ遷移する。マップは今の迷路を遊んでいる間に生成済みなので、すぐに遷移できる。
      */
-    public void spaceButtonAction() {
-        if (bombExecutor.isExistsBombAt(player.getPosCol(), player.getPosRow())) {
-            return;
-        }
-
-        if (this.isFeverMode) {
-            if (bombExecutor.countBombByClass(GoldBomb.class) >= 5) return;
-            bombExecutor.registerAndStartCountDown(new GoldBomb(player.getPosCol(), player.getPosRow()));
-        } else {
-            if (bombExecutor.countBombByClass(NormalBomb.class) >= 3) return;
-            bombExecutor.registerAndStartCountDown(new NormalBomb(player.getPosCol(), player.getPosRow()));
-        }
-    }
-
-    private void requirePutCoinTrail() {
-        if (!btnCoinTrail.getButton().isButtonEnabled()) return;
-        if (hasGoaled) return;
-        putCoinTrailToGoal();
-    }
-
-    private void requireCollectCoinsAroundPlayer(int dist) {
-        if (!btnCollectNeighborCoin.getButton().isButtonEnabled()) return;
-        if (hasGoaled) return;
-        collectCoinsAroundPlayer(dist);
+    public void createAndGotoNextMaze() {
+        Phase nextPhase = new MazePhase(this.scene);
+        this.scene.changePhase(nextPhase);
     }
 
-    private void requireEnterFeverMode() {
-        if (!btnFever.getButton().isButtonEnabled()) return;
-        if (hasGoaled) return;
-        enterFeverMode();
+    @Override
+    public void onSkillReady(Skill skill) {
+        switch (skill) {
+            case COIN_TRAIL:
+                guideMessage.setMessage("コインの小道 が使えるようになった！ [1]キーを押すとコインがゴールへ導いてくれる！");
+                break;
+            case COIN_ROD:
+                guideMessage.setMessage("コインの杖 が使えるようになった！ [2]キー を押して周囲 2 マスのコインを一気にゲット！");
+                break;
+            case FEVER:
+                guideMessage.setMessage("フィーバースター が使えるようになった！ [3]キー を押して フィーバー だ！");
+                break;
+        }
     }
 
-    /**
-    * コインの小道を発動する。
-    */
-    public void putCoinTrailToGoal() {
-        this.btnCoinTrail.gageStartFromEmpty(gageDuration_coinTrail);
+    @Override
+    public void onCoinTrailStarted() {
         guideMessage.setMessage("コインの小道 発動！ コインの道が作られていく！");
+    }
 
-        final List<Pos> path = calcShortestPath(
-                this.player.getPos(), this.mapData.getGoalPos(),
-                mapData.getWidth(), mapData.getHeight(),
-                pos -> mapData.getCellType(pos.col, pos.row).isMovable());
-
-        final AudioClip coinPutSE = new AudioClip(MapGame.getResourceAsString("sound/coin8.wav"));
-
-        for (int i = 0; i < path.size(); i++) {
-            final Pos pos = path.get(i);
-            if (mapData.getItemType(pos.col, pos.row) != ItemType.NONE) continue;
-            if (i == 0 || i == path.size() - 1) continue;
-
-            new TaskScheduleTimer(i * 80L) {
-                @Override
-                public void task() {
-                    if (hasGoaled) return;
-                    mapData.setItemType(pos.col, pos.row, ItemType.COIN);
-                    coinPutSE.play();
-                }
-            }.start();
-        }
+    @Override
+    public void onCoinTrailCoinPlaced(int x, int y) {
+        this.coinPutSE.play();
     }
 
     /**
-     * コインの杖を発動する。
-     * プレイヤーのマスを (px, py) として、
-     * (x, y) s.t. (px - dist <= x <= dx + dist) && (py - dist <= y <= py + dist)
-     * であるようなマス (x, y) にあるコイン全てを取得する。
-     * 効果音も鳴らす。
+     * コインの杖を発動したときの演出。拾ったコインの枚数だけ、少しずつずらして効果音を鳴らす。
      */
-    public void collectCoinsAroundPlayer(int dist) {
-        this.btnCollectNeighborCoin.gageStartFromEmpty(gageDuration_collectCoins);
-
-        int collectedCoinCount = 0;
-
-        final int centerRow = player.getPosRow();
-        final int centerCol = player.getPosCol();
-        for (int y = centerRow - dist; y <= centerRow + dist; ++y) {
-            for (int x = centerCol - dist; x <= centerCol + dist; ++x) {
-                if (y < 0 || x < 0 || y >= mapData.getHeight() || x >= mapData.getWidth()) continue;
-                if (mapData.getItemType(x, y) != ItemType.COIN) continue;
-
-                coinGetAction(x, y, false);
-                ++collectedCoinCount;
-
-                new TaskScheduleTimer(30L * collectedCoinCount) {
-                    @Override
-                    public void task() {
-                        coinSE.play();
-                    }
-                }.start();
-            }
+    @Override
+    public void onCoinRodUsed(int collectedCoinCount) {
+        for (int k = 1; k <= collectedCoinCount; ++k) {
+            this.taskScheduler.schedule(30L * k, coinSE::play);
         }
 
         if (collectedCoinCount <= 0) {
@@ -654,63 +759,89 @@ public class MazePhase implements Phase {
     }
 
     /**
-     * フィーバースターを発動する。
-     * FEVER_KEEP_TIME_MILLI ミリ秒後にフィーバーモードは解除されて通常モードになる。
+     * フィーバーモードになったときの演出。BGMを切り替えて、暗闇の穴を画面全体に広げる。
      */
-    public void enterFeverMode() {
-        if (this.isFeverMode) return;
-        this.btnFever.setGage(0.0);
+    @Override
+    public void onFeverStarted() {
         guideMessage.setMessage("フィーバーモード！ スペースキーでゴールドボムが使えるぞ！");
 
         this.normalBGM.pause();
         this.feverBGM.play();
-        isFeverMode = true;
-        this.playerMoveDuration = playerFeverMoveDuration;
+        this.playHollowRadiusTransition(normalHollowRadius, MAZE_AREA_WIDTH * 2);
+    }
 
-        final double initRadius = this.blindHollowAtPlayer.getRadius();
-        final double targetRadius = this.mapView.getMapWidth() * 2;
+    /**
+     * フィーバーモードが終わったときの演出。BGMを元に戻して、暗闇の穴を元の大きさに戻す。
+     */
+    @Override
+    public void onFeverEnded() {
+        this.normalBGM.play();
+        this.feverBGM.stop();
+        this.playHollowRadiusTransition(MAZE_AREA_WIDTH * 2, normalHollowRadius);
+    }
+
+    /**
+     * 暗闇の穴の半径を fromRadius から toRadius に変化させる。
+     * 視界は変化の途中で計算し直さないよう、変化の間は大きい方の半径で計算し、終わったら toRadius に合わせる。
+     */
+    private void playHollowRadiusTransition(double fromRadius, double toRadius) {
+        this.fieldOfView.setRadius(toSightRadius(Math.max(fromRadius, toRadius)));
 
-        new Transition() {
+        final Transition transition = new Transition() {
             {
                 setCycleDuration(Duration.millis(1000));
             }
 
             @Override
             protected void interpolate(double frac) {
-                final double r = initRadius + (targetRadius - initRadius) * frac;
+                final double r = fromRadius + (toRadius - fromRadius) * frac;
                 blindHollowAtPlayer.setRadius(r);
             }
-        }.play();
+        };
+        transition.setOnFinished(evt -> this.fieldOfView.setRadius(toSightRadius(toRadius)));
+        transition.play();
+    }
 
-        new TaskScheduleTimer(FEVER_KEEP_TIME_MILLI) {
-            @Override
-            public void task() {
-                if (hasGoaled) return;
-                normalBGM.play();
-                feverBGM.stop();
-                isFeverMode = false;
-                playerMoveDuration = playerNormalMoveDuration;
-                btnFever.gageStartFromEmpty(gageDuration_fever);
-
-                new Transition() {
-                    {
-                        setCycleDuration(Duration.millis(1000));
-                    }
-
-                    @Override
-                    protected void interpolate(double frac) {
-                        final double r = targetRadius + (initRadius - targetRadius) * frac;
-                        blindHollowAtPlayer.setRadius(r);
-                    }
-                }.play();
-            }
-        }.start();
+    @Override
+    public void onBombWaveExploded(AbstractBomb firstBomb) {
+        this.bombView.onBombWaveExploded(firstBomb);
+    }
+
+    @Override
+    public void onCellBlasted(int x, int y) {
+        this.bombView.onCellBlasted(x, y);
+
+        final int sHalf = mapView.getCellSize() / 2;
+        this.lighting.flash(mapView.getCellDrawnX(x) + sHalf, mapView.getCellDrawnY(y) + sHalf,
+                mapView.getCellSize() * EXPLOSION_LIGHT_RATIO, EXPLOSION_LIGHT_MILLI);
+    }
+
+    /**
+     * 敵を倒したときの演出。スコアの更新とスコアテキストのエフェクトの登録を行う。
+     */
+    @Override
+    public void onEnemyKilled(int x, int y, int score) {
+        this.headerPanel.incrementScore(score);
+        registerScoreTextFloatAnimation(score,
+                mapView.getCellDrawnX(x), mapView.getCellDrawnY(y),
+                this.topLayerDrawable, simulation.isFeverMode());
+    }
+
+    /**
+     * 敵に捕まったときの演出。スコアの更新、減ったスコアのエフェクトの登録、ガイドメッセージの更新を行う。
+     */
+    @Override
+    public void onPlayerCaught(int x, int y, int lostScore) {
+        this.headerPanel.incrementScore(-lostScore);
+        registerScoreTextFloatAnimation(-lostScore,
+                mapView.getCellDrawnX(x), mapView.getCellDrawnY(y),
+                this.topLayerDrawable, false);
+        this.guideMessage.setMessage("敵に捕まった！ ボムの爆風で倒せるぞ！");
     }
 
     /**
      * start から goal までの最短ルートを List として返す。
-     * List の先頭要素は start で、末尾要素は goal である。
-     * 最短ルートが複数ある場合は、そのうちのどれが選ばれるかは実装依存である。
+     * 処理は {@link GridPathFinder#calcShortestPath} に委譲する。
      *
      * @param start      スタートマスの位置
      * @param goal       ゴールマスの位置
@@ -718,55 +849,6 @@ public class MazePhase implements Phase {
      * @return start から goal までの最短ルート
      */
     public static List<Pos> calcShortestPath(Pos start, Pos goal, int ncol, int nrow, Predicate<Pos> canBeTrail) {
-        final int[] directions = {0, 1, -1, 0};
-
-        Queue<Pos> que = new ArrayDeque<>();
-
-        int[][] dist = new int[nrow][ncol];
-        for (int[] a : dist) {
-            Arrays.fill(a, -1);
-        }
-
-        // goal から BFS する
-        que.add(goal);
-        dist[goal.row][goal.col] = 0;
-
-        while (!que.isEmpty()) {
-            Pos cur = que.poll();
-            if (cur.equals(start)) break;
-
-            for (int i = 0; i < 4; ++i) {
-                final int ny = cur.row + directions[i];
-                final int nx = cur.col + directions[i ^ 1];
-                final Pos nextPos = new Pos(nx, ny);
-
-                if (ny < 0 || ny >= nrow || nx < 0 || nx >= ncol) continue;
-                if (!canBeTrail.test(nextPos)) continue;
-                if (dist[ny][nx] != -1) continue;
-
-                dist[ny][nx] = dist[cur.row][cur.col] + 1;
-                que.add(nextPos);
-            }
-        }
-
-        // start から goal に向かって経路復元する
-
-        final int distance = dist[start.row][start.col];
-        final List<Pos> path = new ArrayList<>(distance);
-        Pos cur = start;
-        while (!cur.equals(goal)) {
-            path.add(cur);
-            for (int i = 0; i < 4; ++i) {
-                final int ny = cur.row + directions[i];
-                final int nx = cur.col + directions[i ^ 1];
-                if (ny < 0 || ny >= nrow || nx < 0 || nx >= ncol) continue;
-                if (dist[ny][nx] == dist[cur.row][cur.col] - 1) {
-                    cur = new Pos(nx, ny);
-                    break;
-                }
-            }
-        }
-        path.add(goal);
-        return path;
+        return GridPathFinder.calcShortestPath(start, goal, ncol, nrow, canBeTrail);
     }
 }
@@ -0,0 +1,490 @@
+import java.util.Random;
+
+/**
+ * 迷路ゲームの規則を実装するシミュレーション。JavaFX に依存しない。
+ * <p>
+ * マップ、プレイヤーの移動、ボム、敵、アイテムの取得、スコア、カギ、特技のゲージ、フィーバーモード、ゴールを扱う。
+ * 時間は {@link #tick()} を呼んだ回数で進み、 1 tick は 1/{@value #TICKS_PER_SECOND} 秒である。
+ * 画面を持たない環境でも、 tick() を繰り返し呼ぶことでゲームを実時間より速く進められる。
+ * <p>
+ * 効果音やエフェクトなどの表示は、 {@link MazeSimulationListener} で通知を受けた描画側が行う。
+ */
+public class MazeSimulation {
+    public static final int TICKS_PER_SECOND = 60;
+    public static final long TICK_NANO = 1000000000L / TICKS_PER_SECOND;
+
+    private static final int NORMAL_MOVE_TICKS = 15;    // 250 ms
+    private static final int FEVER_MOVE_TICKS = 7;      // 約 120 ms
+    private static final long FEVER_KEEP_TIME_MILLI = 15 * 1000;
+    private static final long COIN_TRAIL_INTERVAL_MILLI = 80;
+    private static final int COIN_ROD_RANGE = 2;
+    private static final int MAX_NORMAL_BOMB_COUNT = 3;
+    private static final int MAX_GOLD_BOMB_COUNT = 5;
+
+    // 敵は通れるマス CELLS_PER_ENEMY 個につき一体 (最大 MAX_ENEMY_COUNT 体)、
+    // スタートから ENEMY_SPAWN_MIN_DISTANCE 歩以上 ENEMY_CHASE_RADIUS 歩以下だけ離れたマスに出る。
+    // 敵はプレイヤーから ENEMY_CHASE_RADIUS 歩以内にいるときだけ追いかける (21x15 の迷路なら全てのマスが入る)。
+    private static final int ENEMY_MOVE_TICKS = 24;     // 400 ms
+    private static final int CELLS_PER_ENEMY = 80;
+    private static final int MAX_ENEMY_COUNT = 300;
+    private static final int ENEMY_CHASE_RADIUS = 128;
+    private static final int ENEMY_SPAWN_MIN_DISTANCE = 10;
+    private static final int ENEMY_SCORE = 200;
+    private static final int ENEMY_CATCH_PENALTY = 300;
+
+    private static final Skill[] SKILLS = Skill.values();
+
+    // 何もしない通知先。リスナーが設定されていないときに使う。
+    private static final MazeSimulationListener NO_LISTENER = new MazeSimulationListener() {
+    };
+
+    private final MapData mapData;
+    private final PlayerMotion player;
+    private final BombExecutor bombExecutor;
+    private final EnemySwarm enemySwarm;
+    private final KeyRouteSolver routeSolver;
+
+    // ボムの通知を通知先に伝えつつ、爆風が届いたマスを敵の群れに記録するもの
+    private final MazeSimulationListener bombListener = new MazeSimulationListener() {
+        @Override
+        public void onBombWaveExploded(AbstractBomb firstBomb) {
+            listener.onBombWaveExploded(firstBomb);
+        }
+
+        @Override
+        public void onCellBlasted(int x, int y) {
+            enemySwarm.markBlasted(mapData.toCellIndex(x, y));
+            listener.onCellBlasted(x, y);
+        }
+    };
+
+    // コインの小道やフィーバーの解除など、シミュレーションの時間で遅らせて実行する処理
+    private final TaskScheduler taskScheduler = new TaskScheduler();
+
+    private MazeSimulationListener listener = NO_LISTENER;
+
+    // 設定されていれば、外から受けた操作をリプレイとして記録する
+    private ReplayLog recorder = null;
+
+    private long tickCount = 0;
+    private long goaledTickCount = -1;
+    private int score = 0;
+    private boolean isFeverMode = false;
+    private boolean hasGoaled = false;
+    private int moveDirection = PlayerMotion.TYPE_NONE;
+
+    // 特技毎のゲージの溜まり具合 (tick) と、ゲージを溜めている最中かどうか
+    private final int[] skillChargeTicks = new int[SKILLS.length];
+    private final boolean[] isSkillCharging = new boolean[SKILLS.length];
+
+    /**
+     * マップ mapData でゲームを始める。プレイヤーはマップのスタート位置に置かれ、特技のゲージは空から溜まり始める。
+     *
+     * @param mapData マップ
+     */
+    public MazeSimulation(MapData mapData) {
+        this.mapData = mapData;
+        this.player = new PlayerMotion(mapData.getPlayerStartX(), mapData.getPlayerStartY());
+        this.bombExecutor = new BombExecutor(mapData.getWidth(), mapData.getHeight());
+        this.routeSolver = new KeyRouteSolver(mapData.getWidth(), mapData.getHeight());
+
+        // 敵はマップのシードから決まるマスに出すので、同じマップなら同じ配置になる
+        this.enemySwarm = new EnemySwarm(mapData, ENEMY_MOVE_TICKS, ENEMY_CHASE_RADIUS);
+        this.enemySwarm.setTarget(mapData.toCellIndex(player.getPosCol(), player.getPosRow()));
+        final int enemyCount = Math.min(countMovableCells(mapData) / CELLS_PER_ENEMY, MAX_ENEMY_COUNT);
+        this.enemySwarm.spawnAwayFromTarget(enemyCount, ENEMY_SPAWN_MIN_DISTANCE, new Random(mapData.getSeed()));
+        mapData.addCellChangeListener((x, y, cellType) -> this.enemySwarm.onCellChanged(mapData.toCellIndex(x, y)));
+
+        for (final Skill skill : SKILLS) {
+            this.isSkillCharging[skill.ordinal()] = true;
+        }
+        this.taskScheduler.update(0);
+    }
+
+    /**
+     * 出来事の通知先を設定する。 null を渡すと通知しなくなる。
+     */
+    public void setListener(MazeSimulationListener listener) {
+        this.listener = (listener == null) ? NO_LISTENER : listener;
+    }
+
+    /**
+     * 以降に外から受けた操作 (移動する向きの変更、ボム、特技、強制ゴール) を、受けた時点の tick 数とともに recorder に記録する。
+     * null を渡すと記録しなくなる。
+     */
+    public void setRecorder(ReplayLog recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * プレイヤーが移動しようとする向きを設定する。
+     * 設定した向きは次に変更するまで保たれ、プレイヤーは移動を終えるたびにその向きへ移動し続ける。
+     *
+     * @param direction {@link PlayerMotion} の TYPE_DOWN, TYPE_LEFT, TYPE_RIGHT, TYPE_UP,
+     *                  または移動しないことを表す TYPE_NONE
+     */
+    public void setMoveDirection(int direction) {
+        if (recorder != null && direction != moveDirection) {
+            recorder.recordMove(tickCount, direction);
+        }
+        this.moveDirection = direction;
+    }
+
+    /**
+     * シミュレーションを 1 tick 進める。
+     */
+    public void tick() {
+        ++tickCount;
+        taskScheduler.update(tickCount * TICK_NANO);
+        bombExecutor.update(mapData, bombListener);
+        enemySwarm.removeBlastedEnemies(this::onEnemyBlasted);
+
+        if (!hasGoaled && moveDirection != PlayerMotion.TYPE_NONE) {
+            player.tryStartMove(moveDirection, isFeverMode ? FEVER_MOVE_TICKS : NORMAL_MOVE_TICKS, mapData);
+        }
+        if (player.tick()) {
+            this.onPlayerMoved();
+        }
+
+        if (!hasGoaled) {
+            enemySwarm.tick();
+            this.checkEnemyContact();
+            this.chargeSkills();
+        }
+    }
+
+    private static int countMovableCells(MapData mapData) {
+        final int cellCount = mapData.getWidth() * mapData.getHeight();
+        int count = 0;
+        for (int cell = 0; cell < cellCount; ++cell) {
+            if (mapData.isMovableAt(cell)) ++count;
+        }
+        return count;
+    }
+
+    /**
+     * 爆風が届いたマス cell にいた敵を倒したときの処理。
+     */
+    private void onEnemyBlasted(int cell) {
+        final int gainedScore = (int) (ENEMY_SCORE * getScoreCoefficient());
+        score += gainedScore;
+        listener.onEnemyKilled(mapData.getCellX(cell), mapData.getCellY(cell), gainedScore);
+    }
+
+    /**
+     * プレイヤーのマスにいる敵を取り除く。フィーバーモードなら敵を倒し、そうでなければプレイヤーが捕まってスコアが減る。
+     */
+    private void checkEnemyContact() {
+        final int col = player.getPosCol();
+        final int row = player.getPosRow();
+        final int n = enemySwarm.removeEnemiesAt(mapData.toCellIndex(col, row));
+        for (int i = 0; i < n; ++i) {
+            if (isFeverMode) {
+                final int gainedScore = (int) (ENEMY_SCORE * getScoreCoefficient());
+                score += gainedScore;
+                listener.onEnemyKilled(col, row, gainedScore);
+            } else {
+                final int lostScore = Math.min(score, ENEMY_CATCH_PENALTY);
+                score -= lostScore;
+                listener.onPlayerCaught(col, row, lostScore);
+            }
+        }
+    }
+
+    private void chargeSkills() {
+        for (final Skill skill : SKILLS) {
+            final int i = skill.ordinal();
+            if (!isSkillCharging[i]) continue;
+
+            if (++skillChargeTicks[i] >= getSkillChargeTicks(skill)) {
+                isSkillCharging[i] = false;
+                listener.onSkillReady(skill);
+            }
+        }
+    }
+
+    private static int getSkillChargeTicks(Skill skill) {
+        return skill.getChargeSeconds() * TICKS_PER_SECOND;
+    }
+
+    /**
+     * プレイヤーのマス位置が変化した直後の処理。
+     */
+    private void onPlayerMoved() {
+        final int playerCol = player.getPosCol();
+        final int playerRow = player.getPosRow();
+        listener.onPlayerMoved(playerCol, playerRow);
+
+        // 敵の距離場は、プレイヤーのマスが変わったときだけ次の enemySwarm.tick() で計算し直される
+        enemySwarm.setTarget(mapData.toCellIndex(playerCol, playerRow));
+
+        // ゴール扉が開いている状態でゴールマスに重なったらゴール処理
+        if (!hasGoaled && mapData.isGoalOpen() && playerCol == mapData.getGoalX() && playerRow == mapData.getGoalY()) {
+            this.reachGoal();
+        }
+
+        // プレイヤーがアイテムマスに重なったならアイテム拾得処理
+        if (mapData.getItemType(playerCol, playerRow) != ItemType.NONE) {
+            this.collectItem(playerCol, playerRow, false);
+        }
+    }
+
+    /**
+     * スコアを取得したときに乗算する値。
+     * フィーバーモードなら x1.5倍, そうでなければ 1.0 倍
+     */
+    private double getScoreCoefficient() {
+        return isFeverMode ? 1.5 : 1.0;
+    }
+
+    /**
+     * マス(col, row) のアイテムを拾う。マップとスコアを更新し、カギを全て拾ったらゴールの扉を開ける。
+     */
+    private void collectItem(int col, int row, boolean byCoinRod) {
+        final ItemType itemType = mapData.getItemType(col, row);
+        mapData.setItemType(col, row, ItemType.NONE);
+
+        final int gainedScore = (int) (itemType.getScore() * getScoreCoefficient());
+        score += gainedScore;
+        listener.onItemCollected(col, row, itemType, gainedScore, byCoinRod);
+
+        if (itemType == ItemType.KEY && mapData.countExistingKeys() <= 0) {
+            mapData.setGoalOpen(true);
+            listener.onGoalOpened();
+        }
+    }
+
+    /**
+     * ゴールしたことにする。以降はプレイヤーを操作できず、特技のゲージも溜まらない。
+     */
+    public void goal() {
+        if (recorder != null) {
+            recorder.recordGoal(tickCount);
+        }
+        this.reachGoal();
+    }
+
+    private void reachGoal() {
+        if (hasGoaled) return;
+        hasGoaled = true;
+        goaledTickCount = tickCount;
+        moveDirection = PlayerMotion.TYPE_NONE;
+
+        // ゴール後はゲームプレイ中に予約した処理 (コインの小道やフィーバーの解除など) を実行しない
+        taskScheduler.cancelAll();
+        listener.onGoal();
+    }
+
+    /**
+     * プレイヤーのマスにボムを置く。
+     * フィーバーモードならゴールドボムを最大 5 個、そうでなければ通常のボムを最大 3 個まで置ける。
+     *
+     * @return ボムを置いたなら true
+     */
+    public boolean placeBomb() {
+        if (recorder != null) {
+            recorder.recordBomb(tickCount);
+        }
+        if (hasGoaled) return false;
+
+        final int col = player.getPosCol();
+        final int row = player.getPosRow();
+        if (bombExecutor.isExistsBombAt(col, row)) return false;
+
+        if (isFeverMode) {
+            if (bombExecutor.countBombByClass(GoldBomb.class) >= MAX_GOLD_BOMB_COUNT) return false;
+            bombExecutor.register(new GoldBomb(col, row));
+        } else {
+            if (bombExecutor.countBombByClass(NormalBomb.class) >= MAX_NORMAL_BOMB_COUNT) return false;
+            bombExecutor.register(new NormalBomb(col, row));
+        }
+        return true;
+    }
+
+    /**
+     * 特技 skill を使う。
+     *
+     * @param skill       使う特技
+     * @param ignoreGauge true ならゲージが溜まっていなくても使う (デバッグ用)
+     * @return 特技を使ったなら true
+     */
+    public boolean useSkill(Skill skill, boolean ignoreGauge) {
+        if (recorder != null) {
+            recorder.recordSkill(tickCount, skill, ignoreGauge);
+        }
+        if (hasGoaled) return false;
+        if (!ignoreGauge && !this.isSkillReady(skill)) return false;
+
+        switch (skill) {
+            case COIN_TRAIL:
+                this.putCoinTrailToGoal();
+                return true;
+            case COIN_ROD:
+                this.collectCoinsAroundPlayer(COIN_ROD_RANGE);
+                return true;
+            case FEVER:
+                return this.enterFeverMode();
+            default:
+                return false;
+        }
+    }
+
+    private void restartSkillCharge(Skill skill) {
+        skillChargeTicks[skill.ordinal()] = 0;
+        isSkillCharging[skill.ordinal()] = true;
+    }
+
+    /**
+     * コインの小道を発動する。
+     * プレイヤーのマスから残りのカギを全て拾ってゴールするまでの最短ルート上の空きマスに、 80 ミリ秒おきに一枚ずつコインを置いていく。
+     * カギに歩いて行けない場合は、カギを無視してゴールまでの最短ルートに置く。
+     */
+    private void putCoinTrailToGoal() {
+        this.restartSkillCharge(Skill.COIN_TRAIL);
+        listener.onCoinTrailStarted();
+
+        // ルートの先頭 (プレイヤーのマス) と末尾 (ゴールのマス) にはコインを置かない。
+        final int playerCell = mapData.toCellIndex(player.getPosCol(), player.getPosRow());
+        final KeyRouteSolver.Route route = routeSolver.solveFastest(mapData, playerCell);
+        if (route.isFound()) {
+            final int[] path = route.getPath();
+            for (int i = 0; i + 1 < path.length; ++i) {
+                this.scheduleTrailCoin(i + 1, path[i]);
+            }
+            return;
+        }
+
+        // ゴールからの距離場を、プレイヤーのマスからゴールに一歩ずつ近づくように辿る。
+        final DistanceField goalDistanceField = mapData.getGoalDistanceField();
+        int cell = goalDistanceField.nextCellTowardRoot(playerCell);
+        for (int i = 1; cell >= 0 && goalDistanceField.getDistance(cell) > 0; i++) {
+            this.scheduleTrailCoin(i, cell);
+            cell = goalDistanceField.nextCellTowardRoot(cell);
+        }
+    }
+
+    /**
+     * コインの小道の i 枚目のコインを、セル番号 cell のマスが空いていれば置くように予約する。
+     */
+    private void scheduleTrailCoin(int i, int cell) {
+        if (mapData.getItemTypeAt(cell) != ItemType.NONE) return;
+        final int col = mapData.getCellX(cell);
+        final int row = mapData.getCellY(cell);
+        taskScheduler.schedule(i * COIN_TRAIL_INTERVAL_MILLI, () -> {
+            mapData.setItemType(col, row, ItemType.COIN);
+            listener.onCoinTrailCoinPlaced(col, row);
+        });
+    }
+
+    /**
+     * コインの杖を発動する。
+     * プレイヤーのマスを (px, py) として、
+     * (x, y) s.t. (px - dist <= x <= px + dist) && (py - dist <= y <= py + dist)
+     * であるようなマス (x, y) にあるコイン全てを取得する。
+     */
+    private void collectCoinsAroundPlayer(int dist) {
+        this.restartSkillCharge(Skill.COIN_ROD);
+
+        int collectedCoinCount = 0;
+
+        final int centerRow = player.getPosRow();
+        final int centerCol = player.getPosCol();
+        for (int y = centerRow - dist; y <= centerRow + dist; ++y) {
+            for (int x = centerCol - dist; x <= centerCol + dist; ++x) {
+                if (y < 0 || x < 0 || y >= mapData.getHeight() || x >= mapData.getWidth()) continue;
+                if (mapData.getItemType(x, y) != ItemType.COIN) continue;
+
+                this.collectItem(x, y, true);
+                ++collectedCoinCount;
+            }
+        }
+
+        listener.onCoinRodUsed(collectedCoinCount);
+    }
+
+    /**
+     * フィーバースターを発動する。
+     * FEVER_KEEP_TIME_MILLI ミリ秒後にフィーバーモードは解除されて通常モードになり、ゲージが再び溜まり始める。
+     *
+     * @return フィーバーモードになったなら true。既にフィーバーモードなら false
+     */
+    private boolean enterFeverMode() {
+        if (isFeverMode) return false;
+
+        isFeverMode = true;
+        skillChargeTicks[Skill.FEVER.ordinal()] = 0;
+        isSkillCharging[Skill.FEVER.ordinal()] = false;
+        listener.onFeverStarted();
+
+        taskScheduler.schedule(FEVER_KEEP_TIME_MILLI, () -> {
+            isFeverMode = false;
+            this.restartSkillCharge(Skill.FEVER);
+            listener.onFeverEnded();
+        });
+        return true;
+    }
+
+    /**
+     * 特技 skill のゲージが満タンなら true を返す。
+     */
+    public boolean isSkillReady(Skill skill) {
+        return !isSkillCharging[skill.ordinal()] && skillChargeTicks[skill.ordinal()] >= getSkillChargeTicks(skill);
+    }
+
+    /**
+     * 特技 skill のゲージの溜まり具合を [0.0, 1.0] で返す。
+     */
+    public double getSkillGage(Skill skill) {
+        return Math.min(1.0, (double) skillChargeTicks[skill.ordinal()] / getSkillChargeTicks(skill));
+    }
+
+    public MapData getMapData() {
+        return mapData;
+    }
+
+    public PlayerMotion getPlayer() {
+        return player;
+    }
+
+    public BombExecutor getBombExecutor() {
+        return bombExecutor;
+    }
+
+    public EnemySwarm getEnemySwarm() {
+        return enemySwarm;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * ゲーム開始からの tick 数を返す。
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * ゲーム開始からの経過時間を秒単位 (切り捨て) で返す。ゴール後は進まない。
+     */
+    public int getElapsedSeconds() {
+        final long ticks = hasGoaled ? goaledTickCount : tickCount;
+        return (int) (ticks / TICKS_PER_SECOND);
+    }
+
+    /**
+     * コインの小道やフィーバーの解除など、実行待ちの遅延処理の個数を返す。
+     */
+    public int getScheduledTaskCount() {
+        return taskScheduler.getTaskCount();
+    }
+
+    public boolean isFeverMode() {
+        return isFeverMode;
+    }
+
+    public boolean hasGoaled() {
+        return hasGoaled;
+    }
+}
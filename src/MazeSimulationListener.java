@@ -0,0 +1,107 @@
+/**
+ * {@link MazeSimulation} で起きた出来事の通知を受け取るインターフェース。
+ * 効果音やエフェクト、メッセージの表示など、ゲームの規則に関係しない処理はこの通知を受けて行う。
+ * 全てのメソッドは、シミュレーションの tick() の中から呼び出される。
+ */
+public interface MazeSimulationListener {
+    /**
+     * プレイヤーのマス位置が (col, row) に変化した直後に呼び出される。
+     */
+    default void onPlayerMoved(int col, int row) {
+    }
+
+    /**
+     * プレイヤーがマス(x, y) のアイテムを拾ったときに呼び出される。
+     *
+     * @param x          アイテムがあったマスの列番号
+     * @param y          アイテムがあったマスの行番号
+     * @param itemType   拾ったアイテムの種類
+     * @param score      加算されたスコア
+     * @param byCoinRod  コインの杖で拾ったなら true
+     */
+    default void onItemCollected(int x, int y, ItemType itemType, int score, boolean byCoinRod) {
+    }
+
+    /**
+     * カギを全て拾って、ゴールの扉が開いたときに呼び出される。
+     */
+    default void onGoalOpened() {
+    }
+
+    /**
+     * プレイヤーがゴールしたときに呼び出される。
+     */
+    default void onGoal() {
+    }
+
+    /**
+     * 特技 skill のゲージが満タンになったときに呼び出される。
+     */
+    default void onSkillReady(Skill skill) {
+    }
+
+    /**
+     * コインの小道を発動したときに呼び出される。
+     */
+    default void onCoinTrailStarted() {
+    }
+
+    /**
+     * コインの小道によって、マス(x, y) にコインが置かれたときに呼び出される。
+     */
+    default void onCoinTrailCoinPlaced(int x, int y) {
+    }
+
+    /**
+     * コインの杖を発動したときに、拾ったコインの枚数 collectedCoinCount とともに呼び出される。
+     * 拾ったコインそれぞれについては、先に {@link #onItemCollected} が呼び出される。
+     */
+    default void onCoinRodUsed(int collectedCoinCount) {
+    }
+
+    /**
+     * フィーバーモードになったときに呼び出される。
+     */
+    default void onFeverStarted() {
+    }
+
+    /**
+     * フィーバーモードが終わったときに呼び出される。
+     */
+    default void onFeverEnded() {
+    }
+
+    /**
+     * ボムの爆発の一つの波が始まるときに呼び出される。誘爆の連鎖では、波ごとに一度ずつ呼び出される。
+     *
+     * @param firstBomb この波で爆発するボムのうちの一つ
+     */
+    default void onBombWaveExploded(AbstractBomb firstBomb) {
+    }
+
+    /**
+     * ボムの爆風がマス(x, y) に届いたときに呼び出される。
+     */
+    default void onCellBlasted(int x, int y) {
+    }
+
+    /**
+     * マス(x, y) にいた敵を倒したときに呼び出される。爆風が届いたときと、フィーバーモード中に体当たりしたときに倒せる。
+     *
+     * @param x     敵がいたマスの列番号
+     * @param y     敵がいたマスの行番号
+     * @param score 加算されたスコア
+     */
+    default void onEnemyKilled(int x, int y, int score) {
+    }
+
+    /**
+     * プレイヤーがマス(x, y) で敵に捕まったときに呼び出される。捕まえた敵はいなくなる。
+     *
+     * @param x         捕まったマスの列番号
+     * @param y         捕まったマスの行番号
+     * @param lostScore 減ったスコア (0 以上)
+     */
+    default void onPlayerCaught(int x, int y, int lostScore) {
+    }
+}
@@ -1,58 +1,42 @@
-import javafx.animation.Animation;
-import javafx.animation.Transition;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.image.Image;
-import javafx.util.Duration;
-
-import java.util.function.Consumer;
 
+/**
+ * プレイヤー (猫) を描画するクラス。
+ * マス位置や移動は {@link PlayerMotion} が持っており、このクラスはその状態に合わせて描画するだけである。
+ */
 public class MoveChara {
-    public static final int TYPE_DOWN = 0;
-    public static final int TYPE_LEFT = 1;
-    public static final int TYPE_RIGHT = 2;
-    public static final int TYPE_UP = 3;
+    public static final int TYPE_DOWN = PlayerMotion.TYPE_DOWN;
+    public static final int TYPE_LEFT = PlayerMotion.TYPE_LEFT;
+    public static final int TYPE_RIGHT = PlayerMotion.TYPE_RIGHT;
+    public static final int TYPE_UP = PlayerMotion.TYPE_UP;
 
     private static final String[] directionStrings = {"d", "l", "r", "u"};
     private static final String[] animationNumbers = {"1", "2", "3"};
     private static final String pngPathPrefix = "png/cat/neko1";
     private static final String pngPathSuffix = ".png";
 
-    private double drawnX;
-    private double drawnY;
-    private Transition moveTransition;
-
-    private int posCol;
-    private int posRow;
+    private final PlayerMotion motion;
     private int charaDirection;
 
-    private final MapData mapData;
+    // 直前の tick を進める前の描画座標。描画時に、この座標と現在の座標の間を補間する。
+    private double previousX;
+    private double previousY;
 
     private final CellDrawnPositionResolver positionResolver;
 
     private final ImageFrameAnimation[] charaAnimations;
 
-    private Consumer<MoveChara> onSelfMove = null;
-
-    public MoveChara(int startCol, int startRow, MapData mapData, CellDrawnPositionResolver positionResolver) {
-        this.posCol = startCol;
-        this.posRow = startRow;
-        this.mapData = mapData;
+    public MoveChara(PlayerMotion motion, CellDrawnPositionResolver positionResolver) {
+        this.motion = motion;
         this.positionResolver = positionResolver;
 
-        this.drawnX = positionResolver.getCellDrawnX(this.posCol);
-        this.drawnY = positionResolver.getCellDrawnY(this.posRow);
-        this.moveTransition = new Transition() {
-            @Override
-            protected void interpolate(double frac) {
-            }
-        };
-
         this.charaAnimations = new ImageFrameAnimation[4];
 
         for (int dir = 0; dir < 4; dir++) {
             Image[] charaImages = new Image[3];
             for (int j = 0; j < 3; j++) {
-                charaImages[j] = new Image(pngPathPrefix + directionStrings[dir] + animationNumbers[j] + pngPathSuffix);
+                charaImages[j] = Assets.image(pngPathPrefix + directionStrings[dir] + animationNumbers[j] + pngPathSuffix);
             }
             this.charaAnimations[dir] = new ImageFrameAnimation(
                     new ImageArray(charaImages),
@@ -61,16 +45,32 @@ public class MoveChara {
             );
         }
 
-        this.setCharaDirection(TYPE_RIGHT);
+        this.setCharaDirection(motion.getDirection());
+        this.savePreviousPosition();
+    }
+
+    /**
+     * 現在の描画座標を、補間の始点として記録する。シミュレーションの tick を進める直前に呼び出す。
+     */
+    public void savePreviousPosition() {
+        this.previousX = this.getDrawnX();
+        this.previousY = this.getDrawnY();
     }
 
-    public void draw(GraphicsContext gc) {
+    /**
+     * 直前の tick の前後の描画座標を alpha で補間した位置に描画する。
+     */
+    public void draw(GraphicsContext gc, double alpha) {
+        if (motion.getDirection() != this.charaDirection) {
+            this.setCharaDirection(motion.getDirection());
+        }
+
         final int cellSize = positionResolver.getCellSize();
-        this.charaAnimations[this.charaDirection].draw(gc, this.drawnX, this.drawnY, cellSize, cellSize);
+        this.charaAnimations[this.charaDirection].draw(gc, this.getDrawnX(alpha), this.getDrawnY(alpha), cellSize, cellSize);
     }
 
     // set the cat's image of a direction
-    public void setCharaDirection(int cd) {
+    private void setCharaDirection(int cd) {
         this.charaDirection = cd;
         for (int dir = 0; dir < 4; dir++) {
             if (dir == this.charaDirection) {
@@ -81,79 +81,48 @@ public class MoveChara {
         }
     }
 
-    public void setOnMoveHandler(Consumer<MoveChara> onSelfMove) {
-        this.onSelfMove = onSelfMove;
+    /**
+     * アニメーションのタイマーを全て止める。このキャラクターをもう描画しなくなったときに呼び出す。
+     */
+    public void dispose() {
+        for (final ImageFrameAnimation animation : this.charaAnimations) {
+            animation.stop();
+        }
     }
 
     public int getCharaDirection() {
         return this.charaDirection;
     }
 
-    // check the place where the cat will go
-    public boolean isMovableBy(int dx, int dy) {
-        return mapData.getCellType(posCol + dx, posRow + dy).isMovable();
-    }
-
-    // move the cat
-    public void moveBy(int dx, int dy, Duration duration) {
-        if (!isMovableBy(dx, dy)) return;
-
-        final int toCol = this.posCol + dx;
-        final int toRow = this.posRow + dy;
-        final double fromX = this.positionResolver.getCellDrawnX(this.posCol);
-        final double fromY = this.positionResolver.getCellDrawnY(this.posRow);
-        final double toX = this.positionResolver.getCellDrawnX(toCol);
-        final double toY = this.positionResolver.getCellDrawnY(toRow);
-
-        this.moveTransition = new Transition() {
-            private boolean isFiredOnMoveEvent = false;
-
-            {
-                setCycleDuration(duration);
-            }
-
-            @Override
-            protected void interpolate(double frac) {
-                MoveChara.this.drawnX = fromX + (toX - fromX) * frac;
-                MoveChara.this.drawnY = fromY + (toY - fromY) * frac;
-
-                if (frac > 0.5 && !isFiredOnMoveEvent) {
-                    isFiredOnMoveEvent = true;
-                    MoveChara.this.posCol = toCol;
-                    MoveChara.this.posRow = toRow;
-                    if (onSelfMove != null) {
-                        onSelfMove.accept(MoveChara.this);
-                    }
-                }
-            }
-        };
-
-        this.moveTransition.play();
-    }
-
-    public Animation.Status getMoveTransitionStatus() {
-        return this.moveTransition.getStatus();
-    }
-
-    // getter: column-position of the cat
-    public int getPosCol() {
-        return posCol;
-    }
-
-    // getter: row-position of the cat
-    public int getPosRow() {
-        return posRow;
+    /**
+     * 移動元のマスと移動先のマスの間を、移動の進み具合で補間した x 座標を返す。
+     */
+    public double getDrawnX() {
+        final double fromX = positionResolver.getCellDrawnX(motion.getFromCol());
+        final double toX = positionResolver.getCellDrawnX(motion.getToCol());
+        return fromX + (toX - fromX) * motion.getProgress();
     }
 
-    public Pos getPos() {
-        return new Pos(posCol, posRow);
+    /**
+     * 移動元のマスと移動先のマスの間を、移動の進み具合で補間した y 座標を返す。
+     */
+    public double getDrawnY() {
+        final double fromY = positionResolver.getCellDrawnY(motion.getFromRow());
+        final double toY = positionResolver.getCellDrawnY(motion.getToRow());
+        return fromY + (toY - fromY) * motion.getProgress();
     }
 
-    public double getDrawnX() {
-        return drawnX;
+    /**
+     * 直前の tick を進める前の x 座標と現在の x 座標を、 alpha の割合で補間した x 座標を返す。
+     */
+    public double getDrawnX(double alpha) {
+        return previousX + (this.getDrawnX() - previousX) * alpha;
     }
 
-    public double getDrawnY() {
-        return drawnY;
+    /**
+     * 直前の tick を進める前の y 座標と現在の y 座標を、 alpha の割合で補間した y 座標を返す。
+     */
+    public double getDrawnY(double alpha) {
+        return previousY + (this.getDrawnY() - previousY) * alpha;
     }
 }
@@ -1,11 +1,17 @@
-import javafx.animation.AnimationTimer;
-
-public abstract class MyTimer extends AnimationTimer {
+/**
+ * {@link FrameClock} によって毎フレーム進められるタイマー。
+ * start() で開始し、 stop() で停止する。
+ * 一度 stop() しても start() で再開でき、経過時間は最初に開始した時刻から数える。
+ */
+public abstract class MyTimer {
     private static final long UNDEFINED_TIME = -1;
 
     private long startedTime = UNDEFINED_TIME;
     private boolean isDead = false;
 
+    // FrameClock の配列上の位置。登録されていなければ -1。
+    int clockSlot = -1;
+
     public MyTimer() {
     }
 
@@ -19,9 +25,36 @@ public abstract class MyTimer extends AnimationTimer {
 
     abstract void update(long elapsedTimeNano);
 
-    @Override
+    /**
+     * タイマーを開始する。動作中なら何もしない。
+     */
+    public void start() {
+        FrameClock.getInstance().register(this);
+    }
+
+    /**
+     * タイマーを停止する。停止中なら何もしない。
+     */
+    public void stop() {
+        FrameClock.getInstance().unregister(this);
+    }
+
+    /**
+     * タイマーを停止し、まだ一度も開始していない状態に戻す。
+     * 次に start() したときは、その時刻から経過時間を数え直す。プールして再利用するときに呼び出す。
+     */
+    public void reset() {
+        this.stop();
+        this.startedTime = UNDEFINED_TIME;
+        this.isDead = false;
+    }
+
     public final void handle(long now) {
-        if (this.isDead) return;
+        if (this.isDead) {
+            // 死んだタイマーはもう進める必要が無いので、クロックから外す
+            this.stop();
+            return;
+        }
 
         if (this.startedTime == UNDEFINED_TIME) {
             this.startedTime = now;
@@ -0,0 +1,56 @@
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * 使い終わったオブジェクトを捨てずに取っておき、再利用するためのプール。
+ * <p>
+ * {@link #obtain()} は、空きがあれば取っておいたオブジェクトを返し、無ければ factory で生成する。
+ * 使い終わったオブジェクトは、状態を初期化してから {@link #release(Object)} で返却する。
+ * 頻繁に生成・破棄されるエフェクトをプールすることで、ゲーム中のオブジェクト生成を抑える。
+ *
+ * @param <T> プールするオブジェクトの型
+ */
+public class ObjectPool<T> {
+    private final Supplier<T> factory;
+    private Object[] freeObjects;
+    private int freeCount = 0;
+
+    /**
+     * @param factory         空きが無いときにオブジェクトを生成する関数
+     * @param initialCapacity 最初に確保しておく、空きオブジェクトを格納する配列の大きさ
+     */
+    public ObjectPool(Supplier<T> factory, int initialCapacity) {
+        this.factory = factory;
+        this.freeObjects = new Object[Math.max(1, initialCapacity)];
+    }
+
+    /**
+     * 空きオブジェクトを一つ取り出す。空きが無ければ新しく生成する。
+     */
+    @SuppressWarnings("unchecked")
+    public T obtain() {
+        if (freeCount == 0) {
+            return factory.get();
+        }
+        final T obj = (T) freeObjects[--freeCount];
+        freeObjects[freeCount] = null;
+        return obj;
+    }
+
+    /**
+     * 使い終わったオブジェクトを返却する。返却したオブジェクトはもう使ってはいけない。
+     */
+    public void release(T obj) {
+        if (freeCount == freeObjects.length) {
+            freeObjects = Arrays.copyOf(freeObjects, freeObjects.length * 2);
+        }
+        freeObjects[freeCount++] = obj;
+    }
+
+    /**
+     * 取っておいている空きオブジェクトの個数を返す。
+     */
+    public int getFreeCount() {
+        return freeCount;
+    }
+}
@@ -0,0 +1,105 @@
+import javafx.geometry.VPos;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+/**
+ * {@link FrameProfiler} の記録を画面に重ねて表示するパネル。
+ * 直前のフレームの処理時間と p50/p99、エフェクト・ボム・タイマー・遅延タスクの個数、
+ * 直近のフレーム全体の処理時間のグラフを表示する。
+ */
+public class PerformanceOverlay {
+    private static final int WIDTH = 240;
+    private static final int PADDING = 6;
+    private static final int LINE_HEIGHT = 14;
+    private static final int GRAPH_HEIGHT = 40;
+    private static final long FRAME_BUDGET_NANO = 1000000000L / 60;
+    private static final Font font = Font.font("Monospaced", 11);
+
+    private final FrameProfiler profiler;
+    private final int x;
+    private final int y;
+    private String statusMessage = null;
+
+    public PerformanceOverlay(FrameProfiler profiler, int x, int y) {
+        this.profiler = profiler;
+        this.x = x;
+        this.y = y;
+    }
+
+    /**
+     * パネルの最下行に表示するメッセージを設定する。 null なら表示しない。
+     */
+    public void setStatusMessage(String statusMessage) {
+        this.statusMessage = statusMessage;
+    }
+
+    public void draw(GraphicsContext gc) {
+        final String[] lines = {
+                String.format("frame #%d", profiler.getFrameCount()),
+                formatTimeLine("update", profiler.getLastUpdateNano(),
+                        profiler.getUpdatePercentileNano(50), profiler.getUpdatePercentileNano(99)),
+                formatTimeLine("draw", profiler.getLastDrawNano(),
+                        profiler.getDrawPercentileNano(50), profiler.getDrawPercentileNano(99)),
+                formatTimeLine("total", profiler.getLastTotalNano(),
+                        profiler.getTotalPercentileNano(50), profiler.getTotalPercentileNano(99)),
+                String.format("effects %4d   bombs %4d", profiler.getLastDrawableCount(), profiler.getLastBombCount()),
+                String.format("timers  %4d   tasks %4d", profiler.getLastTimerCount(), profiler.getLastTaskCount()),
+        };
+        final int lineCount = lines.length + (statusMessage == null ? 0 : 1);
+        final int height = PADDING * 3 + LINE_HEIGHT * lineCount + GRAPH_HEIGHT;
+
+        gc.save();
+        gc.translate(x, y);
+
+        gc.setGlobalAlpha(0.75);
+        gc.setFill(Color.BLACK);
+        gc.fillRoundRect(0, 0, WIDTH, height, 8, 8);
+        gc.setGlobalAlpha(1.0);
+
+        gc.setFont(font);
+        gc.setTextAlign(TextAlignment.LEFT);
+        gc.setTextBaseline(VPos.TOP);
+        gc.setFill(Color.WHITE);
+        for (int i = 0; i < lines.length; ++i) {
+            gc.fillText(lines[i], PADDING, PADDING + LINE_HEIGHT * i);
+        }
+
+        this.drawGraph(gc, PADDING, PADDING * 2 + LINE_HEIGHT * lines.length, WIDTH - PADDING * 2);
+
+        if (statusMessage != null) {
+            gc.setFill(Color.LIGHTGREEN);
+            gc.fillText(statusMessage, PADDING, PADDING * 3 + LINE_HEIGHT * lines.length + GRAPH_HEIGHT);
+        }
+        gc.restore();
+    }
+
+    /**
+     * 直近 graphWidth フレームの全体の処理時間を、 1 フレームにつき幅 1 の棒で描く。
+     * 縦軸は 0 から 2 フレーム分 (約 33 ms) までで、 1 フレーム分の位置に線を引く。
+     * 1 フレーム分の時間を超えた棒は赤で描く。
+     */
+    private void drawGraph(GraphicsContext gc, int left, int top, int graphWidth) {
+        gc.setFill(Color.rgb(255, 255, 255, 0.1));
+        gc.fillRect(left, top, graphWidth, GRAPH_HEIGHT);
+
+        final int size = profiler.getSize();
+        final int n = Math.min(size, graphWidth);
+        final int bottom = top + GRAPH_HEIGHT;
+        for (int i = 0; i < n; ++i) {
+            final long nano = profiler.getTotalNano(size - n + i);
+            final double h = Math.min(GRAPH_HEIGHT, (double) GRAPH_HEIGHT * nano / (FRAME_BUDGET_NANO * 2));
+            gc.setFill(nano > FRAME_BUDGET_NANO ? Color.ORANGERED : Color.LIMEGREEN);
+            gc.fillRect(left + graphWidth - n + i, bottom - h, 1, h);
+        }
+
+        gc.setStroke(Color.YELLOW);
+        gc.setLineWidth(1);
+        gc.strokeLine(left, top + GRAPH_HEIGHT / 2.0, left + graphWidth, top + GRAPH_HEIGHT / 2.0);
+    }
+
+    private static String formatTimeLine(String label, long lastNano, long p50Nano, long p99Nano) {
+        return String.format("%-6s %5.2f ms  p50 %5.1f  p99 %5.1f", label, lastNano / 1e6, p50Nano / 1e6, p99Nano / 1e6);
+    }
+}
@@ -8,10 +8,14 @@ import javafx.scene.canvas.GraphicsContext;
  * ↓
  * 2. 外部の処理から 毎フレーム(一秒あたり約60回)呼び出される (これをゲームループと呼ぶことにする)
  * {
+ *     fixedUpdate()  ← 前のフレームからの経過時間に応じて 0 回以上
  *     update()
- *     draw()
+ *     draw()         ← 処理が遅れている場合は呼び出されないことがある
  * }
  *
+ * fixedUpdate() は描画のフレームレートに関係なく、ゲーム内時間で一秒あたりちょうど
+ * {@link MapGameScene#TICKS_PER_SECOND} 回呼び出される。ゲームの規則に関わる状態はここで進める。
+ *
  * 3. 外部の処理から tearDown() が呼び出される
  *
  */
@@ -26,9 +30,16 @@ public interface Phase {
      */
     void tearDown();
 
+    /**
+     * ゲームループで、ゲーム内時間の一定の刻み (1/{@link MapGameScene#TICKS_PER_SECOND} 秒) ごとに呼び出される処理。
+     * 1 フレームの間に呼び出される回数は、前のフレームからの経過時間によって 0 回のことも複数回のこともある。
+     */
+    default void fixedUpdate() {
+    }
+
     /**
      * ゲームループで毎フレーム呼び出される処理。
-     * draw() の前に呼び出される。
+     * そのフレームの fixedUpdate() を全て呼び出した後、 draw() の前に呼び出される。
      * @param now 現在時刻(ナノ秒)
      */
     void update(long now);
@@ -39,4 +50,24 @@ public interface Phase {
      * @param gc 描画用オブジェクト
      */
     void draw(GraphicsContext gc);
+
+    /**
+     * ゲームループで毎フレーム呼び出される処理。 update() の後に呼び出される。
+     * alpha は直前の fixedUpdate() から次の fixedUpdate() までの時間の経過割合で、
+     * 直前の fixedUpdate() の前後の状態をこの割合で補間して描画すると、動きが滑らかになる。
+     * デフォルトでは補間せずに draw(gc) を呼び出す。
+     * @param gc    描画用オブジェクト
+     * @param alpha 補間の割合 [0.0, 1.0]
+     */
+    default void draw(GraphicsContext gc, double alpha) {
+        this.draw(gc);
+    }
+
+    /**
+     * ゲームループで毎フレーム、 draw() の後に呼び出される処理。
+     * このフェーズが持つエフェクトやボム、遅延タスクの個数を profiler に加算する。
+     * @param profiler フレーム毎の処理時間の記録
+     */
+    default void reportFrameStats(FrameProfiler profiler) {
+    }
 }
@@ -0,0 +1,134 @@
+/**
+ * プレイヤーのマス位置と、マス間の移動の進み具合を表すクラス。
+ * JavaFX に依存せず、 {@link #tick()} を呼ぶたびに移動が 1 tick 進む。
+ * <p>
+ * マス位置 (posCol, posRow) は、移動の進み具合が半分を超えた時点で移動先のマスに切り替わる。
+ * 描画側は {@link #getProgress()} を使って、移動元と移動先のマスの間を補間して描画する。
+ */
+public class PlayerMotion {
+    public static final int TYPE_DOWN = 0;
+    public static final int TYPE_LEFT = 1;
+    public static final int TYPE_RIGHT = 2;
+    public static final int TYPE_UP = 3;
+
+    /**
+     * 移動しないことを表す向き。 {@link MazeSimulation#setMoveDirection(int)} で使う。
+     */
+    public static final int TYPE_NONE = -1;
+
+    // 向き (TYPE_*) → 1歩の移動量
+    private static final int[] DIR_X = {0, -1, 1, 0};
+    private static final int[] DIR_Y = {1, 0, 0, -1};
+
+    private int posCol;
+    private int posRow;
+    private int fromCol;
+    private int fromRow;
+    private int toCol;
+    private int toRow;
+    private int direction = TYPE_RIGHT;
+
+    private int elapsedTicks = 0;
+    private int durationTicks = 0;
+    private boolean hasPassedHalfway = true;
+
+    public PlayerMotion(int startCol, int startRow) {
+        this.posCol = this.fromCol = this.toCol = startCol;
+        this.posRow = this.fromRow = this.toRow = startRow;
+    }
+
+    public static int getDirectionX(int direction) {
+        return DIR_X[direction];
+    }
+
+    public static int getDirectionY(int direction) {
+        return DIR_Y[direction];
+    }
+
+    /**
+     * マスの間を移動している途中なら true を返す。
+     */
+    public boolean isMoving() {
+        return elapsedTicks < durationTicks;
+    }
+
+    /**
+     * 向きを direction にして、その方向の隣のマスへ durationTicks tick かけて移動し始める。
+     * 移動中なら何もしない。隣のマスが通れない場合は向きだけを変える。
+     *
+     * @param direction     向き (TYPE_DOWN, TYPE_LEFT, TYPE_RIGHT, TYPE_UP のいずれか)
+     * @param durationTicks 1マス移動するのにかける tick 数
+     * @param mapData       マップ
+     * @return 移動し始めたなら true
+     */
+    public boolean tryStartMove(int direction, int durationTicks, MapData mapData) {
+        if (this.isMoving()) return false;
+
+        this.direction = direction;
+        final int nextCol = posCol + DIR_X[direction];
+        final int nextRow = posRow + DIR_Y[direction];
+        if (!mapData.getCellType(nextCol, nextRow).isMovable()) return false;
+
+        this.fromCol = posCol;
+        this.fromRow = posRow;
+        this.toCol = nextCol;
+        this.toRow = nextRow;
+        this.elapsedTicks = 0;
+        this.durationTicks = Math.max(1, durationTicks);
+        this.hasPassedHalfway = false;
+        return true;
+    }
+
+    /**
+     * 移動を 1 tick 進める。
+     *
+     * @return この tick でマス位置が移動先のマスに切り替わったなら true
+     */
+    public boolean tick() {
+        if (!this.isMoving()) return false;
+
+        ++elapsedTicks;
+        if (!hasPassedHalfway && elapsedTicks * 2 > durationTicks) {
+            hasPassedHalfway = true;
+            posCol = toCol;
+            posRow = toRow;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 移動の進み具合を [0.0, 1.0] で返す。移動していなければ 1.0 を返す。
+     */
+    public double getProgress() {
+        return this.isMoving() ? (double) elapsedTicks / durationTicks : 1.0;
+    }
+
+    public int getPosCol() {
+        return posCol;
+    }
+
+    public int getPosRow() {
+        return posRow;
+    }
+
+    public int getFromCol() {
+        return fromCol;
+    }
+
+    public int getFromRow() {
+        return fromRow;
+    }
+
+    public int getToCol() {
+        return toCol;
+    }
+
+    public int getToRow() {
+        return toRow;
+    }
+
+    public int getDirection() {
+        return direction;
+    }
+}
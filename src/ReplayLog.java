@@ -0,0 +1,280 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * 一回のプレイを再現するための記録 (リプレイ)。JavaFX に依存しない。
+ * <p>
+ * {@link MazeSimulation} はマップと入力だけで決まり、乱数はマップのシードから作るので、
+ * 遊び始めたときのマップと、どの tick にどの操作をしたかを記録しておけば、同じプレイを何度でも再現できる。
+ * 記録は {@link MazeSimulation#setRecorder} で設定すると、シミュレーションへの操作が呼ばれるたびに追加される。
+ * <p>
+ * ファイルの形式 (全てビッグエンディアン):
+ * <pre>
+ *     オフセット  大きさ  内容
+ *      0          4      マジックナンバー "BCRP"
+ *      4          2      形式のバージョン ({@value #VERSION})
+ *      6          2      フラグ (予約。 0)
+ *      8          8      記録を終えたときの tick 数
+ *     16          4      操作の数 n
+ *     20          4      マップの長さ m
+ *     24          m      遊び始めたときのマップ ({@link MapFormat} で符号化したもの。シードを含む)
+ *     24 + m      ...    操作を n 個並べたもの
+ * </pre>
+ * 操作は、直前の操作からの tick 数の差 (可変長整数。7 ビットずつ下位から、続きがあれば最上位ビットを立てる)、
+ * 操作の種類 (1 バイト)、種類が引数を持つなら引数 (1 バイト) の順に並べる。
+ * 移動キーを押している間は毎 tick 同じ向きが設定されるが、向きが変わったときだけ記録するので、記録は数 KB に収まる。
+ */
+public class ReplayLog {
+    public static final int MAGIC = 0x42435250; // "BCRP"
+    public static final int VERSION = 1;
+
+    /**
+     * 移動する向きを設定する操作。引数は向き + 1 (移動しないなら 0)。
+     */
+    public static final byte OP_MOVE = 0;
+
+    /**
+     * ボムを置く操作。引数は無い。
+     */
+    public static final byte OP_BOMB = 1;
+
+    /**
+     * 特技を使う操作。引数は特技の ordinal で、ゲージを無視するなら最上位ビットを立てる。
+     */
+    public static final byte OP_SKILL = 2;
+
+    /**
+     * 強制的にゴールする操作 (デバッグ用)。引数は無い。
+     */
+    public static final byte OP_GOAL = 3;
+
+    private static final int HEADER_SIZE = 24;
+    private static final int SKILL_FORCED_BIT = 0x80;
+
+    private final byte[] encodedMap;
+
+    // 操作。 [0, eventCount) が有効で、 tick の順に並んでいる。
+    private long[] eventTicks = new long[256];
+    private byte[] eventOps = new byte[256];
+    private byte[] eventArgs = new byte[256];
+    private int eventCount = 0;
+    private long endTick = 0;
+
+    private ReplayLog(byte[] encodedMap) {
+        this.encodedMap = encodedMap;
+    }
+
+    /**
+     * マップ mapData で遊び始める記録を作る。マップはこの時点の状態で符号化するので、遊び始める前に呼び出すこと。
+     */
+    public static ReplayLog startRecording(MapData mapData) {
+        return new ReplayLog(MapFormat.encode(mapData));
+    }
+
+    /**
+     * 遊び始めたときのマップを復号して返す。呼び出す度に新しい MapData を返す。
+     */
+    public MapData createMapData() {
+        return MapFormat.decode(ByteBuffer.wrap(encodedMap));
+    }
+
+    /**
+     * シミュレーションが tick tick 進んだ時点で、移動する向きを direction にしたことを記録する。
+     */
+    public void recordMove(long tick, int direction) {
+        this.add(tick, OP_MOVE, (byte) (direction + 1));
+    }
+
+    /**
+     * シミュレーションが tick tick 進んだ時点で、ボムを置こうとしたことを記録する。
+     */
+    public void recordBomb(long tick) {
+        this.add(tick, OP_BOMB, (byte) 0);
+    }
+
+    /**
+     * シミュレーションが tick tick 進んだ時点で、特技 skill を使おうとしたことを記録する。
+     */
+    public void recordSkill(long tick, Skill skill, boolean ignoreGauge) {
+        this.add(tick, OP_SKILL, (byte) (skill.ordinal() | (ignoreGauge ? SKILL_FORCED_BIT : 0)));
+    }
+
+    /**
+     * シミュレーションが tick tick 進んだ時点で、強制的にゴールしたことを記録する。
+     */
+    public void recordGoal(long tick) {
+        this.add(tick, OP_GOAL, (byte) 0);
+    }
+
+    private void add(long tick, byte op, byte arg) {
+        if (eventCount == eventTicks.length) {
+            final int n = eventCount * 2;
+            eventTicks = Arrays.copyOf(eventTicks, n);
+            eventOps = Arrays.copyOf(eventOps, n);
+            eventArgs = Arrays.copyOf(eventArgs, n);
+        }
+        eventTicks[eventCount] = tick;
+        eventOps[eventCount] = op;
+        eventArgs[eventCount] = arg;
+        ++eventCount;
+        endTick = Math.max(endTick, tick);
+    }
+
+    /**
+     * 記録を終えた時点の tick 数を設定する。再生はこの tick 数まで進める。
+     */
+    public void setEndTick(long endTick) {
+        this.endTick = Math.max(this.endTick, endTick);
+    }
+
+    public long getEndTick() {
+        return endTick;
+    }
+
+    public int getEventCount() {
+        return eventCount;
+    }
+
+    public long getEventTick(int i) {
+        return eventTicks[i];
+    }
+
+    /**
+     * i 番目の操作を simulation に対して行う。
+     */
+    public void apply(int i, MazeSimulation simulation) {
+        final int arg = eventArgs[i] & 0xFF;
+        switch (eventOps[i]) {
+            case OP_MOVE:
+                simulation.setMoveDirection(arg - 1);
+                break;
+            case OP_BOMB:
+                simulation.placeBomb();
+                break;
+            case OP_SKILL:
+                simulation.useSkill(Skill.values()[arg & ~SKILL_FORCED_BIT], (arg & SKILL_FORCED_BIT) != 0);
+                break;
+            case OP_GOAL:
+                simulation.goal();
+                break;
+            default:
+                throw new IllegalStateException("Unknown replay operation: " + eventOps[i]);
+        }
+    }
+
+    /**
+     * 記録をファイル path に書き出す。
+     *
+     * @throws IOException 書き込みに失敗した場合
+     */
+    public void write(Path path) throws IOException {
+        // 操作一つは、 tick の差 (最大 10 バイト) と種類と引数で最大 12 バイト
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + encodedMap.length + 12 * eventCount);
+        buffer.putInt(MAGIC);
+        buffer.putShort((short) VERSION);
+        buffer.putShort((short) 0);
+        buffer.putLong(endTick);
+        buffer.putInt(eventCount);
+        buffer.putInt(encodedMap.length);
+        buffer.put(encodedMap);
+
+        long previousTick = 0;
+        for (int i = 0; i < eventCount; ++i) {
+            putVarLong(buffer, eventTicks[i] - previousTick);
+            previousTick = eventTicks[i];
+            buffer.put(eventOps[i]);
+            if (hasArg(eventOps[i])) {
+                buffer.put(eventArgs[i]);
+            }
+        }
+        Files.write(path, Arrays.copyOf(buffer.array(), buffer.position()));
+    }
+
+    /**
+     * ファイル path から記録を読み込む。
+     *
+     * @throws IOException 読み込みに失敗した場合や、ファイルの形式が正しくない場合
+     */
+    public static ReplayLog read(Path path) throws IOException {
+        try {
+            return decode(ByteBuffer.wrap(Files.readAllBytes(path)));
+        } catch (IllegalArgumentException | BufferUnderflowException e) {
+            throw new IOException(path + ": broken replay file (" + e + ")", e);
+        }
+    }
+
+    private static ReplayLog decode(ByteBuffer src) {
+        if (src.remaining() < HEADER_SIZE || src.getInt() != MAGIC) {
+            throw new IllegalArgumentException("Not a replay (bad magic number)");
+        }
+        final int version = Short.toUnsignedInt(src.getShort());
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported replay version: " + version);
+        }
+        src.getShort(); // フラグ (予約)
+
+        final long endTick = src.getLong();
+        final int eventCount = src.getInt();
+        final int mapLength = src.getInt();
+        if (eventCount < 0 || mapLength < 0 || mapLength > src.remaining()) {
+            throw new IllegalArgumentException("Replay header is broken");
+        }
+        final byte[] encodedMap = new byte[mapLength];
+        src.get(encodedMap);
+        MapFormat.decode(ByteBuffer.wrap(encodedMap)); // マップの形式が正しいことを確かめておく
+
+        final ReplayLog log = new ReplayLog(encodedMap);
+        long tick = 0;
+        for (int i = 0; i < eventCount; ++i) {
+            tick += getVarLong(src);
+            final byte op = src.get();
+            final byte arg = hasArg(op) ? src.get() : 0;
+            if (!isValid(op, arg & 0xFF)) {
+                throw new IllegalArgumentException("Invalid replay operation: " + op + " (" + (arg & 0xFF) + ")");
+            }
+            log.add(tick, op, arg);
+        }
+        log.setEndTick(endTick);
+        return log;
+    }
+
+    private static boolean isValid(byte op, int arg) {
+        switch (op) {
+            case OP_MOVE:
+                return arg <= PlayerMotion.TYPE_UP + 1;
+            case OP_SKILL:
+                return (arg & ~SKILL_FORCED_BIT) < Skill.values().length;
+            case OP_BOMB:
+            case OP_GOAL:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean hasArg(byte op) {
+        return op == OP_MOVE || op == OP_SKILL;
+    }
+
+    private static void putVarLong(ByteBuffer dst, long value) {
+        while ((value & ~0x7FL) != 0) {
+            dst.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        dst.put((byte) value);
+    }
+
+    private static long getVarLong(ByteBuffer src) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = src.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return value;
+        }
+        throw new IllegalArgumentException("Variable-length integer is too long");
+    }
+}
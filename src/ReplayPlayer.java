@@ -0,0 +1,111 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * リプレイ ({@link ReplayLog}) の操作を、記録した tick に {@link MazeSimulation} へ与えて、プレイを再現するクラス。JavaFX に依存しない。
+ * <p>
+ * {@link #step()} を呼ぶたびに、その tick の操作を与えてからシミュレーションを 1 tick 進める。
+ * 画面の無いコマンドラインから使うと、描画を待たずに実時間の何百倍もの速さで最後まで再現できる:
+ * <pre>
+ *     java ReplayPlayer FILE
+ * </pre>
+ * (MapGame の起動引数に --replay FILE を付けても同じ。 --watch を付けると画面で再生する)
+ * 最後に、経過時間・スコア・プレイヤーの位置と、マップの状態のハッシュ値を表示する。
+ * 同じリプレイを別の環境で再現したときに、これらが一致すればプレイが完全に再現できている。
+ */
+public class ReplayPlayer {
+    private final ReplayLog replayLog;
+    private final MazeSimulation simulation;
+    private int nextEvent = 0;
+
+    /**
+     * replayLog の最初のマップで新しくシミュレーションを作って再生する。
+     */
+    public ReplayPlayer(ReplayLog replayLog) {
+        this(replayLog, new MazeSimulation(replayLog.createMapData()));
+    }
+
+    /**
+     * replayLog を、その最初のマップで作ったシミュレーション simulation で再生する。
+     * simulation はまだ一度も tick を進めていないものでなければならない。
+     */
+    public ReplayPlayer(ReplayLog replayLog, MazeSimulation simulation) {
+        this.replayLog = replayLog;
+        this.simulation = simulation;
+    }
+
+    /**
+     * この tick の操作をシミュレーションに与えてから、シミュレーションを 1 tick 進める。
+     *
+     * @return 進めたなら true。既に記録の最後まで再生していたら何もせずに false
+     */
+    public boolean step() {
+        if (this.isFinished()) return false;
+
+        final long tick = simulation.getTickCount();
+        while (nextEvent < replayLog.getEventCount() && replayLog.getEventTick(nextEvent) <= tick) {
+            replayLog.apply(nextEvent++, simulation);
+        }
+        simulation.tick();
+        return true;
+    }
+
+    /**
+     * 記録の最後まで再生したなら true を返す。
+     */
+    public boolean isFinished() {
+        return simulation.getTickCount() >= replayLog.getEndTick();
+    }
+
+    public MazeSimulation getSimulation() {
+        return simulation;
+    }
+
+    public ReplayLog getReplayLog() {
+        return replayLog;
+    }
+
+    public static void main(String[] args) {
+        final int replayOptionIndex = Arrays.asList(args).indexOf("--replay");
+        String path = null;
+        if (replayOptionIndex >= 0 && replayOptionIndex + 1 < args.length) {
+            path = args[replayOptionIndex + 1];
+        } else if (args.length == 1) {
+            path = args[0];
+        }
+        if (path == null) {
+            System.err.println("Usage: ReplayPlayer FILE");
+            System.exit(1);
+            return;
+        }
+
+        final ReplayLog replayLog;
+        try {
+            replayLog = ReplayLog.read(Paths.get(path));
+        } catch (IOException e) {
+            System.err.println("Failed to read replay: " + e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        final ReplayPlayer player = new ReplayPlayer(replayLog);
+        final long startTime = System.nanoTime();
+        while (player.step()) {
+            // 最後まで進める
+        }
+        final double elapsedSec = (System.nanoTime() - startTime) / 1e9;
+
+        final MazeSimulation simulation = player.getSimulation();
+        final MapData mapData = simulation.getMapData();
+        final double gameSec = (double) simulation.getTickCount() / MazeSimulation.TICKS_PER_SECOND;
+        System.out.printf("Replayed %d ticks (%.1f s of game time, %d operations) in %.3f s (%.0fx real time)%n",
+                simulation.getTickCount(), gameSec, replayLog.getEventCount(), elapsedSec, gameSec / Math.max(elapsedSec, 1e-9));
+        System.out.printf("  map: %dx%d, seed %d%n", mapData.getWidth(), mapData.getHeight(), mapData.getSeed());
+        System.out.printf("  score: %d, goaled: %b, player: (%d, %d), enemies: %d%n",
+                simulation.getScore(), simulation.hasGoaled(),
+                simulation.getPlayer().getPosCol(), simulation.getPlayer().getPosRow(),
+                simulation.getEnemySwarm().getEnemyCount());
+        System.out.printf("  map state hash: %08x%n", Arrays.hashCode(MapFormat.encode(mapData)));
+    }
+}
@@ -0,0 +1,32 @@
+/**
+ * ゲージが溜まると使えるようになる、プレイヤーの特技。
+ */
+public enum Skill {
+    /**
+     * コインの小道。プレイヤーのマスから残りのカギを拾ってゴールするまでの最短ルートにコインを並べる。
+     */
+    COIN_TRAIL(10),
+
+    /**
+     * コインの杖。プレイヤーの周囲のコインを一気に拾う。
+     */
+    COIN_ROD(5),
+
+    /**
+     * フィーバースター。一定時間フィーバーモードになる。
+     */
+    FEVER(15);
+
+    private final int chargeSeconds;
+
+    Skill(int chargeSeconds) {
+        this.chargeSeconds = chargeSeconds;
+    }
+
+    /**
+     * ゲージが空から満タンになるまでの秒数を返す。
+     */
+    public int getChargeSeconds() {
+        return chargeSeconds;
+    }
+}
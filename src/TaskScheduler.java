@@ -0,0 +1,216 @@
+/**
+ * 遅延実行するタスクを管理するスケジューラ。フェーズが一つずつ所有し、フェーズの update() から進める。
+ * <p>
+ * 階層型タイミングホイールで実装している。
+ * 時間の単位 (tick) は 1 ミリ秒で、各階層は 64 個のスロットからなる。
+ * 階層 k のスロット一つは 64^k tick の幅を表し、期限が近づいたタスクは下の階層へ移される (カスケード)。
+ * タスクの登録・取り消しは O(1) で、期限が来たタスクは最下層のスロット単位でまとめて実行される。
+ * <p>
+ * 一時停止中はスケジューラの時間が進まないので、タスクの期限も一時停止していた時間だけ延びる。
+ */
+public class TaskScheduler {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOT_COUNT = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOT_COUNT - 1;
+    private static final int LEVEL_COUNT = 4;
+
+    // 最上位の階層で表せる最大の待ち時間 (tick)。これを超える待ち時間のタスクは最上位の階層の最後のスロットに置き、カスケードのたびに置き直す。
+    private static final long MAX_SPAN = 1L << (SLOT_BITS * LEVEL_COUNT);
+
+    private static final long NANOS_PER_TICK = 1000000L;
+    private static final long UNDEFINED_TIME = -1;
+
+    /**
+     * 登録されたタスクを表すハンドル。 {@link #cancel(Task)} で取り消すのに使う。
+     */
+    public static final class Task {
+        private final Runnable action;
+        private final long expireTick;
+        private Task prev;
+        private Task next;
+        private int level = -1;
+        private int slot = -1;
+
+        private Task(Runnable action, long expireTick) {
+            this.action = action;
+            this.expireTick = expireTick;
+        }
+
+        /**
+         * まだ実行も取り消しもされていなければ true を返す。
+         */
+        public boolean isScheduled() {
+            return level >= 0;
+        }
+    }
+
+    // wheels[level][slot] はそのスロットに置かれたタスクの双方向リストの先頭
+    private final Task[][] wheels = new Task[LEVEL_COUNT][SLOT_COUNT];
+    private long currentTick = 0;
+    private int taskCount = 0;
+
+    private long lastUpdateTime = UNDEFINED_TIME;
+    private long elapsedNano = 0;
+    private boolean isPaused = false;
+
+    /**
+     * delayMilli ミリ秒後に action を実行するタスクを登録する。
+     * 実行されるのは、期限を過ぎた後の最初の {@link #update(long)} の中である。
+     *
+     * @param delayMilli 実行までの待ち時間 (ミリ秒)
+     * @param action     実行する処理
+     * @return 登録したタスクのハンドル
+     */
+    public Task schedule(long delayMilli, Runnable action) {
+        // 待ち時間 0 のタスクも、今処理しているスロットではなく次の tick に置く
+        final Task task = new Task(action, currentTick + Math.max(1, delayMilli));
+        this.place(task);
+        ++taskCount;
+        return task;
+    }
+
+    /**
+     * 登録済みのタスクを取り消す。既に実行済みまたは取り消し済みなら何もしない。
+     *
+     * @param task 取り消すタスク
+     * @return 取り消したなら true
+     */
+    public boolean cancel(Task task) {
+        if (!task.isScheduled()) return false;
+        this.unlink(task);
+        --taskCount;
+        return true;
+    }
+
+    /**
+     * 登録済みの全てのタスクを取り消す。
+     */
+    public void cancelAll() {
+        for (int level = 0; level < LEVEL_COUNT; ++level) {
+            for (int slot = 0; slot < SLOT_COUNT; ++slot) {
+                while (wheels[level][slot] != null) {
+                    this.unlink(wheels[level][slot]);
+                }
+            }
+        }
+        taskCount = 0;
+    }
+
+    /**
+     * スケジューラの時間を止める。止めている間はタスクが実行されない。
+     */
+    public void pause() {
+        isPaused = true;
+    }
+
+    /**
+     * 止めていたスケジューラの時間を再び進める。
+     */
+    public void resume() {
+        isPaused = false;
+    }
+
+    public boolean isPaused() {
+        return isPaused;
+    }
+
+    /**
+     * 実行待ちのタスクの個数を返す。
+     */
+    public int getTaskCount() {
+        return taskCount;
+    }
+
+    /**
+     * 前回の呼び出しからの経過時間だけスケジューラの時間を進め、期限を過ぎたタスクを実行する。
+     * フェーズの update() から毎フレーム呼び出す。
+     *
+     * @param now 現在時刻(ナノ秒)
+     */
+    public void update(long now) {
+        if (lastUpdateTime == UNDEFINED_TIME) {
+            lastUpdateTime = now;
+        }
+        final long delta = now - lastUpdateTime;
+        lastUpdateTime = now;
+
+        if (isPaused) return;
+
+        elapsedNano += delta;
+        this.advanceTo(elapsedNano / NANOS_PER_TICK);
+    }
+
+    private void advanceTo(long targetTick) {
+        // タスクが無ければ1 tick ずつ進める必要は無い
+        if (taskCount == 0) {
+            currentTick = Math.max(currentTick, targetTick);
+            return;
+        }
+
+        while (currentTick < targetTick) {
+            ++currentTick;
+
+            // 下の階層が一周したら、上の階層の該当スロットのタスクを下の階層へ移す
+            for (int level = 1; level < LEVEL_COUNT; ++level) {
+                if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) break;
+                this.cascade(level, (int) (currentTick >>> (SLOT_BITS * level)) & SLOT_MASK);
+            }
+
+            // 最下層の今の tick のスロットのタスクを全て実行する
+            final int slot = (int) currentTick & SLOT_MASK;
+            while (wheels[0][slot] != null) {
+                final Task task = wheels[0][slot];
+                this.unlink(task);
+                --taskCount;
+                task.action.run();
+            }
+        }
+    }
+
+    private void cascade(int level, int slot) {
+        while (wheels[level][slot] != null) {
+            final Task task = wheels[level][slot];
+            this.unlink(task);
+            this.place(task);
+        }
+    }
+
+    /**
+     * タスクを、期限までの残り時間に応じた階層のスロットに置く。
+     */
+    private void place(Task task) {
+        final long remaining = task.expireTick - currentTick;
+
+        int level = 0;
+        while (level < LEVEL_COUNT - 1 && remaining >= (1L << (SLOT_BITS * (level + 1)))) {
+            ++level;
+        }
+
+        final long tick = (remaining >= MAX_SPAN) ? currentTick + MAX_SPAN - 1 : task.expireTick;
+        final int slot = (int) (tick >>> (SLOT_BITS * level)) & SLOT_MASK;
+
+        task.level = level;
+        task.slot = slot;
+        task.prev = null;
+        task.next = wheels[level][slot];
+        if (task.next != null) {
+            task.next.prev = task;
+        }
+        wheels[level][slot] = task;
+    }
+
+    private void unlink(Task task) {
+        if (task.prev != null) {
+            task.prev.next = task.next;
+        } else {
+            wheels[task.level][task.slot] = task.next;
+        }
+        if (task.next != null) {
+            task.next.prev = task.prev;
+        }
+        task.prev = null;
+        task.next = null;
+        task.level = -1;
+        task.slot = -1;
+    }
+}
@@ -1,49 +1,66 @@
-import javafx.animation.Animation;
-import javafx.animation.Transition;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Paint;
 import javafx.scene.text.Font;
-import javafx.util.Duration;
 
+/**
+ * フェードアウトしながら上昇するテキストのエフェクト。
+ * <p>
+ * コインを拾うたびに使われるので、 {@link #obtain} でプールから取り出し、
+ * 再生が終わったら {@link DrawableExecutor} が {@link #release()} でプールへ返却する。
+ * 再生は {@link FrameClock} で進むタイマーで行い、 JavaFX の Transition は生成しない。
+ */
 public class TextFloatUpAnimation implements DrawableTransition {
+    private static final ObjectPool<TextFloatUpAnimation> pool = new ObjectPool<>(TextFloatUpAnimation::new, 32);
 
-    private final String text;
+    private String text;
     private double opacity;
     private double x;
     private double y;
-    private final Font font;
-    private final Paint fillColor;
-    private final Paint strokeColor;
+    private double startY;
+    private double upDistance;
+    private long durationNano;
+    private Font font;
+    private Paint fillColor;
+    private Paint strokeColor;
 
-    private final Transition transition;
-    private boolean hasPlayStarted = false;
-
-    public TextFloatUpAnimation(String text, double sx, double sy, Font font, Paint fillColor, Paint strokeColor, Duration duration, double upDistance) {
-        this.text = text;
-        this.opacity = 1.0;
-        this.x = sx;
-        this.y = sy;
-        this.font = font;
-        this.fillColor = fillColor;
-        this.strokeColor = strokeColor;
-
-        this.transition = new Transition() {
-            {
-                setCycleDuration(duration);
-            }
+    private final MyTimer timer;
 
+    private TextFloatUpAnimation() {
+        this.timer = new MyTimer() {
             @Override
-            protected void interpolate(double frac) {
-                TextFloatUpAnimation.this.opacity = 1.0 - frac;
-                TextFloatUpAnimation.this.y = sy - upDistance * frac;
+            void update(long elapsedTimeNano) {
+                final double frac = Math.min(1.0, (double) elapsedTimeNano / durationNano);
+                opacity = 1.0 - frac;
+                y = startY - upDistance * frac;
+                if (frac >= 1.0) {
+                    this.setDead(true);
+                }
             }
         };
     }
 
+    /**
+     * 描画座標 (sx, sy) から durationMilli ミリ秒かけて upDistance ピクセル上昇するテキストのエフェクトを、
+     * プールから取り出す。
+     */
+    public static TextFloatUpAnimation obtain(String text, double sx, double sy, Font font, Paint fillColor, Paint strokeColor, long durationMilli, double upDistance) {
+        final TextFloatUpAnimation anim = pool.obtain();
+        anim.text = text;
+        anim.opacity = 1.0;
+        anim.x = sx;
+        anim.y = sy;
+        anim.startY = sy;
+        anim.upDistance = upDistance;
+        anim.durationNano = Math.max(1, durationMilli * 1000000L);
+        anim.font = font;
+        anim.fillColor = fillColor;
+        anim.strokeColor = strokeColor;
+        return anim;
+    }
+
     @Override
     public void play() {
-        this.transition.play();
-        this.hasPlayStarted = true;
+        this.timer.start();
     }
 
     @Override
@@ -61,6 +78,16 @@ public class TextFloatUpAnimation implements DrawableTransition {
 
     @Override
     public boolean hasFinished() {
-        return this.hasPlayStarted && this.transition.getStatus() == Animation.Status.STOPPED;
+        return this.timer.isDead();
+    }
+
+    @Override
+    public void release() {
+        this.timer.reset();
+        this.text = null;
+        this.font = null;
+        this.fillColor = null;
+        this.strokeColor = null;
+        pool.release(this);
     }
 }
@@ -1,15 +1,13 @@
-import javafx.animation.Transition;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
-import javafx.util.Duration;
-
-import java.util.function.Consumer;
 
+/**
+ * ゲージ付きのボタン。ゲージが満タンのときだけ押せる。
+ * ゲージの値は {@link MazeSimulation#getSkillGage(Skill)} などから毎フレーム {@link #setGage(double)} で反映する。
+ */
 public class TimeGageImageViewButton {
     private final ImageViewButton button;
     private double gage = 0.0;
-    private Transition gageTransition;
-    private Consumer<TimeGageImageViewButton> onGageFilled = null;
 
     public TimeGageImageViewButton(ImageViewButton button) {
         this.button = button;
@@ -20,35 +18,6 @@ public class TimeGageImageViewButton {
         return button;
     }
 
-    public void gageStartFromEmpty(Duration durationUntilFull) {
-        this.gage = 0.0;
-        this.button.setButtonEnabled(false);
-
-        this.gageTransition = new Transition() {
-            {
-                setCycleDuration(durationUntilFull);
-            }
-
-            @Override
-            protected void interpolate(double frac) {
-                gage = frac;
-            }
-        };
-
-        this.gageTransition.setOnFinished(evt -> {
-            setGage(1.0);
-            if (onGageFilled != null) {
-                onGageFilled.accept(TimeGageImageViewButton.this);
-            }
-        });
-
-        this.gageTransition.play();
-    }
-
-    public void pause() {
-        this.gageTransition.pause();
-    }
-
     public void draw(GraphicsContext gc) {
         if (button.isButtonEnabled()) return;
 
@@ -70,8 +39,10 @@ public class TimeGageImageViewButton {
         }
 
         this.gage = gage;
-        this.button.setButtonEnabled(this.gage == 1.0);
-        this.gageTransition.stop();
+        final boolean isFull = (this.gage == 1.0);
+        if (this.button.isButtonEnabled() != isFull) {
+            this.button.setButtonEnabled(isFull);
+        }
     }
 
     public double getWidth() {
@@ -81,8 +52,4 @@ public class TimeGageImageViewButton {
     public double getHeight() {
         return button.getImage().getHeight();
     }
-
-    public void setOnGageFilled(Consumer<TimeGageImageViewButton> onGageFilled) {
-        this.onGageFilled = onGageFilled;
-    }
 }
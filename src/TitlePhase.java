@@ -1,7 +1,6 @@
 import javafx.animation.Transition;
 import javafx.application.Platform;
 import javafx.scene.canvas.GraphicsContext;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.media.AudioClip;
 import javafx.scene.paint.Color;
@@ -16,15 +15,19 @@ public class TitlePhase implements Phase {
 
     public TitlePhase(MapGameScene scene) {
         this.scene = scene;
-        this.titleLogo = new ImageView("png/title-logo.png");
-        this.btnPlay = new ImageViewButton(new Image("png/button-play.png"), scene);
-        this.btnExit = new ImageViewButton(new Image("png/button-exit.png"), scene);
-        this.bgm = new AudioClip(MapGame.getResourceAsString("sound/title-bgm.mp3"));
+        this.titleLogo = new ImageView(Assets.image("png/title-logo.png"));
+        this.btnPlay = new ImageViewButton(Assets.image("png/button-play.png"), scene);
+        this.btnExit = new ImageViewButton(Assets.image("png/button-exit.png"), scene);
+        this.bgm = Assets.audioClip("sound/title-bgm.mp3");
         this.bgm.setCycleCount(AudioClip.INDEFINITE);
     }
 
     @Override
     public void setup() {
+        // タイトル画面を表示している間に、迷路画面で使う画像や音の読み込みと、最初のマップの生成を済ませておく
+        Assets.preloadInBackground();
+        MazePhase.pregenerateMap();
+
         setButtonsClickHandler();
         alignTitleLogo();
         alignButtons();